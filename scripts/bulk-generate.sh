@@ -36,12 +36,18 @@ PROJECT_ID="${PROJECT_ID:-}"
 SPACE_ID="${SPACE_ID:-_default}"
 DOC_COUNT="${DOC_COUNT:-100}"
 WI_PER_DOC="${WI_PER_DOC:-500}"
+WI_BATCH_SIZE="${WI_BATCH_SIZE:-1}"
 REVISION_PASSES="${REVISION_PASSES:-3}"
 DOC_PARALLELISM="${DOC_PARALLELISM:-4}"
 DOC_PREFIX="${DOC_PREFIX:-doc_}"
 STATE_DIR="${STATE_DIR:-./.bulk-state}"
 LINK_ROLE="${LINK_ROLE:-relates_to}"
 LINKS_PER_WI="${LINKS_PER_WI:-2}"
+LINK_COMMIT_CHUNK_SIZE="${LINK_COMMIT_CHUNK_SIZE:-}"
+LINK_PARALLELISM="${LINK_PARALLELISM:-1}"
+LINK_TOPOLOGY="${LINK_TOPOLOGY:-}"
+SEED="${SEED:-}"
+CONTENT_POOL_SIZE="${CONTENT_POOL_SIZE:-0}"
 
 usage() {
   cat <<EOF
@@ -59,12 +65,18 @@ Optional (defaults shown):
   -s, --space ID              SPACE_ID=_default
       --doc-count N           DOC_COUNT=100
       --wi-per-doc N          WI_PER_DOC=500
+      --batch-size N          WI_BATCH_SIZE=1
       --revision-passes N     REVISION_PASSES=3
       --parallelism N         DOC_PARALLELISM=4
       --doc-prefix STR        DOC_PREFIX=doc_
       --state-dir PATH        STATE_DIR=./.bulk-state
       --link-role ROLE        LINK_ROLE=relates_to
       --links-per-wi N        LINKS_PER_WI=2
+      --link-chunk-size N     LINK_COMMIT_CHUNK_SIZE=  (empty: one commit per source document)
+      --link-parallelism N    LINK_PARALLELISM=1
+      --link-topology NAME    LINK_TOPOLOGY=  (empty: UNIFORM; PREFERENTIAL_ATTACHMENT, CLUSTERED or CHAIN)
+      --seed N                SEED=      (empty: random content; set to make the generated data reproducible)
+      --content-pool-size N   CONTENT_POOL_SIZE=0
   -h, --help                  Show this message and exit
 EOF
 }
@@ -83,6 +95,8 @@ while [ $# -gt 0 ]; do
     --doc-count=*)        DOC_COUNT="${1#*=}"; shift ;;
     --wi-per-doc)         WI_PER_DOC="$2"; shift 2 ;;
     --wi-per-doc=*)       WI_PER_DOC="${1#*=}"; shift ;;
+    --batch-size)         WI_BATCH_SIZE="$2"; shift 2 ;;
+    --batch-size=*)       WI_BATCH_SIZE="${1#*=}"; shift ;;
     --revision-passes)    REVISION_PASSES="$2"; shift 2 ;;
     --revision-passes=*)  REVISION_PASSES="${1#*=}"; shift ;;
     --parallelism)        DOC_PARALLELISM="$2"; shift 2 ;;
@@ -95,6 +109,16 @@ while [ $# -gt 0 ]; do
     --link-role=*)        LINK_ROLE="${1#*=}"; shift ;;
     --links-per-wi)       LINKS_PER_WI="$2"; shift 2 ;;
     --links-per-wi=*)     LINKS_PER_WI="${1#*=}"; shift ;;
+    --link-chunk-size)    LINK_COMMIT_CHUNK_SIZE="$2"; shift 2 ;;
+    --link-chunk-size=*)  LINK_COMMIT_CHUNK_SIZE="${1#*=}"; shift ;;
+    --link-parallelism)   LINK_PARALLELISM="$2"; shift 2 ;;
+    --link-parallelism=*) LINK_PARALLELISM="${1#*=}"; shift ;;
+    --link-topology)      LINK_TOPOLOGY="$2"; shift 2 ;;
+    --link-topology=*)    LINK_TOPOLOGY="${1#*=}"; shift ;;
+    --seed)               SEED="$2"; shift 2 ;;
+    --seed=*)             SEED="${1#*=}"; shift ;;
+    --content-pool-size)  CONTENT_POOL_SIZE="$2"; shift 2 ;;
+    --content-pool-size=*) CONTENT_POOL_SIZE="${1#*=}"; shift ;;
     -h|--help)            usage; exit 0 ;;
     *) echo "Unknown argument: $1" >&2; usage >&2; exit 2 ;;
   esac
@@ -193,13 +217,25 @@ extract_revision() {
   fi
 }
 
+# extract_number <field>: prints a numeric top-level field of the JSON response on stdin.
+# Without jq the first occurrence is taken, top-level counters precede the nested per-item ones.
+extract_number() {
+  if command -v jq >/dev/null 2>&1; then
+    jq -r --arg field "$1" '.[$field] // empty' 2>/dev/null
+  else
+    grep -o "\"$1\"[[:space:]]*:[[:space:]]*[0-9.]*" | head -n1 | sed 's/.*:[[:space:]]*//'
+  fi
+}
+
 # ----- step 1: create documents (parallel) -----
 create_one_document() {
   local i="$1"
   local name="${DOC_PREFIX}$(printf '%03d' "$i")"
   local marker="doc-create-$name"
   done_marker "$marker" && return 0
-  if api POST "/projects/$PROJECT_ID/spaces/$SPACE_ID/documents/$name?quantity=$WI_PER_DOC" "" >/dev/null 2>/dev/null; then
+  local query="quantity=$WI_PER_DOC&batchSize=$WI_BATCH_SIZE&contentPoolSize=$CONTENT_POOL_SIZE"
+  [ -n "$SEED" ] && query+="&seed=$SEED"
+  if api POST "/projects/$PROJECT_ID/spaces/$SPACE_ID/documents/$name?$query" "" >/dev/null 2>/dev/null; then
     mark_done "$marker"
     printf '.'
   else
@@ -213,9 +249,9 @@ step_create_documents() {
     log "step-create-documents: already done"
     return
   fi
-  log "Creating $DOC_COUNT documents (parallel=$DOC_PARALLELISM, $WI_PER_DOC WI each)..."
+  log "Creating $DOC_COUNT documents (parallel=$DOC_PARALLELISM, $WI_PER_DOC WI each, $WI_BATCH_SIZE WI per commit)..."
   export -f api log create_one_document done_marker mark_done
-  export STATE_DIR API APP_TOKEN PROJECT_ID SPACE_ID WI_PER_DOC DOC_PREFIX
+  export STATE_DIR API APP_TOKEN PROJECT_ID SPACE_ID WI_PER_DOC WI_BATCH_SIZE SEED CONTENT_POOL_SIZE DOC_PREFIX
   # xargs returns non-zero if any child failed; we want to keep going through the batch
   # and let the operator inspect markers/STATE_DIR. Individual checkpoints prevent re-creating successes.
   seq 1 "$DOC_COUNT" | xargs -n1 -P"$DOC_PARALLELISM" -I{} bash -c 'create_one_document "$@"' _ {} || true
@@ -248,15 +284,27 @@ step_cross_doc_links() {
     log "step-cross-doc-links: already done"
     return
   fi
-  log "Creating cross-document workitem links (linksPerWorkItem=$LINKS_PER_WI, role=$LINK_ROLE)..."
-  local docs body created
+  log "Creating cross-document workitem links (linksPerWorkItem=$LINKS_PER_WI, role=$LINK_ROLE, parallelism=$LINK_PARALLELISM${LINK_COMMIT_CHUNK_SIZE:+, $LINK_COMMIT_CHUNK_SIZE WI per commit}${LINK_TOPOLOGY:+, topology=$LINK_TOPOLOGY})..."
+  local docs body response created planned failed rate
   docs="$(build_documents_json)"
-  body="{\"documents\":$docs,\"linksPerWorkItem\":$LINKS_PER_WI,\"linkRole\":\"$LINK_ROLE\"}"
+  body="{\"documents\":$docs,\"linksPerWorkItem\":$LINKS_PER_WI,\"linkRole\":\"$LINK_ROLE\",\"parallelism\":$LINK_PARALLELISM"
+  body+="${SEED:+,\"seed\":$SEED}${LINK_COMMIT_CHUNK_SIZE:+,\"commitChunkSize\":$LINK_COMMIT_CHUNK_SIZE}${LINK_TOPOLOGY:+,\"topology\":\"$LINK_TOPOLOGY\"}}"
   # No retry: a long-running bulk endpoint whose server-side work is not
   # cancellable by client retry. A retried POST kicks off a parallel duplicate
   # transaction on the server instead of replacing the first one.
-  created="$(API_MAX_ATTEMPTS=1 api POST "/projects/$PROJECT_ID/cross-document-links" "$body")"
-  log "  created links: $created"
+  response="$(API_MAX_ATTEMPTS=1 api POST "/projects/$PROJECT_ID/cross-document-links" "$body" 2>/dev/null)"
+  created="$(printf '%s' "$response" | extract_number created)"
+  planned="$(printf '%s' "$response" | extract_number planned)"
+  failed="$(printf '%s' "$response" | extract_number failed)"
+  rate="$(printf '%s' "$response" | extract_number linksPerSecond)"
+  log "  created links: ${created:-?} of ${planned:-?} planned (${rate:-?} links/s)"
+  if [ "${failed:-0}" -gt 0 ]; then
+    log "step-cross-doc-links: $failed source document(s) failed or were stopped — fix and re-run"
+    if command -v jq >/dev/null 2>&1; then
+      printf '%s' "$response" | jq -r '.documents[] | select(.error != null) | "  \(.sourceDocument.documentName): \(.error)"'
+    fi
+    return 1
+  fi
   mark_done "step-cross-doc-links"
 }
 
@@ -0,0 +1,38 @@
+package ch.sbb.polarion.extension.test_data.benchmark;
+
+import com.polarion.alm.tracker.model.IWorkItem;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lightweight {@link IWorkItem} stand-ins for benchmarks: only id, title and project id are answered, from pre-built strings,
+ * so that the benchmarks measure the generators rather than a mocking framework.
+ */
+final class BenchmarkWorkItems {
+
+    private BenchmarkWorkItems() {
+    }
+
+    static @NotNull List<IWorkItem> create(int count) {
+        List<IWorkItem> workItems = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            workItems.add(create("BENCH-" + i, "workitem_title" + i, "benchmark"));
+        }
+        return workItems;
+    }
+
+    private static @NotNull IWorkItem create(@NotNull String id, @NotNull String title, @NotNull String projectId) {
+        return (IWorkItem) Proxy.newProxyInstance(IWorkItem.class.getClassLoader(), new Class<?>[]{IWorkItem.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getId" -> id;
+            case "getTitle" -> title;
+            case "getProjectId" -> projectId;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> id;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package ch.sbb.polarion.extension.test_data.benchmark;
+
+import ch.sbb.polarion.extension.test_data.util.HtmlDescriptionBuilder;
+import com.polarion.alm.tracker.model.IWorkItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete work item description (text, images and links) built by concatenating the strings of the previous generators
+ * versus appending everything into one reused {@link HtmlDescriptionBuilder}. Compare {@code gc.alloc.rate.norm} of both.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DescriptionBenchmark {
+
+    private static final int WORK_ITEM_COUNT = 1000;
+
+    private List<IWorkItem> workItems;
+    private SplittableRandom random;
+    private HtmlDescriptionBuilder builder;
+
+    @Setup
+    public void setUp() {
+        workItems = BenchmarkWorkItems.create(WORK_ITEM_COUNT);
+        random = new SplittableRandom(42);
+        builder = new HtmlDescriptionBuilder();
+    }
+
+    @Benchmark
+    public String legacyConcatenation() {
+        return LegacyDocumentGenerator.generateRandomHtmlText(random)
+                + LegacyDocumentGenerator.generateRandomHtmlImages(random)
+                + LegacyDocumentGenerator.generateRandomWorkItemLinks(workItems, random);
+    }
+
+    @Benchmark
+    public String reusedBuilder() {
+        return builder.reset()
+                .appendRandomHtmlText(random)
+                .appendRandomHtmlImages(random)
+                .appendRandomWorkItemLinks(workItems, random)
+                .toString();
+    }
+}
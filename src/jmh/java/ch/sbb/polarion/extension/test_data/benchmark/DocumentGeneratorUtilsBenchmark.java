@@ -0,0 +1,46 @@
+package ch.sbb.polarion.extension.test_data.benchmark;
+
+import ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the text and image generators. {@code generateRandomHtmlImages} renders and Base64-encodes the SVG images,
+ * so it also covers the SVG generation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DocumentGeneratorUtilsBenchmark {
+
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public String generateRandomHtmlText() {
+        return DocumentGeneratorUtils.generateRandomHtmlText(random);
+    }
+
+    @Benchmark
+    public String generateRandomHtmlImages() {
+        return DocumentGeneratorUtils.generateRandomHtmlImages(random);
+    }
+}
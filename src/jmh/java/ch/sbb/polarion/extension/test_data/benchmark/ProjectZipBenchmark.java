@@ -0,0 +1,99 @@
+package ch.sbb.polarion.extension.test_data.benchmark;
+
+import ch.sbb.polarion.extension.test_data.util.ParallelZipWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Zipping a project of {@link #ENTRY_COUNT} work item XML files the way the template download does:
+ * {@code parallelism = 1} deflates sequentially through {@link ZipOutputStream}, higher values use {@link ParallelZipWriter}.
+ * The gain depends on the number of cores of the host, compare the average times of the parallelism values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectZipBenchmark {
+
+    private static final int ENTRY_COUNT = 2000;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private byte[][] entries;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        entries = new byte[ENTRY_COUNT][];
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            entries[i] = workItemXml(i, random).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public void zipProject() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        if (parallelism == 1) {
+            try (ZipOutputStream zos = new ZipOutputStream(out)) {
+                for (int i = 0; i < ENTRY_COUNT; i++) {
+                    ZipEntry entry = new ZipEntry(entryName(i));
+                    entry.setMethod(ZipEntry.DEFLATED);
+                    zos.putNextEntry(entry);
+                    zos.write(entries[i]);
+                    zos.closeEntry();
+                }
+            }
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (ParallelZipWriter writer = new ParallelZipWriter(out, pool, parallelism * 4)) {
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                writer.putEntry(new ZipEntry(entryName(i)), new ByteArrayInputStream(entries[i]));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String entryName(int index) {
+        return ".polarion/tracker/workitems/" + (index / 100) + "/WI-" + index + "/workitem.xml";
+    }
+
+    private static String workItemXml(int index, SplittableRandom random) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<work-item>\n");
+        xml.append("  <field id=\"id\">WI-").append(index).append("</field>\n");
+        int fieldCount = 20 + random.nextInt(40);
+        for (int i = 0; i < fieldCount; i++) {
+            xml.append("  <field id=\"custom").append(i).append("\">");
+            int words = 5 + random.nextInt(30);
+            for (int w = 0; w < words; w++) {
+                xml.append(Long.toString(random.nextLong(1L << 40), 36)).append(' ');
+            }
+            xml.append("</field>\n");
+        }
+        return xml.append("</work-item>\n").toString();
+    }
+}
@@ -0,0 +1,48 @@
+package ch.sbb.polarion.extension.test_data.benchmark;
+
+import ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils;
+import com.polarion.alm.tracker.model.IWorkItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the work item link generator for documents of different sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkItemLinksBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int workItemCount;
+
+    private List<IWorkItem> workItems;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        workItems = BenchmarkWorkItems.create(workItemCount);
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public String generateRandomWorkItemLinks() {
+        return DocumentGeneratorUtils.generateRandomWorkItemLinks(workItems, random);
+    }
+}
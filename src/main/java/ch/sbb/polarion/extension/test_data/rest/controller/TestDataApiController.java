@@ -1,6 +1,8 @@
 package ch.sbb.polarion.extension.test_data.rest.controller;
 
 import ch.sbb.polarion.extension.generic.rest.filter.Secured;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkDocumentsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkProjectsRequest;
 import ch.sbb.polarion.extension.test_data.rest.model.CollectionRequest;
 import ch.sbb.polarion.extension.test_data.rest.model.CrossDocumentLinksRequest;
 import ch.sbb.polarion.extension.test_data.rest.model.LinkedRevisionsRequest;
@@ -10,29 +12,36 @@ import jakarta.inject.Singleton;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.core.Response;
 
+import java.util.List;
+
 @Singleton
 @Secured
 @Path("/api")
 public class TestDataApiController extends TestDataInternalController {
 
     @Override
-    public Response createDocumentWithGeneratedWorkItems(String projectId, String spaceId, String documentName, Integer quantity) {
-        return polarionService.callPrivileged(() -> super.createDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, quantity));
+    public Response createDocumentWithGeneratedWorkItems(String projectId, String spaceId, String documentName, Integer quantity, Integer batchSize, Long seed, Integer contentPoolSize, boolean async) {
+        return polarionService.callPrivileged(() -> super.createDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, quantity, batchSize, seed, contentPoolSize, async));
     }
 
     @Override
-    public Response extendDocumentWithGeneratedWorkItems(String projectId, String spaceId, String documentName, Integer quantity) {
-        return polarionService.callPrivileged(() -> super.extendDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, quantity));
+    public Response createDocumentsWithGeneratedWorkItems(String projectId, String spaceId, boolean async, BulkDocumentsRequest request) {
+        return polarionService.callPrivileged(() -> super.createDocumentsWithGeneratedWorkItems(projectId, spaceId, async, request));
     }
 
     @Override
-    public Response changeDocumentWorkItemDescriptions(String projectId, String spaceId, String documentName, Integer interval) {
-        return polarionService.callPrivileged(() -> super.changeDocumentWorkItemDescriptions(projectId, spaceId, documentName, interval));
+    public Response extendDocumentWithGeneratedWorkItems(String projectId, String spaceId, String documentName, Integer quantity, Integer batchSize, Long seed, Integer contentPoolSize, boolean async) {
+        return polarionService.callPrivileged(() -> super.extendDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, quantity, batchSize, seed, contentPoolSize, async));
     }
 
     @Override
-    public Response saveProjectTemplate(String templateId, String templateHash, FormDataBodyPart file) {
-        return polarionService.callPrivileged(() -> super.saveProjectTemplate(templateId, templateHash, file));
+    public Response changeDocumentWorkItemDescriptions(String projectId, String spaceId, String documentName, Integer interval, Long seed, Integer contentPoolSize, boolean async) {
+        return polarionService.callPrivileged(() -> super.changeDocumentWorkItemDescriptions(projectId, spaceId, documentName, interval, seed, contentPoolSize, async));
+    }
+
+    @Override
+    public Response saveProjectTemplate(String templateId, String templateHash, FormDataBodyPart file, boolean delta, boolean contentAddressed) {
+        return polarionService.callPrivileged(() -> super.saveProjectTemplate(templateId, templateHash, file, delta, contentAddressed));
     }
 
     @Override
@@ -41,13 +50,28 @@ public class TestDataApiController extends TestDataInternalController {
     }
 
     @Override
-    public Response downloadProjectTemplate(String projectId, String projectGroup) {
-        return polarionService.callPrivileged(() -> super.downloadProjectTemplate(projectId, projectGroup));
+    public Response downloadProjectTemplate(String projectId, String projectGroup, int parallelism, List<String> include, List<String> exclude) {
+        return polarionService.callPrivileged(() -> super.downloadProjectTemplate(projectId, projectGroup, parallelism, include, exclude));
+    }
+
+    @Override
+    public Response createProjectsFromTemplate(String templateId, boolean async, BulkProjectsRequest request) {
+        return polarionService.callPrivileged(() -> super.createProjectsFromTemplate(templateId, async, request));
+    }
+
+    @Override
+    public Response getTemplateFiles(String templateId, List<String> paths) {
+        return polarionService.callPrivileged(() -> super.getTemplateFiles(templateId, paths));
     }
 
     @Override
-    public Response createCrossDocumentLinks(String projectId, CrossDocumentLinksRequest request) {
-        return polarionService.callPrivileged(() -> super.createCrossDocumentLinks(projectId, request));
+    public Response getProjectFiles(String projectId, String projectGroup, List<String> paths) {
+        return polarionService.callPrivileged(() -> super.getProjectFiles(projectId, projectGroup, paths));
+    }
+
+    @Override
+    public Response createCrossDocumentLinks(String projectId, boolean async, CrossDocumentLinksRequest request) {
+        return polarionService.callPrivileged(() -> super.createCrossDocumentLinks(projectId, async, request));
     }
 
     @Override
@@ -64,4 +88,14 @@ public class TestDataApiController extends TestDataInternalController {
     public Response createCollection(String projectId, String collectionName, CollectionRequest request) {
         return polarionService.callPrivileged(() -> super.createCollection(projectId, collectionName, request));
     }
+
+    @Override
+    public Response getGenerationJob(String jobId) {
+        return polarionService.callPrivileged(() -> super.getGenerationJob(jobId));
+    }
+
+    @Override
+    public Response cancelGenerationJob(String jobId) {
+        return polarionService.callPrivileged(() -> super.cancelGenerationJob(jobId));
+    }
 }
@@ -2,16 +2,30 @@ package ch.sbb.polarion.extension.test_data.rest.controller;
 
 import ch.sbb.polarion.extension.generic.service.PolarionService;
 import ch.sbb.polarion.extension.test_data.rest.model.BaselineResponse;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkDocumentsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkDocumentsResponse;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkProjectsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkProjectsResponse;
 import ch.sbb.polarion.extension.test_data.rest.model.CollectionRequest;
 import ch.sbb.polarion.extension.test_data.rest.model.CrossDocumentLinksRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.CrossDocumentLinksResponse;
+import ch.sbb.polarion.extension.test_data.rest.model.GenerationJobStatus;
 import ch.sbb.polarion.extension.test_data.rest.model.LinkedRevisionsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.TemplateSyncMode;
+import ch.sbb.polarion.extension.test_data.rest.model.TemplateSyncReport;
 import ch.sbb.polarion.extension.test_data.service.BaselineService;
 import ch.sbb.polarion.extension.test_data.service.LinksService;
 import ch.sbb.polarion.extension.test_data.service.ModuleService;
 import ch.sbb.polarion.extension.test_data.service.ProjectTemplateService;
+import ch.sbb.polarion.extension.test_data.service.WorkItemGenerationOptions;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationJob;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationJobsService;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationProgress;
+import ch.sbb.polarion.extension.test_data.util.GlobFilter;
 import com.polarion.alm.projects.UserProjectCreationException;
 import com.polarion.alm.shared.api.transaction.TransactionalExecutor;
 import com.polarion.alm.tracker.model.baselinecollection.IBaselineCollection;
+import com.polarion.subterra.base.location.ILocation;
 import io.swagger.v3.oas.annotations.Hidden;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -21,11 +35,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataParam;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import jakarta.inject.Singleton;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.PATCH;
@@ -35,11 +51,21 @@ import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Singleton
 @Tag(name = "Test Data")
@@ -51,11 +77,18 @@ public class TestDataInternalController {
     @Context
     private HttpServletRequest httpServletRequest;
 
+    @Context
+    private UriInfo uriInfo;
+
+    @Context
+    private Request request;
+
     protected final PolarionService polarionService;
     private final ModuleService moduleService;
     private final ProjectTemplateService projectTemplateService;
     private final LinksService linksService;
     private final BaselineService baselineService;
+    private final GenerationJobsService generationJobsService;
 
     @SuppressWarnings("unused")
     public TestDataInternalController() {
@@ -64,6 +97,7 @@ public class TestDataInternalController {
         projectTemplateService = new ProjectTemplateService();
         linksService = new LinksService();
         baselineService = new BaselineService();
+        generationJobsService = GenerationJobsService.getInstance();
     }
 
     @POST
@@ -71,35 +105,97 @@ public class TestDataInternalController {
     @Operation(summary = "Create document with generated work items",
             responses = {
                     @ApiResponse(responseCode = "201", description = "Document successfully created with generated work items"),
-                    @ApiResponse(responseCode = "409", description = "Document with this name already exists")
+                    @ApiResponse(responseCode = "202", description = "Generation job accepted",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = GenerationJobStatus.class))),
+                    @ApiResponse(responseCode = "409", description = "Document with this name already exists"),
+                    @ApiResponse(responseCode = "400", description = "Invalid request")
             }
     )
     public Response createDocumentWithGeneratedWorkItems(
             @PathParam("projectId") String projectId,
             @PathParam("spaceId") String spaceId,
             @PathParam("documentName") String documentName,
-            @QueryParam("quantity") @DefaultValue("100") Integer quantity
+            @QueryParam("quantity") @DefaultValue("100") Integer quantity,
+            @Parameter(description = "Number of work items created per commit") @QueryParam("batchSize") @DefaultValue("1") Integer batchSize,
+            @Parameter(description = "Seed of the generated content, the same seed produces the same content") @QueryParam("seed") Long seed,
+            @Parameter(description = "Number of pre-generated description fragments reused across work items, 0 generates every description from scratch") @QueryParam("contentPoolSize") @DefaultValue("0") Integer contentPoolSize,
+            @Parameter(description = "Run the generation as a background job") @QueryParam("async") @DefaultValue("false") boolean async
     ) {
-        moduleService.createDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, quantity);
+        WorkItemGenerationOptions options = new WorkItemGenerationOptions(quantity, batchSize, seed, contentPoolSize);
+        if (async) {
+            return submitJob("create-document", progress -> {
+                moduleService.createDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, options, progress);
+                return null;
+            });
+        }
+
+        moduleService.createDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, options, GenerationProgress.NONE);
 
         URI location = UriBuilder.fromPath(httpServletRequest.getRequestURI()).build();
         return Response.created(location).build();
     }
 
+    @POST
+    @Path("/projects/{projectId}/spaces/{spaceId}/documents")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Create many documents with generated work items in parallel",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Documents generated, per-document timings and errors are reported",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = BulkDocumentsResponse.class))),
+                    @ApiResponse(responseCode = "202", description = "Generation job accepted",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = GenerationJobStatus.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid request")
+            }
+    )
+    public Response createDocumentsWithGeneratedWorkItems(
+            @PathParam("projectId") String projectId,
+            @PathParam("spaceId") String spaceId,
+            @Parameter(description = "Run the generation as a background job") @QueryParam("async") @DefaultValue("false") boolean async,
+            @Parameter(required = true) BulkDocumentsRequest request
+    ) {
+        ModuleService.validateBulkDocumentsRequest(request);
+        if (async) {
+            return submitJob("create-documents", progress -> moduleService.createDocumentsWithGeneratedWorkItems(projectId, spaceId, request, progress));
+        }
+
+        BulkDocumentsResponse response = moduleService.createDocumentsWithGeneratedWorkItems(projectId, spaceId, request, GenerationProgress.NONE);
+        return Response.ok(response).build();
+    }
+
     @PATCH
     @Path("/projects/{projectId}/spaces/{spaceId}/documents/{documentName}/append")
     @Operation(summary = "Append generated work items to the document",
             responses = {
-                    @ApiResponse(responseCode = "204", description = "Document successfully appended with generated work items")
+                    @ApiResponse(responseCode = "204", description = "Document successfully appended with generated work items"),
+                    @ApiResponse(responseCode = "202", description = "Generation job accepted",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = GenerationJobStatus.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid request")
             }
     )
     public Response extendDocumentWithGeneratedWorkItems(
             @PathParam("projectId") String projectId,
             @PathParam("spaceId") String spaceId,
             @PathParam("documentName") String documentName,
-            @QueryParam("quantity") @DefaultValue("100") Integer quantity
+            @QueryParam("quantity") @DefaultValue("100") Integer quantity,
+            @Parameter(description = "Number of work items created per commit") @QueryParam("batchSize") @DefaultValue("1") Integer batchSize,
+            @Parameter(description = "Seed of the generated content, the same seed produces the same content") @QueryParam("seed") Long seed,
+            @Parameter(description = "Number of pre-generated description fragments reused across work items, 0 generates every description from scratch") @QueryParam("contentPoolSize") @DefaultValue("0") Integer contentPoolSize,
+            @Parameter(description = "Run the generation as a background job") @QueryParam("async") @DefaultValue("false") boolean async
     ) {
-        moduleService.extendDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, quantity);
+        WorkItemGenerationOptions options = new WorkItemGenerationOptions(quantity, batchSize, seed, contentPoolSize);
+        if (async) {
+            return submitJob("append-document", progress -> {
+                moduleService.extendDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, options, progress);
+                return null;
+            });
+        }
+
+        moduleService.extendDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, options, GenerationProgress.NONE);
 
         return Response.noContent().build();
     }
@@ -108,35 +204,58 @@ public class TestDataInternalController {
     @Path("/projects/{projectId}/spaces/{spaceId}/documents/{documentName}/change-wi-descriptions")
     @Operation(summary = "Change WorkItem Descriptions",
             responses = {
-                    @ApiResponse(responseCode = "204", description = "WorkItem descriptions successfully changed")
+                    @ApiResponse(responseCode = "204", description = "WorkItem descriptions successfully changed"),
+                    @ApiResponse(responseCode = "202", description = "Generation job accepted",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = GenerationJobStatus.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid request")
             }
     )
     public Response changeDocumentWorkItemDescriptions(
             @PathParam("projectId") String projectId,
             @PathParam("spaceId") String spaceId,
             @PathParam("documentName") String documentName,
-            @QueryParam("interval") @DefaultValue("5") Integer interval
+            @QueryParam("interval") @DefaultValue("5") Integer interval,
+            @Parameter(description = "Seed of the generated content, the same seed produces the same content") @QueryParam("seed") Long seed,
+            @Parameter(description = "Number of pre-generated description fragments reused across work items, 0 generates every description from scratch") @QueryParam("contentPoolSize") @DefaultValue("0") Integer contentPoolSize,
+            @Parameter(description = "Run the generation as a background job") @QueryParam("async") @DefaultValue("false") boolean async
     ) {
-        moduleService.changeDocumentWorkItemDescriptions(projectId, spaceId, documentName, interval);
+        ModuleService.validateChangeDescriptions(interval, contentPoolSize);
+        if (async) {
+            return submitJob("change-descriptions", progress -> {
+                moduleService.changeDocumentWorkItemDescriptions(projectId, spaceId, documentName, interval, seed, contentPoolSize, progress);
+                return null;
+            });
+        }
+
+        moduleService.changeDocumentWorkItemDescriptions(projectId, spaceId, documentName, interval, seed, contentPoolSize, GenerationProgress.NONE);
 
         return Response.noContent().build();
     }
 
     @POST
     @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @Produces(MediaType.APPLICATION_JSON)
     @Path("/templates/{templateId}/{templateHash}")
     @Operation(
             summary = "Upload and save a project template",
             responses = {
-                    @ApiResponse(responseCode = "201", description = "Template successfully created"),
-                    @ApiResponse(responseCode = "400", description = "Invalid template data or ID")
+                    @ApiResponse(responseCode = "201", description = "Template successfully created",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = TemplateSyncReport.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid template data or ID, or the file does not match the template hash")
             }
     )
     public Response saveProjectTemplate(
             @PathParam("templateId") String templateId,
+            @Parameter(description = "Expected SHA-256 of the template file in hex, the upload is rejected if it differs. Any other value, like a hash computed by an older client, is stored as the template hash without verification")
             @PathParam("templateHash") String templateHash,
             @Parameter(description = "Project template file", required = true, schema = @Schema(type = "string", format = "binary"))
-            @FormDataParam("file") FormDataBodyPart file
+            @FormDataParam("file") FormDataBodyPart file,
+            @Parameter(description = "Write only the files that differ from the stored template instead of recreating the template folder, files missing in the upload are deleted together with the folders they leave empty")
+            @QueryParam("delta") @DefaultValue("false") boolean delta,
+            @Parameter(description = "Store the files as blobs shared between templates, only files not stored by any template yet are written. Such a template is not listed by Polarion until projects are created from it, the first creation writes its files into Polarion's template folder")
+            @QueryParam("contentAddressed") @DefaultValue("false") boolean contentAddressed
     ) {
 
         if (templateId == null || templateId.trim().isEmpty()) {
@@ -147,21 +266,28 @@ public class TestDataInternalController {
             throw new IllegalArgumentException("Template file is required");
         }
 
+        TemplateSyncMode mode = getTemplateSyncMode(delta, contentAddressed);
+        TemplateSyncReport report;
         try {
-            polarionService.callPrivileged(() -> TransactionalExecutor.executeInWriteTransaction(
-                    transaction -> {
-                        InputStream inputStream = file.getValueAs(InputStream.class);
+            // the service writes the template and deletes the blobs it no longer references in write transactions of its own
+            report = polarionService.callPrivileged(() -> {
+                InputStream inputStream = file.getValueAs(InputStream.class);
 
-                        projectTemplateService.saveProjectTemplate(templateId, inputStream, templateHash);
-                        return null;
-                    })
-            );
+                return projectTemplateService.saveProjectTemplate(templateId, inputStream, templateHash, mode);
+            });
         } catch (UserProjectCreationException | ProjectTemplateService.TemplateProcessingException e) {
             throw new IllegalArgumentException("Failed to save template: " + e.getMessage(), e);
         }
 
         URI location = UriBuilder.fromPath(httpServletRequest.getRequestURI()).build();
-        return Response.created(location).build();
+        return Response.created(location).entity(report).build();
+    }
+
+    private static TemplateSyncMode getTemplateSyncMode(boolean delta, boolean contentAddressed) {
+        if (contentAddressed) {
+            return TemplateSyncMode.CONTENT_ADDRESSED;
+        }
+        return delta ? TemplateSyncMode.DELTA : TemplateSyncMode.FULL;
     }
 
     @GET
@@ -169,6 +295,7 @@ public class TestDataInternalController {
     @Path("/templates/{templateId}/hash")
     @Operation(
             summary = "Get the hash of a project template",
+            description = "Returns the SHA-256 of the template file, computed by the server during the upload, or the hash the client uploaded with the template if it was no SHA-256",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Template hash successfully retrieved"),
                     @ApiResponse(responseCode = "404", description = "Template or hash not found"),
@@ -204,27 +331,166 @@ public class TestDataInternalController {
             summary = "Download a zipped project template",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Template successfully downloaded"),
+                    @ApiResponse(responseCode = "304", description = "Template did not change since the revision given in If-None-Match"),
                     @ApiResponse(responseCode = "404", description = "Template not found"),
-                    @ApiResponse(responseCode = "400", description = "Invalid project ID")
+                    @ApiResponse(responseCode = "400", description = "Invalid project ID, parallelism or glob pattern")
             }
     )
     public Response downloadProjectTemplate(@PathParam("projectId") String projectId,
-                                            @QueryParam("projectGroup") @Nullable String projectGroup) {
+                                            @QueryParam("projectGroup") @Nullable String projectGroup,
+                                            @Parameter(description = "Number of threads compressing the archive entries") @QueryParam("parallelism") @DefaultValue("1") int parallelism,
+                                            @Parameter(description = "Glob patterns of the project paths to download, e.g. '.polarion/**'; everything if omitted") @QueryParam("include") List<String> include,
+                                            @Parameter(description = "Glob patterns of the project paths to skip, e.g. '**/attachments/**'") @QueryParam("exclude") List<String> exclude) {
 
         try {
-            return polarionService.callPrivileged(() ->
-                    TransactionalExecutor.executeInReadOnlyTransaction(transaction -> {
-                        byte[] zipBytes = projectTemplateService.downloadProject(projectId, projectGroup);
+            ProjectTemplateService.validateZipParallelism(parallelism);
+            GlobFilter filter = GlobFilter.of(include, exclude);
+            ProjectTemplateService.ProjectRevision projectRevision = polarionService.callPrivileged(() ->
+                    TransactionalExecutor.executeInReadOnlyTransaction(transaction -> projectTemplateService.getExistingProjectRevision(projectId, projectGroup))
+            );
+
+            // Archives built from the same revision have the same entries but not the same bytes, hence a weak tag
+            EntityTag entityTag = new EntityTag(filter.isAll() ? projectRevision.revision() : projectRevision.revision() + "-" + filter.fingerprint(), true);
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+
+            byte[] cachedZip = projectTemplateService.getCachedProjectZip(projectRevision, filter);
+            Object zipStream = cachedZip != null
+                    ? cachedZip
+                    : (StreamingOutput) outputStream -> writeProjectZip(projectRevision, filter, outputStream, parallelism);
 
-                        return Response.ok(zipBytes)
-                                .header("Content-Disposition", "attachment; filename=" + projectId + ".zip")
-                                .header("Content-Type", MediaType.APPLICATION_OCTET_STREAM)
-                                .build();
+            return Response.ok(zipStream)
+                    .tag(entityTag)
+                    .header("Content-Disposition", "attachment; filename=" + projectId + ".zip")
+                    .header("Content-Type", MediaType.APPLICATION_OCTET_STREAM)
+                    .build();
+        } catch (ProjectTemplateService.TemplateProcessingException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("Template not found: " + projectId)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * Streams the project archive into the response. Called by JAX-RS after the resource method returned,
+     * so the repository is read in a privileged read-only transaction of its own.
+     */
+    private void writeProjectZip(@NotNull ProjectTemplateService.ProjectRevision projectRevision, @NotNull GlobFilter filter,
+                                 @NotNull OutputStream outputStream, int parallelism) throws IOException {
+        try {
+            polarionService.callPrivileged(() ->
+                    TransactionalExecutor.executeInReadOnlyTransaction(transaction -> {
+                        projectTemplateService.writeProjectZip(projectRevision, filter, outputStream, parallelism);
+                        return null;
                     })
             );
+        } catch (ProjectTemplateService.TemplateProcessingException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @POST
+    @Path("/templates/{templateId}/projects")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Create many projects from a stored template in parallel",
+            description = "A template uploaded with contentAddressed=true is first written into Polarion's template folder, which registers it with Polarion",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Projects created, per-project timings and errors are reported",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = BulkProjectsResponse.class))),
+                    @ApiResponse(responseCode = "202", description = "Generation job accepted",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = GenerationJobStatus.class))),
+                    @ApiResponse(responseCode = "404", description = "Template not found"),
+                    @ApiResponse(responseCode = "400", description = "Invalid template ID or request")
+            }
+    )
+    public Response createProjectsFromTemplate(
+            @PathParam("templateId") String templateId,
+            @Parameter(description = "Run the creation as a background job") @QueryParam("async") @DefaultValue("false") boolean async,
+            @Parameter(required = true) BulkProjectsRequest request
+    ) {
+        ProjectTemplateService.validateBulkProjectsRequest(request);
+        if (async) {
+            return submitJob("create-projects", progress -> projectTemplateService.createProjectsFromTemplate(templateId, request, progress));
+        }
+
+        try {
+            BulkProjectsResponse response = projectTemplateService.createProjectsFromTemplate(templateId, request, GenerationProgress.NONE);
+            return Response.ok(response).build();
+        } catch (ProjectTemplateService.TemplateProcessingException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @Path("/templates/{templateId}/files")
+    @Operation(
+            summary = "Get files of a stored project template",
+            description = "A single path is returned as it is, several paths as a ZIP archive",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Files successfully retrieved"),
+                    @ApiResponse(responseCode = "404", description = "Template or file not found"),
+                    @ApiResponse(responseCode = "400", description = "Invalid template ID or file path")
+            }
+    )
+    public Response getTemplateFiles(@PathParam("templateId") String templateId,
+                                     @Parameter(description = "Paths relative to the template folder, e.g. '.polarion/polarion-project.xml'") @QueryParam("path") List<String> paths) {
+        return getStoredFiles(() -> projectTemplateService.getExistingTemplateLocation(templateId), paths, templateId);
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @Path("/projects/{projectId}/files")
+    @Operation(
+            summary = "Get files of a project",
+            description = "A single path is returned as it is, several paths as a ZIP archive",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Files successfully retrieved"),
+                    @ApiResponse(responseCode = "404", description = "Project or file not found"),
+                    @ApiResponse(responseCode = "400", description = "Invalid project ID or file path")
+            }
+    )
+    public Response getProjectFiles(@PathParam("projectId") String projectId,
+                                    @QueryParam("projectGroup") @Nullable String projectGroup,
+                                    @Parameter(description = "Paths relative to the project folder, e.g. '.polarion/polarion-project.xml'") @QueryParam("path") List<String> paths) {
+        return getStoredFiles(() -> projectTemplateService.getExistingProjectLocation(projectId, projectGroup), paths, projectId);
+    }
+
+    private Response getStoredFiles(@NotNull Supplier<ILocation> root, @Nullable List<String> paths, @NotNull String archiveName) {
+        try {
+            List<ProjectTemplateService.StoredFile> files = polarionService.callPrivileged(() ->
+                    TransactionalExecutor.executeInReadOnlyTransaction(transaction -> projectTemplateService.locateFiles(root.get(), paths))
+            );
+
+            String fileName;
+            StreamingOutput content;
+            if (files.size() == 1) {
+                ProjectTemplateService.StoredFile file = files.get(0);
+                fileName = file.path().substring(file.path().lastIndexOf('/') + 1);
+                content = outputStream -> readInTransaction(() -> projectTemplateService.writeFile(file, outputStream));
+            } else {
+                fileName = archiveName + ".zip";
+                content = outputStream -> readInTransaction(() -> projectTemplateService.writeFilesZip(files, outputStream));
+            }
+
+            return Response.ok(content)
+                    .header("Content-Disposition", "attachment; filename=" + fileName)
+                    .header("Content-Type", MediaType.APPLICATION_OCTET_STREAM)
+                    .build();
         } catch (ProjectTemplateService.TemplateProcessingException e) {
             return Response.status(Response.Status.NOT_FOUND)
-                    .entity("Template not found: " + projectId)
+                    .entity(e.getMessage())
                     .build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
@@ -233,23 +499,49 @@ public class TestDataInternalController {
         }
     }
 
+    /**
+     * Runs the repository reads of a streamed response in a privileged read-only transaction of its own.
+     */
+    private void readInTransaction(@NotNull Runnable read) throws IOException {
+        try {
+            polarionService.callPrivileged(() ->
+                    TransactionalExecutor.executeInReadOnlyTransaction(transaction -> {
+                        read.run();
+                        return null;
+                    })
+            );
+        } catch (ProjectTemplateService.TemplateProcessingException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
     @POST
     @Path("/projects/{projectId}/cross-document-links")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(summary = "Generate random workitem links between documents",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Cross-document links successfully created",
+                    @ApiResponse(responseCode = "200", description = "Cross-document links created, per-source-document errors are reported",
                             content = @Content(mediaType = MediaType.APPLICATION_JSON,
-                                    schema = @Schema(implementation = Integer.class)))
+                                    schema = @Schema(implementation = CrossDocumentLinksResponse.class))),
+                    @ApiResponse(responseCode = "202", description = "Generation job accepted",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = GenerationJobStatus.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid request")
             }
     )
     public Response createCrossDocumentLinks(
             @PathParam("projectId") String projectId,
+            @Parameter(description = "Run the generation as a background job") @QueryParam("async") @DefaultValue("false") boolean async,
             @Parameter(required = true) CrossDocumentLinksRequest request
     ) {
-        int created = linksService.createCrossDocumentLinks(projectId, request);
-        return Response.ok(created).build();
+        LinksService.validateCrossDocumentLinksRequest(request);
+        if (async) {
+            return submitJob("cross-document-links", progress -> linksService.createCrossDocumentLinks(projectId, request, progress));
+        }
+
+        CrossDocumentLinksResponse response = linksService.createCrossDocumentLinks(projectId, request, GenerationProgress.NONE);
+        return Response.ok(response).build();
     }
 
     @POST
@@ -311,4 +603,69 @@ public class TestDataInternalController {
         URI location = UriBuilder.fromPath(httpServletRequest.getRequestURI()).build();
         return Response.created(location).entity(collection.getName()).build();
     }
+
+    @GET
+    @Path("/jobs/{jobId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Get status and progress of a generation job",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Job status",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = GenerationJobStatus.class))),
+                    @ApiResponse(responseCode = "404", description = "Job not found or submitted by another user")
+            }
+    )
+    public Response getGenerationJob(@PathParam("jobId") String jobId) {
+        GenerationJob job = generationJobsService.getJob(jobId);
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("Job not found: " + jobId)
+                    .build();
+        }
+        return Response.ok(job.toStatus()).build();
+    }
+
+    @DELETE
+    @Path("/jobs/{jobId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Cancel a generation job",
+            description = "Cancellation is cooperative: the job stops after the write transaction it is currently running",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Cancellation requested",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = GenerationJobStatus.class))),
+                    @ApiResponse(responseCode = "404", description = "Job not found or submitted by another user"),
+                    @ApiResponse(responseCode = "409", description = "Job has already finished, its final status is returned",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON,
+                                    schema = @Schema(implementation = GenerationJobStatus.class)))
+            }
+    )
+    public Response cancelGenerationJob(@PathParam("jobId") String jobId) {
+        GenerationJob job = generationJobsService.getJob(jobId);
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("Job not found: " + jobId)
+                    .build();
+        }
+        if (!job.requestCancel()) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(job.toStatus())
+                    .build();
+        }
+        return Response.accepted(job.toStatus()).build();
+    }
+
+    private @NotNull Response submitJob(@NotNull String type, @NotNull Function<GenerationProgress, Object> work) {
+        GenerationJob job;
+        try {
+            job = generationJobsService.submit(type, work);
+        } catch (RejectedExecutionException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity("Too many generation jobs are queued, try again later")
+                    .build();
+        }
+
+        URI location = uriInfo.getBaseUriBuilder().path(getClass()).path("jobs").path(job.getId()).build();
+        return Response.accepted(job.toStatus()).location(location).build();
+    }
 }
@@ -0,0 +1,38 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+@Schema(description = "Request to create many documents with generated work items in parallel")
+public record BulkDocumentsRequest(
+        @Schema(description = "Document name pattern in java.util.Formatter syntax, receives the document number", example = "doc_%03d") @NotNull String namePattern,
+        @Schema(description = "Number of documents to create", example = "100") @NotNull Integer count,
+        @Schema(description = "Number of the first document", example = "1") @Nullable Integer startIndex,
+        @Schema(description = "Number of work items per document", example = "500") @Nullable Integer quantity,
+        @Schema(description = "Number of work items created per commit", example = "1") @Nullable Integer batchSize,
+        @Schema(description = "Number of documents generated concurrently", example = "4") @Nullable Integer parallelism,
+        @Schema(description = "Seed of the generated content, the same seed produces the same content", example = "42") @Nullable Long seed,
+        @Schema(description = "Number of pre-generated description fragments shared by all documents, 0 generates every description from scratch", example = "0") @Nullable Integer contentPoolSize
+) {
+    @JsonCreator
+    public BulkDocumentsRequest(@JsonProperty("namePattern") String namePattern,
+                                @JsonProperty("count") Integer count,
+                                @JsonProperty("startIndex") Integer startIndex,
+                                @JsonProperty("quantity") Integer quantity,
+                                @JsonProperty("batchSize") Integer batchSize,
+                                @JsonProperty("parallelism") Integer parallelism,
+                                @JsonProperty("seed") Long seed,
+                                @JsonProperty("contentPoolSize") Integer contentPoolSize) {
+        this.namePattern = (namePattern == null || namePattern.isBlank()) ? "doc_%03d" : namePattern;
+        this.count = count == null ? 1 : count;
+        this.startIndex = startIndex == null ? 1 : startIndex;
+        this.quantity = quantity == null ? 100 : quantity;
+        this.batchSize = batchSize == null ? 1 : batchSize;
+        this.parallelism = parallelism == null ? 4 : parallelism;
+        this.seed = seed;
+        this.contentPoolSize = contentPoolSize == null ? 0 : contentPoolSize;
+    }
+}
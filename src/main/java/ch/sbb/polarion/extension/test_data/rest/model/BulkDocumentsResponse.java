@@ -0,0 +1,17 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+@Schema(description = "Result of a parallel multi-document generation")
+public record BulkDocumentsResponse(
+        @Schema(description = "Per-document timings in document order") @NotNull List<DocumentGenerationTiming> documents,
+        @Schema(description = "Number of successfully generated documents") int succeeded,
+        @Schema(description = "Number of documents that failed") int failed,
+        @Schema(description = "Wall-clock time of the whole run, in milliseconds") long wallClockMillis,
+        @Schema(description = "Sum of all per-document times, in milliseconds") long totalDocumentMillis,
+        @Schema(description = "Achieved speedup: sum of per-document times divided by wall-clock time") double speedup
+) {
+}
@@ -0,0 +1,34 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+@Schema(description = "Request to create many projects from a stored template in parallel")
+public record BulkProjectsRequest(
+        @Schema(description = "Project ID pattern in java.util.Formatter syntax, receives the project number", example = "perf_%03d") @NotNull String idPattern,
+        @Schema(description = "Number of projects to create", example = "20") @NotNull Integer count,
+        @Schema(description = "Number of the first project", example = "1") @Nullable Integer startIndex,
+        @Schema(description = "Group the projects are created in, the repository root if omitted", example = "perf") @Nullable String projectGroup,
+        @Schema(description = "Number of projects created concurrently", example = "4") @Nullable Integer parallelism,
+        @Schema(description = "Template parameters passed to every project creation") @Nullable Map<String, String> templateParameters
+) {
+    @JsonCreator
+    public BulkProjectsRequest(@JsonProperty("idPattern") String idPattern,
+                               @JsonProperty("count") Integer count,
+                               @JsonProperty("startIndex") Integer startIndex,
+                               @JsonProperty("projectGroup") String projectGroup,
+                               @JsonProperty("parallelism") Integer parallelism,
+                               @JsonProperty("templateParameters") Map<String, String> templateParameters) {
+        this.idPattern = (idPattern == null || idPattern.isBlank()) ? "project_%03d" : idPattern;
+        this.count = count == null ? 1 : count;
+        this.startIndex = startIndex == null ? 1 : startIndex;
+        this.projectGroup = projectGroup;
+        this.parallelism = parallelism == null ? 4 : parallelism;
+        this.templateParameters = templateParameters == null ? Map.of() : templateParameters;
+    }
+}
@@ -0,0 +1,18 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+@Schema(description = "Result of a parallel project creation from a template")
+public record BulkProjectsResponse(
+        @Schema(description = "Per-project timings in project order") @NotNull List<ProjectCreationTiming> projects,
+        @Schema(description = "Number of successfully created projects") int succeeded,
+        @Schema(description = "Number of projects that failed") int failed,
+        @Schema(description = "Wall-clock time of the whole run, in milliseconds") long wallClockMillis,
+        @Schema(description = "Sum of all per-project times, in milliseconds") long totalProjectMillis,
+        @Schema(description = "Successfully created projects per second of wall-clock time") double projectsPerSecond,
+        @Schema(description = "Achieved speedup: sum of per-project times divided by wall-clock time") double speedup
+) {
+}
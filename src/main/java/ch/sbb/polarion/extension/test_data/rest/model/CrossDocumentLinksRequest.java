@@ -12,14 +12,34 @@ import java.util.List;
 public record CrossDocumentLinksRequest(
         @Schema(description = "Documents to link between (links go between random pairs)") @NotNull List<DocumentRef> documents,
         @Schema(description = "Number of cross-document links per source workitem", example = "2") @Nullable Integer linksPerWorkItem,
-        @Schema(description = "Workitem link role id", example = "relates_to") @Nullable String linkRole
+        @Schema(description = "Workitem link role id", example = "relates_to") @Nullable String linkRole,
+        @Schema(description = "Seed of the link picks, the same seed produces the same links", example = "42") @Nullable Long seed,
+        @Schema(description = "Number of source workitems linked per commit, all workitems of a source document are linked in one commit if not set", example = "50") @Nullable Integer commitChunkSize,
+        @Schema(description = "Number of source documents linked concurrently", example = "4") @Nullable Integer parallelism,
+        @Schema(description = "Shape of the link graph: UNIFORM picks random targets, PREFERENTIAL_ATTACHMENT prefers already linked targets and forms hubs, CLUSTERED links mostly between the same sections of the documents, CHAIN links every document to the next one like a hierarchy", example = "UNIFORM") @Nullable LinkTopology topology
 ) {
     @JsonCreator
     public CrossDocumentLinksRequest(@JsonProperty("documents") List<DocumentRef> documents,
                                      @JsonProperty("linksPerWorkItem") Integer linksPerWorkItem,
-                                     @JsonProperty("linkRole") String linkRole) {
+                                     @JsonProperty("linkRole") String linkRole,
+                                     @JsonProperty("seed") Long seed,
+                                     @JsonProperty("commitChunkSize") Integer commitChunkSize,
+                                     @JsonProperty("parallelism") Integer parallelism,
+                                     @JsonProperty("topology") LinkTopology topology) {
         this.documents = documents;
         this.linksPerWorkItem = linksPerWorkItem == null ? 1 : linksPerWorkItem;
         this.linkRole = (linkRole == null || linkRole.isBlank()) ? "relates_to" : linkRole;
+        this.seed = seed;
+        this.commitChunkSize = commitChunkSize;
+        this.parallelism = parallelism == null ? 1 : parallelism;
+        this.topology = topology == null ? LinkTopology.UNIFORM : topology;
+    }
+
+    public CrossDocumentLinksRequest(List<DocumentRef> documents, Integer linksPerWorkItem, String linkRole, Long seed) {
+        this(documents, linksPerWorkItem, linkRole, seed, null, null, null);
+    }
+
+    public CrossDocumentLinksRequest(List<DocumentRef> documents, Integer linksPerWorkItem, String linkRole) {
+        this(documents, linksPerWorkItem, linkRole, null, null, null, null);
     }
 }
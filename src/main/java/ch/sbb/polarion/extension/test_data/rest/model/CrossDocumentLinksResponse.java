@@ -0,0 +1,20 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+@Schema(description = "Result of a cross-document link generation")
+public record CrossDocumentLinksResponse(
+        @Schema(description = "Number of planned links, the requested number unless a source runs out of targets it is not linked to yet") int planned,
+        @Schema(description = "Number of created links, less than planned if some planned links already existed or a source document failed") int created,
+        @Schema(description = "Per-transaction timings, grouped by source document in request order") @NotNull List<LinkCommitTiming> commits,
+        @Schema(description = "Per-source-document outcome in request order, documents without links to create are left out") @NotNull List<SourceDocumentLinks> documents,
+        @Schema(description = "Number of source documents that failed or were stopped after another one failed") int failed,
+        @Schema(description = "Wall-clock time of the whole run including loading the documents, in milliseconds") long wallClockMillis,
+        @Schema(description = "Time spent planning the link graph, in milliseconds") long planningMillis,
+        @Schema(description = "Wall-clock time of linking all source documents, in milliseconds") long linkingMillis,
+        @Schema(description = "Achieved throughput: created links divided by the linking time, per second") double linksPerSecond
+) {
+}
@@ -0,0 +1,13 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+@Schema(description = "Generation time of a single document")
+public record DocumentGenerationTiming(
+        @Schema(description = "Document name") @NotNull String documentName,
+        @Schema(description = "Time spent creating the document and its work items, in milliseconds") long durationMillis,
+        @Schema(description = "Error message if the document could not be generated") @Nullable String error
+) {
+}
@@ -0,0 +1,9 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+public enum GenerationJobState {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,20 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+@Schema(description = "Status of an asynchronous generation job")
+public record GenerationJobStatus(
+        @Schema(description = "Job identifier") @NotNull String jobId,
+        @Schema(description = "Kind of generation the job performs", example = "create-document") @NotNull String type,
+        @Schema(description = "Current state of the job") @NotNull GenerationJobState state,
+        @Schema(description = "Number of generated or modified items so far") long itemsDone,
+        @Schema(description = "Number of write transactions committed so far") long commits,
+        @Schema(description = "Average number of items processed per second since the job started") double itemsPerSecond,
+        @Schema(description = "Time the job started running, ISO-8601") @Nullable String startedAt,
+        @Schema(description = "Time the job finished, ISO-8601") @Nullable String finishedAt,
+        @Schema(description = "Error message if the job failed") @Nullable String error,
+        @Schema(description = "Result of the job once it succeeded") @Nullable Object result
+) {
+}
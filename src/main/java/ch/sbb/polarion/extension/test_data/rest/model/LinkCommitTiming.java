@@ -0,0 +1,14 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+
+@Schema(description = "Timing of a single write transaction of the cross-document link generation")
+public record LinkCommitTiming(
+        @Schema(description = "Document of the linked source workitems") @NotNull DocumentRef sourceDocument,
+        @Schema(description = "Number of source workitems linked in the transaction") int workItems,
+        @Schema(description = "Number of links created in the transaction") int links,
+        @Schema(description = "Time of the whole transaction, in milliseconds") long durationMillis,
+        @Schema(description = "Time spent committing the transaction after the links were added, in milliseconds") long commitMillis
+) {
+}
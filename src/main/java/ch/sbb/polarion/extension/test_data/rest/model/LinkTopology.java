@@ -0,0 +1,8 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+public enum LinkTopology {
+    UNIFORM,
+    PREFERENTIAL_ATTACHMENT,
+    CLUSTERED,
+    CHAIN
+}
@@ -12,14 +12,21 @@ import java.util.List;
 public record LinkedRevisionsRequest(
         @Schema(description = "Repository revisions to attach as linked revisions") @NotNull List<String> revisions,
         @Schema(description = "How many random workitems in the source document each revision is attached to", example = "5") @Nullable Integer workItemsPerRevision,
-        @Schema(description = "Comment text for the linked revision entry") @Nullable String comment
+        @Schema(description = "Comment text for the linked revision entry") @Nullable String comment,
+        @Schema(description = "Seed of the workitem picks, the same seed produces the same picks", example = "42") @Nullable Long seed
 ) {
     @JsonCreator
     public LinkedRevisionsRequest(@JsonProperty("revisions") List<String> revisions,
                                   @JsonProperty("workItemsPerRevision") Integer workItemsPerRevision,
-                                  @JsonProperty("comment") String comment) {
+                                  @JsonProperty("comment") String comment,
+                                  @JsonProperty("seed") Long seed) {
         this.revisions = revisions;
         this.workItemsPerRevision = workItemsPerRevision == null ? 1 : workItemsPerRevision;
         this.comment = comment;
+        this.seed = seed;
+    }
+
+    public LinkedRevisionsRequest(List<String> revisions, Integer workItemsPerRevision, String comment) {
+        this(revisions, workItemsPerRevision, comment, null);
     }
 }
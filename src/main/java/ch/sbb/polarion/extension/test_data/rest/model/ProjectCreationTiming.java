@@ -0,0 +1,13 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+@Schema(description = "Creation time of a single project")
+public record ProjectCreationTiming(
+        @Schema(description = "Project ID") @NotNull String projectId,
+        @Schema(description = "Time spent creating the project from the template, in milliseconds") long durationMillis,
+        @Schema(description = "Error message if the project could not be created") @Nullable String error
+) {
+}
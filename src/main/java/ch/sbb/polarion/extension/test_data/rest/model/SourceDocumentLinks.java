@@ -0,0 +1,13 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+@Schema(description = "Outcome of linking the workitems of a single source document")
+public record SourceDocumentLinks(
+        @Schema(description = "Source document") @NotNull DocumentRef sourceDocument,
+        @Schema(description = "Number of links created from the workitems of the document, including those committed before an error") int created,
+        @Schema(description = "Error message if the document could not be linked completely, or the reason it was stopped") @Nullable String error
+) {
+}
@@ -0,0 +1,13 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Stage timings of a project template import, the decompression and the repository writes overlap")
+public record TemplateImportTimings(
+        @Schema(description = "Wall-clock time of the import, in milliseconds") long totalMillis,
+        @Schema(description = "Time spent inflating and hashing ZIP entries, in milliseconds") long decompressMillis,
+        @Schema(description = "Time the decompression stage waited for free space in the queue, in milliseconds") long decompressWaitMillis,
+        @Schema(description = "Time spent writing to the repository, in milliseconds") long writeMillis,
+        @Schema(description = "Time the repository stage waited for inflated entries, in milliseconds") long writeWaitMillis
+) {
+}
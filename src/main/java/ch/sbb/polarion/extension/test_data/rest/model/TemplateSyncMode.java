@@ -0,0 +1,7 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+public enum TemplateSyncMode {
+    FULL,
+    DELTA,
+    CONTENT_ADDRESSED
+}
@@ -0,0 +1,16 @@
+package ch.sbb.polarion.extension.test_data.rest.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+@Schema(description = "Result of a project template upload")
+public record TemplateSyncReport(
+        @Schema(description = "FULL if the template folder was recreated, DELTA if only changed entries were written, CONTENT_ADDRESSED if the files were stored as shared blobs") @NotNull TemplateSyncMode mode,
+        @Schema(description = "Number of files created, in CONTENT_ADDRESSED mode the number of new blobs") int created,
+        @Schema(description = "Number of files whose content was replaced") int updated,
+        @Schema(description = "Number of files deleted because they are no longer part of the template, plus the blobs no template references any more") int deleted,
+        @Schema(description = "Number of files left untouched because their content did not change, in CONTENT_ADDRESSED mode the number of files whose blob already existed") int unchanged,
+        @Schema(description = "Stage timings of the extraction") @Nullable TemplateImportTimings timings
+) {
+}
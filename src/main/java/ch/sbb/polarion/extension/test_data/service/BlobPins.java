@@ -0,0 +1,70 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coordinates content-addressed template uploads with the sweep of orphaned blobs.
+ * <p>
+ * An upload pins every blob its manifest references until its write transaction has committed, because a sweep only sees
+ * committed manifests. A sweep condemns the candidate blobs which are not pinned and releases them after its own transaction
+ * has committed. Pinning a condemned blob waits for that release, so an upload never references a blob whose deletion is
+ * being committed, it writes the blob again instead.
+ * <p>
+ * Only uploads and sweeps of this JVM are coordinated, a cluster node does not see the pins of the others.
+ */
+class BlobPins {
+
+    private static final BlobPins INSTANCE = new BlobPins();
+
+    private final Map<String, Integer> pinned = new HashMap<>();
+    private final Set<String> condemned = new HashSet<>();
+
+    static @NotNull BlobPins getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Pins a blob, waiting while a sweep deletes it.
+     */
+    synchronized void pin(@NotNull String contentHash) throws InterruptedException {
+        while (condemned.contains(contentHash)) {
+            wait();
+        }
+        pinned.merge(contentHash, 1, Integer::sum);
+    }
+
+    synchronized void unpin(@NotNull Collection<String> contentHashes) {
+        for (String contentHash : contentHashes) {
+            pinned.computeIfPresent(contentHash, (hash, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * @return the candidates which are neither pinned nor condemned by another sweep, now condemned until {@link #release(Collection)}
+     */
+    synchronized @NotNull Set<String> condemn(@NotNull Collection<String> candidateHashes) {
+        Set<String> result = new HashSet<>();
+        for (String contentHash : candidateHashes) {
+            if (!pinned.containsKey(contentHash) && !condemned.contains(contentHash)) {
+                result.add(contentHash);
+            }
+        }
+        condemned.addAll(result);
+        return result;
+    }
+
+    synchronized void release(@NotNull Collection<String> contentHashes) {
+        condemned.removeAll(contentHashes);
+        notifyAll();
+    }
+
+    synchronized boolean isPinned(@NotNull String contentHash) {
+        return pinned.containsKey(contentHash);
+    }
+}
@@ -0,0 +1,344 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import ch.sbb.polarion.extension.test_data.rest.model.LinkTopology;
+import ch.sbb.polarion.extension.test_data.util.LongHashSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.random.RandomGenerator;
+
+/**
+ * Cross-document links of a set of documents, planned up front before any work item is touched.
+ * <p>
+ * The work items of all documents are numbered globally in document order. Every work item has {@code linksPerWorkItem} link slots,
+ * and the plan stores the global number of the target of every slot in one flat {@code int} array, {@link #NO_TARGET} for an unused slot.
+ * The source of a slot follows from its position, so a planned link costs 4 bytes, and 10M links fit into 40 MB.
+ * Targets always belong to another document than their source, and a source never gets the same target twice:
+ * the pairs already linked from the current source are kept in a reused {@link LongHashSet}, so the plan needs no extra memory per link
+ * and every planned link is a new link. Slots stay unused only if the source has no more reachable targets.
+ */
+final class LinkPlan {
+
+    static final int NO_TARGET = -1;
+
+    private static final int MAX_LINKS = Integer.MAX_VALUE - 8;
+    private static final int CLUSTER_COUNT = 8;
+    private static final double INTRA_CLUSTER_PROBABILITY = 0.9;
+    private static final int MAX_PREFERENTIAL_ATTEMPTS = 16;
+    private static final int MAX_DUPLICATE_ATTEMPTS = 8;
+
+    private final int[] documentOffsets;
+    private final int linksPerWorkItem;
+    private final int[] targets;
+    private final int[] nonEmptyDocuments;
+    private final int[] nonEmptyPositions;
+    private final int nonEmptyCount;
+    private final int[] documentLinks;
+    private int plannedLinks;
+
+    private LinkPlan(int @NotNull [] documentOffsets, int linksPerWorkItem, int @NotNull [] targets) {
+        this.documentOffsets = documentOffsets;
+        this.linksPerWorkItem = linksPerWorkItem;
+        this.targets = targets;
+        this.nonEmptyDocuments = new int[documentCount()];
+        this.nonEmptyPositions = new int[documentCount()];
+        int count = 0;
+        for (int document = 0; document < documentCount(); document++) {
+            nonEmptyPositions[document] = workItemCount(document) > 0 ? count : -1;
+            if (workItemCount(document) > 0) {
+                nonEmptyDocuments[count++] = document;
+            }
+        }
+        this.nonEmptyCount = count;
+        this.documentLinks = new int[documentCount()];
+    }
+
+    /**
+     * Plans the links of all documents, one source document after another in document order.
+     *
+     * @param documentSizes number of work items of every document
+     * @param randoms       random generator of a source document, called once per document on the calling thread
+     */
+    static @NotNull LinkPlan plan(@NotNull LinkTopology topology, int @NotNull [] documentSizes, int linksPerWorkItem, @NotNull IntFunction<RandomGenerator> randoms) {
+        if (linksPerWorkItem < 1) {
+            throw new IllegalArgumentException("linksPerWorkItem must be a natural number");
+        }
+        int[] documentOffsets = new int[documentSizes.length + 1];
+        for (int document = 0; document < documentSizes.length; document++) {
+            documentOffsets[document + 1] = documentOffsets[document] + documentSizes[document];
+        }
+        long linkCount = (long) documentOffsets[documentSizes.length] * linksPerWorkItem;
+        if (linkCount > MAX_LINKS || (topology == LinkTopology.PREFERENTIAL_ATTACHMENT && linkCount + documentOffsets[documentSizes.length] > MAX_LINKS)) {
+            throw new IllegalArgumentException("Too many links to plan: " + linkCount);
+        }
+
+        LinkPlan plan = new LinkPlan(documentOffsets, linksPerWorkItem, new int[(int) linkCount]);
+        TargetPicker picker = switch (topology) {
+            case UNIFORM -> plan.new UniformPicker();
+            case PREFERENTIAL_ATTACHMENT -> plan.new PreferentialAttachmentPicker();
+            case CLUSTERED -> plan.new ClusteredPicker();
+            case CHAIN -> plan.new ChainPicker();
+        };
+        LongHashSet linkedPairs = new LongHashSet(linksPerWorkItem);
+        for (int document = 0; document < documentSizes.length; document++) {
+            if (documentSizes[document] > 0) {
+                RandomGenerator random = randoms.apply(document);
+                for (int workItem = 0; workItem < documentSizes[document]; workItem++) {
+                    linkedPairs.clear();
+                    int slot = plan.workItemNumber(document, workItem) * linksPerWorkItem;
+                    for (int link = 0; link < linksPerWorkItem; link++) {
+                        int target = plan.pickUnlinkedTarget(picker, document, workItem, linkedPairs, random);
+                        plan.targets[slot + link] = target;
+                        if (target != NO_TARGET) {
+                            picker.linked(target);
+                            plan.documentLinks[document]++;
+                            plan.plannedLinks++;
+                        }
+                    }
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Asks the picker for a target that is not linked from the source yet. If the picker keeps returning linked targets,
+     * takes the next unlinked work item of the same target document instead, which keeps the shape of the topology.
+     * If that document is used up as well, the other documents the picker can reach are scanned in document order.
+     */
+    private int pickUnlinkedTarget(@NotNull TargetPicker picker, int sourceDocument, int sourceWorkItem,
+                                   @NotNull LongHashSet linkedPairs, @NotNull RandomGenerator random) {
+        int source = workItemNumber(sourceDocument, sourceWorkItem);
+        int target = NO_TARGET;
+        for (int attempt = 0; attempt < MAX_DUPLICATE_ATTEMPTS; attempt++) {
+            target = picker.pick(sourceDocument, sourceWorkItem, random);
+            if (target == NO_TARGET || linkedPairs.add(pair(source, target))) {
+                return target;
+            }
+        }
+        int targetDocument = documentOf(target);
+        int candidate = pickUnlinkedInDocument(source, targetDocument, target - documentOffsets[targetDocument] + 1, linkedPairs);
+        if (candidate != NO_TARGET || !picker.reachesAllDocuments()) {
+            return candidate;
+        }
+        int targetPosition = nonEmptyPositions[targetDocument];
+        for (int step = 1; step < nonEmptyCount && candidate == NO_TARGET; step++) {
+            int document = nonEmptyDocuments[(targetPosition + step) % nonEmptyCount];
+            if (document != sourceDocument) {
+                candidate = pickUnlinkedInDocument(source, document, 0, linkedPairs);
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * @return global number of the first work item of the document from position {@code start} on, wrapping around,
+     * that is not linked from the source yet, {@link #NO_TARGET} if all are linked
+     */
+    private int pickUnlinkedInDocument(int source, int document, int start, @NotNull LongHashSet linkedPairs) {
+        int size = workItemCount(document);
+        for (int step = 0; step < size; step++) {
+            int candidate = workItemNumber(document, (start + step) % size);
+            if (linkedPairs.add(pair(source, candidate))) {
+                return candidate;
+            }
+        }
+        return NO_TARGET;
+    }
+
+    private static long pair(int source, int target) {
+        return ((long) source << 32) | target;
+    }
+
+    int documentCount() {
+        return documentOffsets.length - 1;
+    }
+
+    int workItemCount(int document) {
+        return documentOffsets[document + 1] - documentOffsets[document];
+    }
+
+    int linksPerWorkItem() {
+        return linksPerWorkItem;
+    }
+
+    /**
+     * @return global number of the work item at the given position of the document
+     */
+    int workItemNumber(int document, int workItem) {
+        return documentOffsets[document] + workItem;
+    }
+
+    /**
+     * @return global number of the target work item of the link slot, {@link #NO_TARGET} if the slot is unused
+     */
+    int target(int document, int workItem, int link) {
+        return targets[workItemNumber(document, workItem) * linksPerWorkItem + link];
+    }
+
+    boolean hasLinks(int document) {
+        return documentLinks[document] > 0;
+    }
+
+    int plannedLinks() {
+        return plannedLinks;
+    }
+
+    int documentOf(int workItemNumber) {
+        int index = Arrays.binarySearch(documentOffsets, workItemNumber);
+        if (index < 0) {
+            return -index - 2;
+        }
+        // skip empty documents starting at the same offset
+        while (documentOffsets[index + 1] == workItemNumber) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @return a random non-empty document other than the source, -1 if there is none
+     */
+    private int pickOtherDocument(int sourceDocument, @NotNull RandomGenerator random) {
+        int sourcePosition = nonEmptyPositions[sourceDocument];
+        int candidates = sourcePosition < 0 ? nonEmptyCount : nonEmptyCount - 1;
+        if (candidates == 0) {
+            return -1;
+        }
+        int position = random.nextInt(candidates);
+        if (sourcePosition >= 0 && position >= sourcePosition) {
+            position++;
+        }
+        return nonEmptyDocuments[position];
+    }
+
+    private int pickWorkItem(int targetDocument, @NotNull RandomGenerator random) {
+        return workItemNumber(targetDocument, random.nextInt(workItemCount(targetDocument)));
+    }
+
+    /**
+     * @return global number of a random work item of the target document at the same relative position as {@code part} of {@code parts}.
+     * Segments narrower than {@code linksPerWorkItem} are widened, so that a source can find all its targets in the segment.
+     */
+    private int pickInSegment(int targetDocument, long part, long parts, @NotNull RandomGenerator random) {
+        int size = workItemCount(targetDocument);
+        int from = (int) (part * size / parts);
+        int to = (int) ((part + 1) * size / parts);
+        if (to - from < linksPerWorkItem) {
+            to = Math.min(size, from + linksPerWorkItem);
+            from = Math.max(0, to - linksPerWorkItem);
+        }
+        return workItemNumber(targetDocument, from + random.nextInt(to - from));
+    }
+
+    private interface TargetPicker {
+        /**
+         * @return global number of a target work item, {@link #NO_TARGET} if the source cannot be linked at all
+         */
+        int pick(int sourceDocument, int sourceWorkItem, @NotNull RandomGenerator random);
+
+        /**
+         * Called for every picked target that was planned as a new link.
+         */
+        default void linked(int target) {
+            // most topologies do not depend on earlier links
+        }
+
+        /**
+         * @return whether every other document is a valid target document, so that a used up target document may be replaced by any other
+         */
+        default boolean reachesAllDocuments() {
+            return true;
+        }
+    }
+
+    /**
+     * Random document, then random work item of it.
+     */
+    private final class UniformPicker implements TargetPicker {
+        @Override
+        public int pick(int sourceDocument, int sourceWorkItem, @NotNull RandomGenerator random) {
+            int targetDocument = pickOtherDocument(sourceDocument, random);
+            return targetDocument < 0 ? NO_TARGET : pickWorkItem(targetDocument, random);
+        }
+    }
+
+    /**
+     * Targets are picked with a probability proportional to their number of incoming links plus one, which yields hubs with a power-law
+     * in-degree distribution. The pool holds every work item once plus every target once per planned link, so a uniform pick from the pool
+     * is a preferential pick of a work item.
+     */
+    private final class PreferentialAttachmentPicker implements TargetPicker {
+        private final int[] pool = new int[documentOffsets[documentCount()] + targets.length];
+        private int poolSize;
+
+        private PreferentialAttachmentPicker() {
+            for (int workItemNumber = 0; workItemNumber < documentOffsets[documentCount()]; workItemNumber++) {
+                pool[poolSize++] = workItemNumber;
+            }
+        }
+
+        @Override
+        public int pick(int sourceDocument, int sourceWorkItem, @NotNull RandomGenerator random) {
+            int target = NO_TARGET;
+            for (int attempt = 0; attempt < MAX_PREFERENTIAL_ATTEMPTS && target == NO_TARGET; attempt++) {
+                int candidate = pool[random.nextInt(poolSize)];
+                if (documentOf(candidate) != sourceDocument) {
+                    target = candidate;
+                }
+            }
+            if (target == NO_TARGET) {
+                int targetDocument = pickOtherDocument(sourceDocument, random);
+                if (targetDocument >= 0) {
+                    target = pickWorkItem(targetDocument, random);
+                }
+            }
+            return target;
+        }
+
+        @Override
+        public void linked(int target) {
+            pool[poolSize++] = target;
+        }
+    }
+
+    /**
+     * Every document is split into {@value #CLUSTER_COUNT} clusters by position, and most links go to the cluster at the same relative
+     * position of another document, the way sections of a specification trace to the corresponding sections of related documents.
+     */
+    private final class ClusteredPicker implements TargetPicker {
+        @Override
+        public int pick(int sourceDocument, int sourceWorkItem, @NotNull RandomGenerator random) {
+            int targetDocument = pickOtherDocument(sourceDocument, random);
+            if (targetDocument < 0) {
+                return NO_TARGET;
+            }
+            if (random.nextDouble() >= INTRA_CLUSTER_PROBABILITY) {
+                return pickWorkItem(targetDocument, random);
+            }
+            long cluster = (long) sourceWorkItem * CLUSTER_COUNT / workItemCount(sourceDocument);
+            return pickInSegment(targetDocument, cluster, CLUSTER_COUNT, random);
+        }
+    }
+
+    /**
+     * The documents form a hierarchy in document order: every work item links to the work items of the next document at the same relative
+     * position, so each level refines the previous one. The last document only receives links.
+     */
+    private final class ChainPicker implements TargetPicker {
+        @Override
+        public int pick(int sourceDocument, int sourceWorkItem, @NotNull RandomGenerator random) {
+            int targetDocument = sourceDocument + 1;
+            if (targetDocument == documentCount() || workItemCount(targetDocument) == 0) {
+                return NO_TARGET;
+            }
+            return pickInSegment(targetDocument, sourceWorkItem, workItemCount(sourceDocument), random);
+        }
+
+        @Override
+        public boolean reachesAllDocuments() {
+            return false;
+        }
+    }
+}
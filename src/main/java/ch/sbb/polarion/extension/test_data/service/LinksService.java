@@ -2,46 +2,76 @@ package ch.sbb.polarion.extension.test_data.service;
 
 import ch.sbb.polarion.extension.generic.service.PolarionService;
 import ch.sbb.polarion.extension.test_data.rest.model.CrossDocumentLinksRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.CrossDocumentLinksResponse;
 import ch.sbb.polarion.extension.test_data.rest.model.DocumentRef;
+import ch.sbb.polarion.extension.test_data.rest.model.LinkCommitTiming;
 import ch.sbb.polarion.extension.test_data.rest.model.LinkedRevisionsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.SourceDocumentLinks;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationCancelledException;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationProgress;
+import ch.sbb.polarion.extension.test_data.service.job.ParallelTaskRunner;
+import ch.sbb.polarion.extension.test_data.util.RandomStreams;
+import ch.sbb.polarion.extension.test_data.util.WorkItemProjections;
 import com.polarion.alm.shared.api.transaction.TransactionalExecutor;
 import com.polarion.alm.tracker.model.ILinkRoleOpt;
-import com.polarion.alm.tracker.model.IModule;
 import com.polarion.alm.tracker.model.ITrackerProject;
 import com.polarion.alm.tracker.model.IWorkItem;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
 
-import java.security.SecureRandom;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 
 public class LinksService {
-
-    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int MAX_LINKS_PARALLELISM = 16;
 
     private final PolarionService polarionService;
+    private final ParallelTaskRunner parallelTaskRunner;
+    private final WorkItemProjectionService workItemProjectionService;
 
     public LinksService() {
-        this(new PolarionService());
+        this(new PolarionService(), new ParallelTaskRunner());
     }
 
     @VisibleForTesting
     public LinksService(PolarionService polarionService) {
+        this(polarionService, new ParallelTaskRunner());
+    }
+
+    @VisibleForTesting
+    public LinksService(PolarionService polarionService, ParallelTaskRunner parallelTaskRunner) {
+        this(polarionService, parallelTaskRunner, new WorkItemProjectionService(polarionService));
+    }
+
+    @VisibleForTesting
+    public LinksService(PolarionService polarionService, ParallelTaskRunner parallelTaskRunner, WorkItemProjectionService workItemProjectionService) {
         this.polarionService = polarionService;
+        this.parallelTaskRunner = parallelTaskRunner;
+        this.workItemProjectionService = workItemProjectionService;
     }
 
-    public int createCrossDocumentLinks(@NotNull String projectId, @NotNull CrossDocumentLinksRequest request) {
+    /**
+     * Links the work items of every document to work items of the other documents.
+     * The whole link graph is planned up front in the requested topology, see {@link LinkPlan}, then the planned links are created.
+     * The plan holds no duplicate links, so every {@link IWorkItem#addLinkedItem} call adds a link unless it existed before the run.
+     * With a {@code parallelism} above 1 the source documents are linked concurrently, each on its own worker and in its own transactions;
+     * a source document only saves its own work items, the work items of the other documents are only read as link targets.
+     * Every source document gets its own random stream, so the links do not depend on the chunk size or the scheduling of the workers.
+     * Once a source document fails, the other source documents stop before their next transaction, transactions already running are finished.
+     * The response reports for every source document the links committed and its error, if any.
+     */
+    public @NotNull CrossDocumentLinksResponse createCrossDocumentLinks(@NotNull String projectId, @NotNull CrossDocumentLinksRequest request, @NotNull GenerationProgress progress) {
+        validateCrossDocumentLinksRequest(request);
         List<DocumentRef> documents = request.documents();
-        if (documents.size() < 2) {
-            throw new IllegalArgumentException("At least two documents are required to create cross-document links");
-        }
         int linksPerWorkItem = request.linksPerWorkItem();
-        if (linksPerWorkItem < 1) {
-            throw new IllegalArgumentException("linksPerWorkItem must be a natural number");
-        }
+        Integer commitChunkSize = request.commitChunkSize();
+        int parallelism = request.parallelism();
 
         ITrackerProject trackerProject = polarionService.getTrackerProject(projectId);
         ILinkRoleOpt role = trackerProject.getWorkItemLinkRoleEnum().wrapOption(request.linkRole());
@@ -49,47 +79,156 @@ public class LinksService {
             throw new IllegalArgumentException("Unknown link role: " + request.linkRole());
         }
 
-        Map<DocumentRef, List<IWorkItem>> docsToWorkItems = new HashMap<>();
-        for (DocumentRef ref : documents) {
-            IModule module = polarionService.getModule(projectId, ref.spaceId(), ref.documentName());
-            docsToWorkItems.put(ref, new ArrayList<>(module.getAllWorkItems()));
+        long start = System.nanoTime();
+        List<WorkItemProjections> documentWorkItems = new ArrayList<>(documents.size());
+        int[] documentSizes = new int[documents.size()];
+        for (int document = 0; document < documents.size(); document++) {
+            DocumentRef ref = documents.get(document);
+            documentWorkItems.add(workItemProjectionService.getWorkItems(projectId, ref.spaceId(), ref.documentName()));
+            documentSizes[document] = documentWorkItems.get(document).size();
+        }
+
+        long planningStart = System.nanoTime();
+        LinkPlan plan = LinkPlan.plan(request.topology(), documentSizes, linksPerWorkItem, document -> {
+            DocumentRef sourceRef = documents.get(document);
+            return RandomStreams.forKey(request.seed(), "cross-document-links", projectId, sourceRef.spaceId(), sourceRef.documentName());
+        });
+        long planningMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - planningStart);
+
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Supplier<SourceDocumentResult>> tasks = new ArrayList<>(documents.size());
+        for (int document = 0; document < documents.size(); document++) {
+            if (plan.hasLinks(document)) {
+                int sourceDocument = document;
+                int chunkSize = commitChunkSize == null ? plan.workItemCount(document) : commitChunkSize;
+                tasks.add(() -> linkSourceDocument(plan, sourceDocument, documents.get(sourceDocument), documentWorkItems, chunkSize, role, progress, failed));
+            }
+        }
+
+        long linkingStart = System.nanoTime();
+        List<SourceDocumentResult> results = parallelism == 1
+                ? tasks.stream().map(Supplier::get).toList()
+                : parallelTaskRunner.invokeAll(tasks, parallelism);
+        long end = System.nanoTime();
+        progress.checkCancelled();
+
+        List<LinkCommitTiming> commits = results.stream().flatMap(result -> result.commits().stream()).toList();
+        List<SourceDocumentLinks> documentLinks = results.stream().map(SourceDocumentResult::toSourceDocumentLinks).toList();
+        int failedDocuments = (int) documentLinks.stream().filter(links -> links.error() != null).count();
+        int totalLinks = commits.stream().mapToInt(LinkCommitTiming::links).sum();
+        long linkingMillis = TimeUnit.NANOSECONDS.toMillis(end - linkingStart);
+        double linksPerSecond = linkingMillis > 0 ? totalLinks * 1000.0 / linkingMillis : 0;
+        return new CrossDocumentLinksResponse(plan.plannedLinks(), totalLinks, commits, documentLinks, failedDocuments,
+                TimeUnit.NANOSECONDS.toMillis(end - start), planningMillis, linkingMillis, linksPerSecond);
+    }
+
+    /**
+     * Checks the request without touching the repository, so that a background job is only submitted for a valid request.
+     * The link role is checked when the links are created, it depends on the project.
+     *
+     * @throws IllegalArgumentException if the request is missing or invalid
+     */
+    public static void validateCrossDocumentLinksRequest(@Nullable CrossDocumentLinksRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Request body is required");
+        }
+        List<DocumentRef> documents = request.documents();
+        if (documents == null || documents.size() < 2) {
+            throw new IllegalArgumentException("At least two documents are required to create cross-document links");
+        }
+        if (new HashSet<>(documents).size() < documents.size()) {
+            throw new IllegalArgumentException("documents must not contain duplicates");
+        }
+        if (request.linksPerWorkItem() < 1) {
+            throw new IllegalArgumentException("linksPerWorkItem must be a natural number");
+        }
+        if (request.commitChunkSize() != null && request.commitChunkSize() < 1) {
+            throw new IllegalArgumentException("commitChunkSize must be a natural number");
+        }
+        if (request.parallelism() < 1 || request.parallelism() > MAX_LINKS_PARALLELISM) {
+            throw new IllegalArgumentException("parallelism must be between 1 and " + MAX_LINKS_PARALLELISM);
         }
+    }
 
-        int totalLinks = 0;
-        for (DocumentRef sourceRef : documents) {
-            List<IWorkItem> sourceItems = docsToWorkItems.get(sourceRef);
-            List<DocumentRef> otherDocs = documents.stream().filter(d -> !d.equals(sourceRef)).toList();
-            if (!sourceItems.isEmpty() && !otherDocs.isEmpty()) {
-                totalLinks += linkSourceDocument(sourceItems, otherDocs, docsToWorkItems, role, linksPerWorkItem);
+    /**
+     * Creates the planned links of one source document, {@code chunkSize} source work items per write transaction.
+     * Stops before the next transaction once another source document has {@code failed}, and sets it if this one fails.
+     */
+    @SuppressWarnings("java:S1181") // one failing source document must be reported, not abort the whole run
+    private @NotNull SourceDocumentResult linkSourceDocument(@NotNull LinkPlan plan,
+                                                             int sourceDocument,
+                                                             @NotNull DocumentRef sourceRef,
+                                                             @NotNull List<WorkItemProjections> documentWorkItems,
+                                                             int chunkSize,
+                                                             @NotNull ILinkRoleOpt role,
+                                                             @NotNull GenerationProgress progress,
+                                                             @NotNull AtomicBoolean failed) {
+        List<LinkCommitTiming> commits = new ArrayList<>();
+        int sourceItems = plan.workItemCount(sourceDocument);
+        try {
+            for (int chunkStart = 0; chunkStart < sourceItems; chunkStart += chunkSize) {
+                progress.checkCancelled();
+                if (failed.get()) {
+                    return new SourceDocumentResult(sourceRef, commits, "stopped because another source document failed");
+                }
+                int chunkEnd = chunkStart + Math.min(chunkSize, sourceItems - chunkStart);
+                LinkCommitTiming commit = linkSourceItems(plan, sourceDocument, sourceRef, chunkStart, chunkEnd, documentWorkItems, role);
+                progress.itemsProcessed(commit.links());
+                progress.committed();
+                commits.add(commit);
             }
+            return new SourceDocumentResult(sourceRef, commits, null);
+        } catch (GenerationCancelledException e) {
+            return new SourceDocumentResult(sourceRef, commits, "cancelled");
+        } catch (Throwable e) {
+            failed.set(true);
+            return new SourceDocumentResult(sourceRef, commits, e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+        }
+    }
+
+    private record SourceDocumentResult(@NotNull DocumentRef sourceDocument, @NotNull List<LinkCommitTiming> commits, @Nullable String error) {
+        @NotNull SourceDocumentLinks toSourceDocumentLinks() {
+            return new SourceDocumentLinks(sourceDocument, commits.stream().mapToInt(LinkCommitTiming::links).sum(), error);
         }
-        return totalLinks;
     }
 
-    private int linkSourceDocument(@NotNull List<IWorkItem> sourceItems,
-                                   @NotNull List<DocumentRef> otherDocs,
-                                   @NotNull Map<DocumentRef, List<IWorkItem>> docsToWorkItems,
-                                   @NotNull ILinkRoleOpt role,
-                                   int linksPerWorkItem) {
+    /**
+     * Creates the planned links of the source work items from {@code chunkStart} (inclusive) to {@code chunkEnd} (exclusive) in one write transaction.
+     * Only the work items of the chunk and their targets are loaded, the other work items are known by their projections.
+     * The commit time is measured from the end of the transaction body until the transaction returns.
+     */
+    private @NotNull LinkCommitTiming linkSourceItems(@NotNull LinkPlan plan,
+                                                      int sourceDocument,
+                                                      @NotNull DocumentRef sourceRef,
+                                                      int chunkStart,
+                                                      int chunkEnd,
+                                                      @NotNull List<WorkItemProjections> documentWorkItems,
+                                                      @NotNull ILinkRoleOpt role) {
+        long start = System.nanoTime();
+        long[] linkedAt = {start};
         Integer added = TransactionalExecutor.executeInWriteTransaction(writeTransaction -> {
             int count = 0;
-            for (IWorkItem source : sourceItems) {
-                for (int i = 0; i < linksPerWorkItem; i++) {
-                    DocumentRef targetDoc = otherDocs.get(RANDOM.nextInt(otherDocs.size()));
-                    List<IWorkItem> candidates = docsToWorkItems.get(targetDoc);
-                    if (candidates.isEmpty()) {
-                        continue;
-                    }
-                    IWorkItem target = candidates.get(RANDOM.nextInt(candidates.size()));
-                    if (source.addLinkedItem(target, role, null, false)) {
+            for (int sourceItem = chunkStart; sourceItem < chunkEnd; sourceItem++) {
+                IWorkItem source = workItemProjectionService.getWorkItem(documentWorkItems.get(sourceDocument), sourceItem);
+                for (int link = 0; link < plan.linksPerWorkItem(); link++) {
+                    int target = plan.target(sourceDocument, sourceItem, link);
+                    if (target != LinkPlan.NO_TARGET && source.addLinkedItem(getWorkItem(plan, documentWorkItems, target), role, null, false)) {
                         count++;
                     }
                 }
                 source.save();
             }
+            linkedAt[0] = System.nanoTime();
             return count;
         });
-        return added == null ? 0 : added;
+        long end = System.nanoTime();
+        return new LinkCommitTiming(sourceRef, chunkEnd - chunkStart, added == null ? 0 : added,
+                TimeUnit.NANOSECONDS.toMillis(end - start), TimeUnit.NANOSECONDS.toMillis(end - linkedAt[0]));
+    }
+
+    private @NotNull IWorkItem getWorkItem(@NotNull LinkPlan plan, @NotNull List<WorkItemProjections> documentWorkItems, int workItemNumber) {
+        int document = plan.documentOf(workItemNumber);
+        return workItemProjectionService.getWorkItem(documentWorkItems.get(document), workItemNumber - plan.workItemNumber(document, 0));
     }
 
     public int addLinkedRevisions(@NotNull String projectId, @NotNull String spaceId, @NotNull String documentName,
@@ -102,18 +241,18 @@ public class LinksService {
             throw new IllegalArgumentException("workItemsPerRevision must be a natural number");
         }
 
-        IModule module = polarionService.getModule(projectId, spaceId, documentName);
-        List<IWorkItem> workItems = new ArrayList<>(module.getAllWorkItems());
+        WorkItemProjections workItems = workItemProjectionService.getWorkItems(projectId, spaceId, documentName);
         if (workItems.isEmpty()) {
             return 0;
         }
 
+        RandomGenerator random = RandomStreams.forKey(request.seed(), "linked-revisions", projectId, spaceId, documentName);
         Integer added = TransactionalExecutor.executeInWriteTransaction(writeTransaction -> {
             int count = 0;
             for (String revision : request.revisions()) {
                 int picks = Math.min(workItemsPerRevision, workItems.size());
                 for (int i = 0; i < picks; i++) {
-                    IWorkItem target = workItems.get(RANDOM.nextInt(workItems.size()));
+                    IWorkItem target = workItemProjectionService.getWorkItem(workItems, random.nextInt(workItems.size()));
                     // signature is addLinkedRevision(repositoryName, revision); null repositoryName -> "default".
                     if (target.addLinkedRevision(null, revision)) {
                         target.save();
@@ -2,7 +2,17 @@ package ch.sbb.polarion.extension.test_data.service;
 
 import ch.sbb.polarion.extension.generic.service.PolarionService;
 import ch.sbb.polarion.extension.generic.util.ObjectUtils;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkDocumentsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkDocumentsResponse;
+import ch.sbb.polarion.extension.test_data.rest.model.DocumentGenerationTiming;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationCancelledException;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationProgress;
+import ch.sbb.polarion.extension.test_data.service.job.ParallelTaskRunner;
+import ch.sbb.polarion.extension.test_data.util.ContentPool;
 import ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils;
+import ch.sbb.polarion.extension.test_data.util.HtmlDescriptionBuilder;
+import ch.sbb.polarion.extension.test_data.util.RandomStreams;
+import ch.sbb.polarion.extension.test_data.util.WorkItemProjections;
 import com.polarion.alm.shared.api.transaction.TransactionalExecutor;
 import com.polarion.alm.tracker.IModuleManager;
 import com.polarion.alm.tracker.model.ILinkRoleOpt;
@@ -19,31 +29,136 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 
 public class ModuleService {
+    private static final int MAX_DOCUMENTS_PARALLELISM = 16;
+
     private final PolarionService polarionService;
+    private final ParallelTaskRunner parallelTaskRunner;
+    private final WorkItemProjectionService workItemProjectionService;
 
     public ModuleService() {
-        this(new PolarionService());
+        this(new PolarionService(), new ParallelTaskRunner());
     }
 
     @VisibleForTesting
     public ModuleService(PolarionService polarionService) {
+        this(polarionService, new ParallelTaskRunner());
+    }
+
+    @VisibleForTesting
+    public ModuleService(PolarionService polarionService, ParallelTaskRunner parallelTaskRunner) {
+        this(polarionService, parallelTaskRunner, new WorkItemProjectionService(polarionService));
+    }
+
+    @VisibleForTesting
+    public ModuleService(PolarionService polarionService, ParallelTaskRunner parallelTaskRunner, WorkItemProjectionService workItemProjectionService) {
         this.polarionService = polarionService;
+        this.parallelTaskRunner = parallelTaskRunner;
+        this.workItemProjectionService = workItemProjectionService;
     }
 
     @SneakyThrows
-    public @NotNull IModule createDocumentWithGeneratedWorkItems(@NotNull String projectId, @Nullable String spaceId, @NotNull String documentName, @NotNull Integer quantity) {
-        if (quantity < 1) {
-            throw new IllegalArgumentException("quantity must be a natural number");
-        }
+    public @NotNull IModule createDocumentWithGeneratedWorkItems(@NotNull String projectId, @Nullable String spaceId, @NotNull String documentName, @NotNull WorkItemGenerationOptions options, @NotNull GenerationProgress progress) {
+        ContentPool contentPool = ContentPool.create(options.contentPoolSize(), options.seed());
+        return createDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, options, contentPool, progress);
+    }
 
+    private @NotNull IModule createDocumentWithGeneratedWorkItems(@NotNull String projectId, @Nullable String spaceId, @NotNull String documentName,
+                                                                  @NotNull WorkItemGenerationOptions options, @Nullable ContentPool contentPool, @NotNull GenerationProgress progress) {
         IModule document = createDocument(projectId, spaceId, documentName);
-        generateDocumentWorkItems(document, quantity);
+        progress.committed();
+        RandomGenerator random = RandomStreams.forKey(options.seed(), "create", projectId, getSpace(spaceId), documentName);
+        generateDocumentWorkItems(document, options.quantity(), options.batchSize(), new DocumentContentGenerator(random, options.seed(), contentPool), progress);
         return document;
     }
 
+    /**
+     * Creates {@code request.count()} documents named after {@code request.namePattern()} on a pool of {@code request.parallelism()} workers.
+     * A failing document does not stop the others, its error is reported in the response instead.
+     * With a seed every document gets its own random stream, so the generated content does not depend on the scheduling of the workers.
+     * The content pool, if requested, is built once and shared by all documents.
+     */
+    public @NotNull BulkDocumentsResponse createDocumentsWithGeneratedWorkItems(@NotNull String projectId, @Nullable String spaceId, @NotNull BulkDocumentsRequest request, @NotNull GenerationProgress progress) {
+        validateBulkDocumentsRequest(request);
+        WorkItemGenerationOptions options = getGenerationOptions(request);
+        List<String> documentNames = getDocumentNames(request);
+        ContentPool contentPool = ContentPool.create(options.contentPoolSize(), options.seed());
+
+        List<Supplier<DocumentGenerationTiming>> tasks = new ArrayList<>(documentNames.size());
+        for (String documentName : documentNames) {
+            tasks.add(() -> createTimedDocument(projectId, spaceId, documentName, options, contentPool, progress));
+        }
+
+        long start = System.nanoTime();
+        List<DocumentGenerationTiming> timings = parallelTaskRunner.invokeAll(tasks, request.parallelism());
+        long wallClockMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        progress.checkCancelled();
+
+        long totalDocumentMillis = timings.stream().mapToLong(DocumentGenerationTiming::durationMillis).sum();
+        int failed = (int) timings.stream().filter(timing -> timing.error() != null).count();
+        double speedup = wallClockMillis > 0 ? (double) totalDocumentMillis / wallClockMillis : 0;
+        return new BulkDocumentsResponse(timings, timings.size() - failed, failed, wallClockMillis, totalDocumentMillis, speedup);
+    }
+
+    /**
+     * Checks the request without touching the repository, so that a background job is only submitted for a valid request.
+     *
+     * @throws IllegalArgumentException if the request is missing or invalid
+     */
+    public static void validateBulkDocumentsRequest(@Nullable BulkDocumentsRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Request body is required");
+        }
+        getGenerationOptions(request);
+        if (request.count() < 1) {
+            throw new IllegalArgumentException("count must be a natural number");
+        }
+        if (request.parallelism() < 1 || request.parallelism() > MAX_DOCUMENTS_PARALLELISM) {
+            throw new IllegalArgumentException("parallelism must be between 1 and " + MAX_DOCUMENTS_PARALLELISM);
+        }
+        getDocumentNames(request);
+    }
+
+    private static @NotNull WorkItemGenerationOptions getGenerationOptions(@NotNull BulkDocumentsRequest request) {
+        return new WorkItemGenerationOptions(request.quantity(), request.batchSize(), request.seed(), request.contentPoolSize());
+    }
+
+    @SuppressWarnings("java:S1181") // one failing document must not abort the whole run
+    private @NotNull DocumentGenerationTiming createTimedDocument(@NotNull String projectId, @Nullable String spaceId, @NotNull String documentName,
+                                                                  @NotNull WorkItemGenerationOptions options, @Nullable ContentPool contentPool, @NotNull GenerationProgress progress) {
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            progress.checkCancelled();
+            createDocumentWithGeneratedWorkItems(projectId, spaceId, documentName, options, contentPool, progress);
+        } catch (GenerationCancelledException e) {
+            error = "cancelled";
+        } catch (Throwable e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        }
+        return new DocumentGenerationTiming(documentName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), error);
+    }
+
+    private static @NotNull List<String> getDocumentNames(@NotNull BulkDocumentsRequest request) {
+        List<String> documentNames = new ArrayList<>(request.count());
+        Set<String> uniqueNames = new HashSet<>();
+        for (int i = 0; i < request.count(); i++) {
+            String documentName = String.format(request.namePattern(), request.startIndex() + i);
+            if (!uniqueNames.add(documentName)) {
+                throw new IllegalArgumentException("namePattern must produce a distinct name for every document, duplicate: " + documentName);
+            }
+            documentNames.add(documentName);
+        }
+        return documentNames;
+    }
+
     private @NotNull IModule createDocument(@NotNull String projectId, @Nullable String spaceId, @NotNull String documentName) {
         ITrackerProject trackerProject = polarionService.getTrackerProject(projectId);
         ILocation location = Location.getLocation(getSpace(spaceId));
@@ -57,70 +172,92 @@ public class ModuleService {
         return document;
     }
 
-    public @NotNull IModule extendDocumentWithGeneratedWorkItems(@NotNull String projectId, @Nullable String spaceId, @NotNull String documentName, @NotNull Integer quantity) {
-        if (quantity < 1) {
-            throw new IllegalArgumentException("quantity must be a natural number");
-        }
-
+    public @NotNull IModule extendDocumentWithGeneratedWorkItems(@NotNull String projectId, @Nullable String spaceId, @NotNull String documentName, @NotNull WorkItemGenerationOptions options, @NotNull GenerationProgress progress) {
+        ContentPool contentPool = ContentPool.create(options.contentPoolSize(), options.seed());
         IModule document = polarionService.getModule(projectId, getSpace(spaceId), documentName);
-        generateDocumentWorkItems(document, quantity);
+        RandomGenerator random = RandomStreams.forKey(options.seed(), "extend", projectId, getSpace(spaceId), documentName);
+        generateDocumentWorkItems(document, options.quantity(), options.batchSize(), new DocumentContentGenerator(random, options.seed(), contentPool), progress);
         return document;
     }
 
-    public @NotNull IModule changeDocumentWorkItemDescriptions(@NotNull String projectId, @NotNull String spaceId, @NotNull String documentName, @NotNull Integer interval) {
-        if (interval < 1) {
-            throw new IllegalArgumentException("interval must be a natural number");
-        }
-
-        @NotNull IModule document = polarionService.getModule(projectId, spaceId, documentName);
+    public @NotNull IModule changeDocumentWorkItemDescriptions(@NotNull String projectId, @NotNull String spaceId, @NotNull String documentName, @NotNull Integer interval,
+                                                                @Nullable Long seed, int contentPoolSize, @NotNull GenerationProgress progress) {
+        validateChangeDescriptions(interval, contentPoolSize);
+        ContentPool contentPool = ContentPool.create(contentPoolSize, seed);
 
-        List<IWorkItem> documentWorkItems = document.getAllWorkItems();
+        WorkItemProjections documentWorkItems = workItemProjectionService.getWorkItems(projectId, spaceId, documentName);
+        RandomGenerator random = RandomStreams.forKey(seed, "change-descriptions", projectId, spaceId, documentName);
+        DocumentContentGenerator content = new DocumentContentGenerator(random, seed, contentPool);
 
         for (int i = interval - 1; i < documentWorkItems.size(); i += interval) {
+            progress.checkCancelled();
             int currentWorkItemIndex = i;
             TransactionalExecutor.executeInWriteTransaction(writeTransaction -> {
-                IWorkItem workItem = documentWorkItems.get(currentWorkItemIndex);
+                IWorkItem workItem = workItemProjectionService.getWorkItem(documentWorkItems, currentWorkItemIndex);
 
-                workItem.setTitle(workItem.getTitle() + " :: changed " + System.currentTimeMillis());
+                workItem.setTitle(workItem.getTitle() + " :: changed " + content.stamp());
                 ITypeOpt workItemType = workItem.getType();
                 if (workItemType != null && workItemType.getId().equalsIgnoreCase(DocumentGeneratorUtils.REQUIREMENT)) {
-                    workItem.setDescription(Text.html("workitem_description" + System.currentTimeMillis() + ": " + generateRandomDescription(documentWorkItems)));
+                    workItem.setDescription(content.description(documentWorkItems));
                 }
                 workItem.save();
                 return null;
             });
+            progress.itemsProcessed(1);
+            progress.committed();
         }
 
-        return document;
+        return polarionService.getModule(projectId, spaceId, documentName);
+    }
+
+    /**
+     * @throws IllegalArgumentException if interval is not a natural number or contentPoolSize is out of range
+     */
+    public static void validateChangeDescriptions(int interval, int contentPoolSize) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval must be a natural number");
+        }
+        ContentPool.validateSize(contentPoolSize);
     }
 
-    private static void generateDocumentWorkItems(@NotNull IModule document, @NotNull Integer quantity) {
+    /**
+     * Creates {@code quantity} work items in the document, {@code batchSize} work items per write transaction.
+     * The document itself is saved once per batch, so a batch produces a single commit instead of two commits per work item.
+     */
+    private static void generateDocumentWorkItems(@NotNull IModule document, int quantity, int batchSize,
+                                                  @NotNull DocumentContentGenerator content, @NotNull GenerationProgress progress) {
         final List<IWorkItem> documentWorkItems = new ArrayList<>(quantity);
 
-        for (int i = 0; i < quantity; i++) {
-            final String currentWorkItemType = DocumentGeneratorUtils.generateWorkItemType();
+        for (int batchStart = 0; batchStart < quantity; batchStart += batchSize) {
+            progress.checkCancelled();
+            final int currentBatchSize = Math.min(batchSize, quantity - batchStart);
 
-            @NotNull IWorkItem documentWorkItem = ObjectUtils.requireNotNull(TransactionalExecutor.executeInWriteTransaction(writeTransaction -> {
+            TransactionalExecutor.executeInWriteTransaction(writeTransaction -> {
                 document.update();
-                IWorkItem workItem = document.createWorkItem(currentWorkItemType);
-
-                if (currentWorkItemType.equalsIgnoreCase(DocumentGeneratorUtils.HEADING)) {
-                    workItem.setTitle("heading" + System.currentTimeMillis());
-                } else {
-                    workItem.setTitle("workitem_title" + System.currentTimeMillis());
-                    workItem.setDescription(Text.html("workitem_description" + System.currentTimeMillis() + ": " + generateRandomDescription(documentWorkItems)));
+                for (int i = 0; i < currentBatchSize; i++) {
+                    documentWorkItems.add(createGeneratedWorkItem(document, documentWorkItems, content));
                 }
-
-                workItem.save();
                 document.save();
-                return workItem;
-            }));
-            documentWorkItems.add(documentWorkItem);
+                return null;
+            });
+            progress.itemsProcessed(currentBatchSize);
+            progress.committed();
         }
     }
 
-    private static @NotNull String generateRandomDescription(@NotNull List<IWorkItem> documentWorkItems) {
-        return DocumentGeneratorUtils.generateRandomHtmlText() + DocumentGeneratorUtils.generateRandomHtmlImages() + DocumentGeneratorUtils.generateRandomWorkItemLinks(documentWorkItems);
+    private static @NotNull IWorkItem createGeneratedWorkItem(@NotNull IModule document, @NotNull List<IWorkItem> documentWorkItems, @NotNull DocumentContentGenerator content) {
+        final String currentWorkItemType = content.workItemType();
+        IWorkItem workItem = document.createWorkItem(currentWorkItemType);
+
+        if (currentWorkItemType.equalsIgnoreCase(DocumentGeneratorUtils.HEADING)) {
+            workItem.setTitle("heading" + content.stamp());
+        } else {
+            workItem.setTitle("workitem_title" + content.stamp());
+            workItem.setDescription(content.description(documentWorkItems));
+        }
+
+        workItem.save();
+        return workItem;
     }
 
     private static @NotNull String getSpace(@Nullable String spaceId) {
@@ -130,4 +267,50 @@ public class ModuleService {
     private static @NotNull ILinkRoleOpt getParentRole(@NotNull ITrackerProject trackerProject) {
         return trackerProject.getWorkItemLinkRoleEnum().wrapOption("parent");
     }
+
+    /**
+     * Generates types, titles and descriptions of the work items of one document.
+     * All descriptions are written into the same reused {@link HtmlDescriptionBuilder}, so an instance must only be used by one thread.
+     */
+    private static final class DocumentContentGenerator {
+        private final RandomGenerator random;
+        private final @Nullable Long seed;
+        private final @Nullable ContentPool contentPool;
+        private final HtmlDescriptionBuilder description = new HtmlDescriptionBuilder();
+
+        private DocumentContentGenerator(@NotNull RandomGenerator random, @Nullable Long seed, @Nullable ContentPool contentPool) {
+            this.random = random;
+            this.seed = seed;
+            this.contentPool = contentPool;
+        }
+
+        private @NotNull String workItemType() {
+            return DocumentGeneratorUtils.generateWorkItemType(random);
+        }
+
+        private @NotNull String stamp() {
+            return RandomStreams.stamp(seed, random);
+        }
+
+        private @NotNull Text description(@NotNull List<IWorkItem> documentWorkItems) {
+            appendDescriptionContent();
+            description.appendRandomWorkItemLinks(documentWorkItems, random);
+            return Text.html(description.toString());
+        }
+
+        private @NotNull Text description(@NotNull WorkItemProjections documentWorkItems) {
+            appendDescriptionContent();
+            description.appendRandomWorkItemLinks(documentWorkItems, random);
+            return Text.html(description.toString());
+        }
+
+        private void appendDescriptionContent() {
+            description.reset().append("workitem_description").append(stamp()).append(": ");
+            if (contentPool != null) {
+                description.append(contentPool.htmlText(random)).append(contentPool.htmlImages(random));
+            } else {
+                description.appendRandomHtmlText(random).appendRandomHtmlImages(random);
+            }
+        }
+    }
 }
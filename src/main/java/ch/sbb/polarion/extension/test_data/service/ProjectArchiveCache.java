@@ -0,0 +1,111 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Least-recently-used cache of built project archives, bounded by the total size of the cached archives.
+ * An archive is kept per project location together with the repository revision it was built from,
+ * so a new commit to the project makes its archive stale and the next build replaces it.
+ * <p>
+ * It also tracks archives which are being built, so that concurrent downloads of the same project revision
+ * can stream one build instead of each walking the repository.
+ */
+public class ProjectArchiveCache {
+
+    private static final long DEFAULT_MAX_TOTAL_BYTES = 128L * 1024 * 1024;
+
+    private final long maxTotalBytes;
+    private final int maxArchiveBytes;
+    private final LinkedHashMap<String, CachedArchive> archives = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final Map<String, SpooledArchive> builds = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    ProjectArchiveCache(long maxTotalBytes) {
+        if (maxTotalBytes < 0) {
+            throw new IllegalArgumentException("maxTotalBytes must not be negative");
+        }
+        this.maxTotalBytes = maxTotalBytes;
+        this.maxArchiveBytes = (int) Math.min(Integer.MAX_VALUE - 8L, maxTotalBytes / 4);
+    }
+
+    public static @NotNull ProjectArchiveCache getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Archives larger than this are streamed without being cached, so that one huge project cannot evict all others.
+     */
+    public int getMaxArchiveBytes() {
+        return maxArchiveBytes;
+    }
+
+    /**
+     * @return the archive built from the given revision of the project, or null if it is not cached
+     */
+    public synchronized byte @Nullable [] get(@NotNull String locationPath, @NotNull String revision) {
+        CachedArchive archive = archives.get(locationPath);
+        return archive != null && archive.revision().equals(revision) ? archive.content() : null;
+    }
+
+    /**
+     * Caches the archive, replacing the archive of an older revision of the same project
+     * and evicting the least recently used archives until the size budget is met.
+     */
+    public synchronized void put(@NotNull String locationPath, @NotNull String revision, byte @NotNull [] content) {
+        if (content.length > maxArchiveBytes) {
+            return;
+        }
+        CachedArchive previous = archives.put(locationPath, new CachedArchive(revision, content));
+        if (previous != null) {
+            totalBytes -= previous.content().length;
+        }
+        totalBytes += content.length;
+
+        Iterator<Map.Entry<String, CachedArchive>> iterator = archives.entrySet().iterator();
+        while (totalBytes > maxTotalBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().content().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Registers a build of the given project revision unless another one is already running.
+     *
+     * @param build archive to be spooled by the caller
+     * @return the build which is already running, or null if the given build was registered and has to be run by the caller
+     */
+    public @Nullable SpooledArchive startBuild(@NotNull String locationPath, @NotNull String revision, @NotNull SpooledArchive build) {
+        return builds.putIfAbsent(buildKey(locationPath, revision), build);
+    }
+
+    /**
+     * Unregisters a build started by {@link #startBuild(String, String, SpooledArchive)}, once it is completed or failed.
+     */
+    public void finishBuild(@NotNull String locationPath, @NotNull String revision, @NotNull SpooledArchive build) {
+        builds.remove(buildKey(locationPath, revision), build);
+    }
+
+    private static @NotNull String buildKey(@NotNull String locationPath, @NotNull String revision) {
+        return locationPath + "@" + revision;
+    }
+
+    @VisibleForTesting
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private record CachedArchive(@NotNull String revision, byte @NotNull [] content) {
+    }
+
+    private static final class InstanceHolder {
+        private static final ProjectArchiveCache INSTANCE = new ProjectArchiveCache(DEFAULT_MAX_TOTAL_BYTES);
+    }
+}
@@ -1,6 +1,20 @@
 package ch.sbb.polarion.extension.test_data.service;
 
+import ch.sbb.polarion.extension.test_data.rest.model.BulkProjectsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkProjectsResponse;
+import ch.sbb.polarion.extension.test_data.rest.model.ProjectCreationTiming;
+import ch.sbb.polarion.extension.test_data.rest.model.TemplateImportTimings;
+import ch.sbb.polarion.extension.test_data.rest.model.TemplateSyncMode;
+import ch.sbb.polarion.extension.test_data.rest.model.TemplateSyncReport;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationCancelledException;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationProgress;
+import ch.sbb.polarion.extension.test_data.service.job.ParallelTaskRunner;
+import ch.sbb.polarion.extension.test_data.util.CapturingOutputStream;
+import ch.sbb.polarion.extension.test_data.util.GlobFilter;
+import ch.sbb.polarion.extension.test_data.util.NonClosingOutputStream;
+import ch.sbb.polarion.extension.test_data.util.ParallelZipWriter;
 import com.polarion.alm.projects.IProjectLifecycleManager;
+import com.polarion.alm.shared.api.transaction.TransactionalExecutor;
 import com.polarion.core.util.StreamUtils;
 import com.polarion.core.util.StringUtils;
 import com.polarion.platform.core.PlatformContext;
@@ -17,10 +31,34 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -32,40 +70,230 @@ public class ProjectTemplateService {
 
     protected static final ILocation TEMPLATES_ROOT_REPO =
             Location.getLocationWithRepository(IRepositoryService.DEFAULT, "/.polarion/projects/templates/");
+    protected static final ILocation TEMPLATE_BLOBS_ROOT_REPO =
+            Location.getLocationWithRepository(IRepositoryService.DEFAULT, "/.polarion/projects/template-blobs/");
+    protected static final ILocation BLOB_TEMPLATES_ROOT_REPO =
+            Location.getLocationWithRepository(IRepositoryService.DEFAULT, "/.polarion/projects/template-manifests/");
     protected static final String TEMPLATE_HASH_FILE = ".templatehash";
+    protected static final String TEMPLATE_MANIFEST_FILE = ".templatemanifest";
+    protected static final String TEMPLATE_BLOBS_MARKER_FILE = ".templateblobs";
+    private static final String MANIFEST_SEPARATOR = "  ";
+    public static final int MAX_ZIP_PARALLELISM = 16;
+    public static final int MAX_FILES_PER_REQUEST = 100;
+    public static final int MAX_PROJECTS_PARALLELISM = 16;
+    private static final int PENDING_ENTRIES_PER_THREAD = 4;
+    private static final long PENDING_BYTES_PER_THREAD = 4L * 1024 * 1024;
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-fA-F]{64}");
 
     private final IRepositoryService repositoryService;
     private final IProjectLifecycleManager projectLifecycleManager;
+    private final ProjectArchiveCache archiveCache;
+    private final ParallelTaskRunner parallelTaskRunner;
+    private final TemplateExtractionPipeline extractionPipeline = new TemplateExtractionPipeline();
+    private final BlobPins blobPins = BlobPins.getInstance();
 
     public ProjectTemplateService() {
-        this.repositoryService = PlatformContext.getPlatform().lookupService(IRepositoryService.class);
-        this.projectLifecycleManager = PlatformContext.getPlatform().lookupService(IProjectLifecycleManager.class);
+        this(PlatformContext.getPlatform().lookupService(IRepositoryService.class),
+                PlatformContext.getPlatform().lookupService(IProjectLifecycleManager.class),
+                ProjectArchiveCache.getInstance(),
+                new ParallelTaskRunner());
+    }
+
+    @VisibleForTesting
+    ProjectTemplateService(@NotNull IRepositoryService repositoryService, @NotNull IProjectLifecycleManager projectLifecycleManager,
+                           @NotNull ProjectArchiveCache archiveCache, @NotNull ParallelTaskRunner parallelTaskRunner) {
+        this.repositoryService = repositoryService;
+        this.projectLifecycleManager = projectLifecycleManager;
+        this.archiveCache = archiveCache;
+        this.parallelTaskRunner = parallelTaskRunner;
     }
 
     /**
      * Saves a project template from an input stream.
+     * The upload is spooled to a temporary file first, so only one entry at a time is read into the repository
+     * and memory use does not depend on the template size.
      *
      * @param templateId   The unique identifier for the template
      * @param inputStream  The input stream containing the template zip file
-     * @param templateHash The hash value of the template, used for integrity verification
+     * @param templateHash The expected SHA-256 of the template zip file, not verified if null or blank;
+     *                     any other value is stored as the template hash as it is, like before the server computed the hash
      * @throws IllegalArgumentException    if templateId is null or empty
      * @throws TemplateProcessingException if template processing fails
      */
-    public void saveProjectTemplate(@NotNull String templateId, @NotNull InputStream inputStream, @Nullable String templateHash) {
+    @NotNull
+    public TemplateSyncReport saveProjectTemplate(@NotNull String templateId, @NotNull InputStream inputStream, @Nullable String templateHash) {
+        return saveProjectTemplate(templateId, inputStream, templateHash, false);
+    }
+
+    /**
+     * Saves a project template from an input stream, optionally as a delta against the stored template.
+     * In delta mode the uploaded entries are compared with the content-hash manifest stored next to the template hash,
+     * and only new, changed and removed files are written to the repository. Without a stored manifest the template
+     * folder is recreated as in full mode.
+     * <p>
+     * The SHA-256 of the upload is computed while it is spooled and stored as the template hash. If {@code templateHash}
+     * is a SHA-256 in hex and differs, the upload is rejected before anything is written to the repository.
+     * Clients which still send a hash of their own, in any other format, get it stored instead and are not verified.
+     *
+     * @param templateId   The unique identifier for the template
+     * @param inputStream  The input stream containing the template zip file
+     * @param templateHash The expected SHA-256 of the template zip file in hex, not verified if null or blank,
+     *                     stored as it is and not verified if it is no SHA-256
+     * @param delta        whether to write only the entries that differ from the stored template
+     * @return counts of the written, deleted and unchanged files
+     * @throws IllegalArgumentException    if templateId is null or empty
+     * @throws TemplateProcessingException if template processing fails or the upload does not match {@code templateHash}
+     */
+    @NotNull
+    public TemplateSyncReport saveProjectTemplate(@NotNull String templateId, @NotNull InputStream inputStream, @Nullable String templateHash, boolean delta) {
+        return saveProjectTemplate(templateId, inputStream, templateHash, delta ? TemplateSyncMode.DELTA : TemplateSyncMode.FULL);
+    }
+
+    /**
+     * Saves a project template from an input stream in the given mode.
+     * In {@link TemplateSyncMode#CONTENT_ADDRESSED} mode the files are stored once per content under {@link #TEMPLATE_BLOBS_ROOT_REPO},
+     * keyed by their SHA-256, and the template folder only keeps the manifest referencing them. Uploading a template that shares
+     * most files with already stored ones then only writes the blobs that are not there yet. Polarion cannot create projects
+     * from the manifest, so its folder lives under {@link #BLOB_TEMPLATES_ROOT_REPO}, outside the templates Polarion lists,
+     * until {@link #createProjectsFromTemplate(String, BulkProjectsRequest, GenerationProgress)} materializes it.
+     * Saving a template in one mode replaces a template of the same ID stored in the other.
+     * <p>
+     * The template is written in a write transaction of its own. Blobs that no template references any more are deleted
+     * afterwards in a second transaction, see {@link BlobPins}.
+     *
+     * @param templateId   The unique identifier for the template
+     * @param inputStream  The input stream containing the template zip file
+     * @param templateHash The expected SHA-256 of the template zip file in hex, not verified if null or blank,
+     *                     stored as it is and not verified if it is no SHA-256
+     * @param mode         how to store the template
+     * @return counts of the written, deleted and unchanged files
+     * @throws IllegalArgumentException    if templateId is null or empty
+     * @throws TemplateProcessingException if template processing fails or the upload does not match {@code templateHash}
+     */
+    @NotNull
+    public TemplateSyncReport saveProjectTemplate(@NotNull String templateId, @NotNull InputStream inputStream, @Nullable String templateHash,
+                                                  @NotNull TemplateSyncMode mode) {
+        Path zipFile = null;
+        BlobUpload upload = new BlobUpload();
+        TemplateSyncReport report;
         try {
-            byte[] zipData = StreamUtils.suckStream(inputStream, true);
-            if (canProcessZip(zipData)) {
-                saveZipProjectTemplates(templateId, zipData, templateHash);
-            } else {
+            MessageDigest digest = newSha256Digest();
+            zipFile = spoolToTempFile(inputStream, digest);
+            String uploadHash = HexFormat.of().formatHex(digest.digest());
+            String storedHash = verifyTemplateHash(templateId, templateHash, uploadHash);
+            if (!canProcessZip(zipFile)) {
                 throw new TemplateProcessingException("Provided input stream is not a valid ZIP archive for template: " + templateId, null);
             }
+            report = writeTemplate(templateId, zipFile, storedHash, mode, upload);
+        } catch (TemplateProcessingException e) {
+            throw e;
         } catch (Exception e) {
             throw new TemplateProcessingException("Failed to save project template: " + templateId, e);
+        } finally {
+            blobPins.unpin(upload.pinnedBlobs);
+            deleteTempFile(zipFile);
         }
+
+        int sweptBlobs = sweepOrphanedBlobs(upload.orphanCandidates);
+        return new TemplateSyncReport(report.mode(), report.created(), report.updated(), report.deleted() + sweptBlobs,
+                report.unchanged(), report.timings());
+    }
+
+    @NotNull
+    private TemplateSyncReport writeTemplate(@NotNull String templateId, @NotNull Path zipFile, @NotNull String templateHash,
+                                             @NotNull TemplateSyncMode mode, @NotNull BlobUpload upload) {
+        return TransactionalExecutor.executeInWriteTransaction(transaction -> switch (mode) {
+            case FULL -> saveZipProjectTemplates(templateId, zipFile, templateHash, upload);
+            case DELTA -> syncZipProjectTemplates(templateId, zipFile, templateHash, upload);
+            case CONTENT_ADDRESSED -> storeContentAddressedTemplate(templateId, zipFile, templateHash, upload);
+        });
+    }
+
+    /**
+     * Creates {@code request.count()} projects named after {@code request.idPattern()} from a stored template
+     * on a pool of {@code request.parallelism()} workers, every project in a write transaction of its own.
+     * A failing project does not stop the others, its error is reported in the response instead.
+     * Cancellation is checked before every project, projects already being created are finished.
+     * A template stored as blobs is materialized into Polarion's template folder first.
+     *
+     * @throws IllegalArgumentException    if the request is invalid
+     * @throws TemplateProcessingException if the template does not exist or cannot be materialized
+     */
+    @NotNull
+    public BulkProjectsResponse createProjectsFromTemplate(@NotNull String templateId, @NotNull BulkProjectsRequest request, @NotNull GenerationProgress progress) {
+        validateBulkProjectsRequest(request);
+        List<String> projectIds = getProjectIds(request);
+        boolean storedAsBlobs = TransactionalExecutor.executeInReadOnlyTransaction(transaction -> {
+            ILocation templateFolder = getExistingTemplateLocation(templateId);
+            return repositoryService.getReadOnlyConnection(templateFolder).exists(templateFolder.append(TEMPLATE_BLOBS_MARKER_FILE));
+        });
+        if (storedAsBlobs) {
+            TransactionalExecutor.executeInWriteTransaction(transaction -> {
+                materializeTemplate(templateId.trim());
+                return null;
+            });
+        }
+
+        List<Supplier<ProjectCreationTiming>> tasks = new ArrayList<>(projectIds.size());
+        for (String projectId : projectIds) {
+            tasks.add(() -> createTimedProject(templateId, projectId, request, progress));
+        }
+
+        long start = System.nanoTime();
+        List<ProjectCreationTiming> timings = parallelTaskRunner.invokeAll(tasks, request.parallelism());
+        long wallClockNanos = System.nanoTime() - start;
+        long wallClockMillis = TimeUnit.NANOSECONDS.toMillis(wallClockNanos);
+        progress.checkCancelled();
+
+        long totalProjectMillis = timings.stream().mapToLong(ProjectCreationTiming::durationMillis).sum();
+        int failed = (int) timings.stream().filter(timing -> timing.error() != null).count();
+        int succeeded = timings.size() - failed;
+        double projectsPerSecond = wallClockNanos > 0 ? succeeded * 1_000_000_000d / wallClockNanos : 0;
+        double speedup = wallClockMillis > 0 ? (double) totalProjectMillis / wallClockMillis : 0;
+        return new BulkProjectsResponse(timings, succeeded, failed, wallClockMillis, totalProjectMillis, projectsPerSecond, speedup);
+    }
+
+    @SuppressWarnings("java:S1181") // one failing project must not abort the whole run
+    @NotNull
+    private ProjectCreationTiming createTimedProject(@NotNull String templateId, @NotNull String projectId, @NotNull BulkProjectsRequest request,
+                                                     @NotNull GenerationProgress progress) {
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            progress.checkCancelled();
+            ILocation projectLocation = getProjectLocation(projectId, request.projectGroup());
+            TransactionalExecutor.executeInWriteTransaction(transaction -> {
+                projectLifecycleManager.createProject(projectLocation, projectId, templateId, request.templateParameters());
+                return null;
+            });
+            progress.itemsProcessed(1);
+            progress.committed();
+        } catch (GenerationCancelledException e) {
+            error = "cancelled";
+        } catch (Throwable e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        }
+        return new ProjectCreationTiming(projectId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), error);
+    }
+
+    @NotNull
+    private static List<String> getProjectIds(@NotNull BulkProjectsRequest request) {
+        List<String> projectIds = new ArrayList<>(request.count());
+        Set<String> uniqueIds = new HashSet<>();
+        for (int i = 0; i < request.count(); i++) {
+            String projectId = String.format(request.idPattern(), request.startIndex() + i);
+            validateProjectId(projectId);
+            if (!uniqueIds.add(projectId)) {
+                throw new IllegalArgumentException("idPattern must produce a distinct ID for every project, duplicate: " + projectId);
+            }
+            projectIds.add(projectId);
+        }
+        return projectIds;
     }
 
     /**
      * Downloads a project template as a ZIP archive from the repository.
+     * The whole archive is held in memory, use {@link #writeProjectZip(ILocation, OutputStream)} to stream large projects.
      *
      * @param projectId    the unique identifier of the project to download
      * @param projectGroup the group of the project
@@ -75,22 +303,342 @@ public class ProjectTemplateService {
      */
     @NotNull
     public byte[] downloadProject(@NotNull String projectId, @Nullable String projectGroup) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeProjectZip(getProjectLocation(projectId, projectGroup), baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Resolves the repository location of an existing project.
+     *
+     * @param projectId    the unique identifier of the project
+     * @param projectGroup the group of the project
+     * @return location of the project folder
+     * @throws IllegalArgumentException    if projectId is null, empty or contains invalid characters
+     * @throws TemplateProcessingException if the project folder does not exist
+     */
+    @NotNull
+    public ILocation getExistingProjectLocation(@NotNull String projectId, @Nullable String projectGroup) {
+        ILocation projectLocation = getProjectLocation(projectId, projectGroup);
+        if (!repositoryService.getReadOnlyConnection(projectLocation).exists(projectLocation)) {
+            throw new TemplateProcessingException("Project not found: " + projectId, null);
+        }
+        return projectLocation;
+    }
+
+    /**
+     * Resolves the repository location of an existing project together with the revision of its last change.
+     *
+     * @param projectId    the unique identifier of the project
+     * @param projectGroup the group of the project
+     * @return location and last revision of the project folder
+     * @throws IllegalArgumentException    if projectId is null, empty or contains invalid characters
+     * @throws TemplateProcessingException if the project folder does not exist
+     */
+    @NotNull
+    public ProjectRevision getExistingProjectRevision(@NotNull String projectId, @Nullable String projectGroup) {
+        ILocation projectLocation = getExistingProjectLocation(projectId, projectGroup);
+        return new ProjectRevision(projectLocation, getLastRevision(projectLocation));
+    }
+
+    /**
+     * @return the archive built earlier from the same revision of the project with the same filter, or null if it is not cached
+     */
+    public byte @Nullable [] getCachedProjectZip(@NotNull ProjectRevision projectRevision, @NotNull GlobFilter filter) {
+        return archiveCache.get(archiveKey(projectRevision.location(), filter), projectRevision.revision());
+    }
+
+    /**
+     * Writes the project folder as a ZIP archive into the output stream, like {@link #writeProjectZip(ILocation, GlobFilter, OutputStream, int)},
+     * and caches the archive for {@link #getCachedProjectZip(ProjectRevision, GlobFilter)} if the project did not change in the meantime.
+     * Concurrent calls for the same project revision share one build: the first call spools the archive to a temporary file
+     * while streaming it, the others stream the spool file as it grows, whatever the size of the archive. A call which joins
+     * a build that fails before anything was written builds the archive itself.
+     *
+     * @param projectRevision location and revision of the project folder
+     * @param filter          paths to put into the archive
+     * @param outputStream    stream to write the archive to
+     * @param parallelism     number of threads compressing entries
+     * @throws IllegalArgumentException    if parallelism is out of range
+     * @throws TemplateProcessingException if the repository connection fails or ZIP creation fails
+     */
+    public void writeProjectZip(@NotNull ProjectRevision projectRevision, @NotNull GlobFilter filter,
+                                @NotNull OutputStream outputStream, int parallelism) {
+        validateZipParallelism(parallelism);
+        String archiveKey = archiveKey(projectRevision.location(), filter);
+        String revision = projectRevision.revision();
+
+        byte[] archive = archiveCache.get(archiveKey, revision);
+        if (archive != null) {
+            try {
+                outputStream.write(archive);
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new TemplateProcessingException("Failed to download template: " + projectRevision.location().getLastComponent(), e);
+            }
+            return;
+        }
+
+        SpooledArchive build = new SpooledArchive();
+        SpooledArchive runningBuild = archiveCache.startBuild(archiveKey, revision, build);
+        if (runningBuild == null) {
+            buildProjectZip(projectRevision, filter, outputStream, parallelism, build);
+        } else if (!copyRunningBuild(runningBuild, outputStream, projectRevision)) {
+            writeProjectZip(projectRevision.location(), filter, outputStream, parallelism);
+        }
+    }
+
+    private void buildProjectZip(@NotNull ProjectRevision projectRevision, @NotNull GlobFilter filter,
+                                 @NotNull OutputStream outputStream, int parallelism, @NotNull SpooledArchive build) {
+        ILocation projectLocation = projectRevision.location();
+        String archiveKey = archiveKey(projectLocation, filter);
+        try {
+            CapturingOutputStream capturingStream;
+            try (OutputStream spoolingStream = build.openWriter(outputStream)) {
+                capturingStream = new CapturingOutputStream(spoolingStream, archiveCache.getMaxArchiveBytes());
+                writeProjectZip(projectLocation, filter, capturingStream, parallelism);
+            }
+            build.complete();
+
+            byte[] archive = capturingStream.getCapturedBytes();
+            if (archive != null && projectRevision.revision().equals(getLastRevision(projectLocation))) {
+                archiveCache.put(archiveKey, projectRevision.revision(), archive);
+            }
+        } catch (IOException e) {
+            build.fail();
+            throw new TemplateProcessingException("Failed to download template: " + projectLocation.getLastComponent(), e);
+        } catch (RuntimeException e) {
+            build.fail();
+            throw e;
+        } finally {
+            archiveCache.finishBuild(archiveKey, projectRevision.revision(), build);
+            build.release();
+        }
+    }
+
+    /**
+     * @return false if the running build failed before anything was written, or finished and released its spool file
+     */
+    private static boolean copyRunningBuild(@NotNull SpooledArchive runningBuild, @NotNull OutputStream outputStream,
+                                            @NotNull ProjectRevision projectRevision) {
+        if (!runningBuild.attach()) {
+            return false;
+        }
+        try {
+            return runningBuild.copyTo(outputStream);
+        } catch (IOException e) {
+            throw new TemplateProcessingException("Failed to download template: " + projectRevision.location().getLastComponent(), e);
+        } finally {
+            runningBuild.release();
+        }
+    }
+
+    @NotNull
+    private static String archiveKey(@NotNull ILocation projectLocation, @NotNull GlobFilter filter) {
+        return filter.isAll() ? projectLocation.getLocationPath() : projectLocation.getLocationPath() + "?" + filter.fingerprint();
+    }
+
+    /**
+     * Writes the project folder as a ZIP archive into the output stream.
+     * Entries are read from the repository and compressed one by one straight into the stream, so memory use does not depend on the project size.
+     * The output stream is flushed but not closed.
+     *
+     * @param projectLocation location of the project folder
+     * @param outputStream    stream to write the archive to
+     * @throws TemplateProcessingException if the repository connection fails or ZIP creation fails
+     */
+    public void writeProjectZip(@NotNull ILocation projectLocation, @NotNull OutputStream outputStream) {
+        writeProjectZip(projectLocation, GlobFilter.ALL, outputStream, 1);
+    }
+
+    /**
+     * Writes the project folder as a ZIP archive into the output stream, deflating up to {@code parallelism} entries concurrently.
+     * Entries are still read from the repository one by one on the calling thread and written in repository order.
+     * The output stream is flushed but not closed.
+     *
+     * @param projectLocation location of the project folder
+     * @param outputStream    stream to write the archive to
+     * @param parallelism     number of threads compressing entries, {@code 1} compresses on the calling thread
+     * @throws IllegalArgumentException    if parallelism is out of range
+     * @throws TemplateProcessingException if the repository connection fails or ZIP creation fails
+     */
+    public void writeProjectZip(@NotNull ILocation projectLocation, @NotNull OutputStream outputStream, int parallelism) {
+        writeProjectZip(projectLocation, GlobFilter.ALL, outputStream, parallelism);
+    }
+
+    /**
+     * Writes the filtered project folder as a ZIP archive into the output stream, deflating up to {@code parallelism} entries concurrently.
+     * Excluded folders are skipped without being listed and the content of excluded files is never read.
+     * The output stream is flushed but not closed.
+     *
+     * @param projectLocation location of the project folder
+     * @param filter          paths to put into the archive, relative to the project folder
+     * @param outputStream    stream to write the archive to
+     * @param parallelism     number of threads compressing entries, {@code 1} compresses on the calling thread
+     * @throws IllegalArgumentException    if parallelism is out of range
+     * @throws TemplateProcessingException if the repository connection fails or ZIP creation fails
+     */
+    public void writeProjectZip(@NotNull ILocation projectLocation, @NotNull GlobFilter filter, @NotNull OutputStream outputStream, int parallelism) {
+        validateZipParallelism(parallelism);
+        if (parallelism == 1) {
+            try (ZipOutputStream zos = new ZipOutputStream(new NonClosingOutputStream(outputStream))) {
+                createZipFromProject(projectLocation, filter, zos);
+                zos.finish();
+            } catch (IOException e) {
+                throw new TemplateProcessingException("Failed to download template: " + projectLocation.getLastComponent(), e);
+            }
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (ParallelZipWriter zipWriter = new ParallelZipWriter(new NonClosingOutputStream(outputStream), pool,
+                parallelism * PENDING_ENTRIES_PER_THREAD, parallelism * PENDING_BYTES_PER_THREAD)) {
+            collectZipEntries(projectLocation, filter, zipWriter::putEntry);
+            zipWriter.finish();
+        } catch (IOException e) {
+            throw new TemplateProcessingException("Failed to download template: " + projectLocation.getLastComponent(), e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks the request without touching the repository, so that a background job is only submitted for a valid request.
+     *
+     * @throws IllegalArgumentException if the request is missing or invalid
+     */
+    public static void validateBulkProjectsRequest(@Nullable BulkProjectsRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Request body is required");
+        }
+        if (request.count() < 1) {
+            throw new IllegalArgumentException("count must be a natural number");
+        }
+        if (request.parallelism() < 1 || request.parallelism() > MAX_PROJECTS_PARALLELISM) {
+            throw new IllegalArgumentException("parallelism must be between 1 and " + MAX_PROJECTS_PARALLELISM);
+        }
+        getProjectIds(request);
+    }
+
+    /**
+     * @throws IllegalArgumentException if parallelism is not between 1 and {@link #MAX_ZIP_PARALLELISM}
+     */
+    public static void validateZipParallelism(int parallelism) {
+        if (parallelism < 1 || parallelism > MAX_ZIP_PARALLELISM) {
+            throw new IllegalArgumentException("parallelism must be between 1 and " + MAX_ZIP_PARALLELISM);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException    if templateId is null, empty or contains path separators
+     * @throws TemplateProcessingException if the template does not exist
+     */
+    @NotNull
+    public ILocation getExistingTemplateLocation(@NotNull String templateId) {
+        validateProjectId(templateId);
+        ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId.trim());
+        IRepositoryReadOnlyConnection connection = repositoryService.getReadOnlyConnection(templateFolder);
+        if (connection.exists(templateFolder)) {
+            return templateFolder;
+        }
+        ILocation blobTemplateFolder = BLOB_TEMPLATES_ROOT_REPO.append(templateId.trim());
+        if (connection.exists(blobTemplateFolder)) {
+            return blobTemplateFolder;
+        }
+        throw new TemplateProcessingException("Template not found: " + templateId, null);
+    }
+
+    /**
+     * Looks up files below a template or project folder, validating the paths the same way as uploaded ZIP entries.
+     * Files of a content-addressed template are resolved to their blobs through the template manifest.
+     *
+     * @param root  template or project folder
+     * @param paths relative file paths, at most {@link #MAX_FILES_PER_REQUEST}
+     * @return the files in the requested order, without duplicates
+     * @throws IllegalArgumentException    if no path, too many paths or an invalid path is given
+     * @throws TemplateProcessingException if one of the files does not exist
+     */
+    @NotNull
+    public List<StoredFile> locateFiles(@NotNull ILocation root, @Nullable List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            throw new IllegalArgumentException("At least one file path is required");
+        }
+        if (paths.size() > MAX_FILES_PER_REQUEST) {
+            throw new IllegalArgumentException("At most " + MAX_FILES_PER_REQUEST + " files can be requested at once");
+        }
+
+        IRepositoryReadOnlyConnection connection = repositoryService.getReadOnlyConnection(root);
+        Map<String, String> blobManifest = connection.exists(root.append(TEMPLATE_BLOBS_MARKER_FILE))
+                ? readTemplateManifest(connection, root)
+                : null;
+
+        Map<String, StoredFile> files = new LinkedHashMap<>();
+        for (String path : paths) {
+            String normalizedPath = normalizeEntryName(path);
+            if (normalizedPath == null || normalizedPath.endsWith("/")) {
+                throw new IllegalArgumentException("Invalid file path: " + path);
+            }
+            if (!files.containsKey(normalizedPath)) {
+                files.put(normalizedPath, new StoredFile(normalizedPath, locateFile(connection, root, normalizedPath, blobManifest)));
+            }
+        }
+        return List.copyOf(files.values());
+    }
+
+    @NotNull
+    private ILocation locateFile(@NotNull IRepositoryReadOnlyConnection connection, @NotNull ILocation root,
+                                 @NotNull String path, @Nullable Map<String, String> blobManifest) {
+        ILocation location = root.append(path);
+        if (connection.isFile(location)) {
+            return location;
+        }
+        String contentHash = blobManifest != null ? blobManifest.get(path) : null;
+        if (contentHash != null && connection.isFile(getBlobLocation(contentHash))) {
+            return getBlobLocation(contentHash);
+        }
+        throw new TemplateProcessingException("File not found: " + path, null);
+    }
+
+    /**
+     * Copies the content of one file as it is.
+     */
+    public void writeFile(@NotNull StoredFile file, @NotNull OutputStream outputStream) {
+        try (InputStream is = repositoryService.getReadOnlyConnection(file.location()).getContent(file.location())) {
+            is.transferTo(outputStream);
+        } catch (IOException e) {
+            throw new TemplateProcessingException("Failed to read file: " + file.path(), e);
+        }
+    }
+
+    /**
+     * Writes the files into a ZIP archive, each under its requested path.
+     */
+    public void writeFilesZip(@NotNull List<StoredFile> files, @NotNull OutputStream outputStream) {
+        try (ZipOutputStream zos = new ZipOutputStream(new NonClosingOutputStream(outputStream))) {
+            for (StoredFile file : files) {
+                try (InputStream is = repositoryService.getReadOnlyConnection(file.location()).getContent(file.location())) {
+                    addEntryToZip(zos, is, new ZipEntry(file.path()));
+                }
+            }
+        } catch (IOException e) {
+            throw new TemplateProcessingException("Failed to create ZIP of the requested files", e);
+        }
+    }
+
+    @NotNull
+    private String getLastRevision(@NotNull ILocation projectLocation) {
+        return repositoryService.getReadOnlyConnection(projectLocation).getLastRevision(projectLocation);
+    }
+
+    @NotNull
+    private ILocation getProjectLocation(@NotNull String projectId, @Nullable String projectGroup) {
         validateProjectId(projectId);
 
         String path = StringUtils.isEmpty(projectGroup)
                 ? String.format("/%s", projectId)
                 : String.format("/%s/%s", projectGroup, projectId);
 
-        ILocation projectLocation = Location.getLocationWithRepository(IRepositoryService.DEFAULT, path);
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             ZipOutputStream zos = new ZipOutputStream(baos)) {
-            createZipFromProject(projectLocation, zos);
-            zos.finish();
-            return baos.toByteArray();
-        } catch (IOException e) {
-            throw new TemplateProcessingException("Failed to download template: " + projectId, e);
-        }
+        return Location.getLocationWithRepository(IRepositoryService.DEFAULT, path);
     }
 
     /**
@@ -103,11 +651,12 @@ public class ProjectTemplateService {
     @Nullable
     public String readTemplateHash(@NotNull String templateId) {
         IRepositoryReadOnlyConnection connection = repositoryService.getReadOnlyConnection(TEMPLATES_ROOT_REPO);
-        ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
-        ILocation hashLocation = templateFolder.append(TEMPLATE_HASH_FILE);
-
+        ILocation hashLocation = TEMPLATES_ROOT_REPO.append(templateId).append(TEMPLATE_HASH_FILE);
         if (!connection.exists(hashLocation)) {
-            return null;
+            hashLocation = BLOB_TEMPLATES_ROOT_REPO.append(templateId).append(TEMPLATE_HASH_FILE);
+            if (!connection.exists(hashLocation)) {
+                return null;
+            }
         }
 
         try (InputStream is = connection.getContent(hashLocation)) {
@@ -117,12 +666,57 @@ public class ProjectTemplateService {
         }
     }
 
+    /**
+     * @return the hash to store: the computed SHA-256, or the client's own hash if it is not a SHA-256
+     * @throws TemplateProcessingException if the client's hash is a SHA-256 which differs from the upload's
+     */
+    @NotNull
+    private static String verifyTemplateHash(@NotNull String templateId, @Nullable String templateHash, @NotNull String uploadHash) {
+        if (templateHash == null || templateHash.isBlank()) {
+            return uploadHash;
+        }
+        String expectedHash = templateHash.trim();
+        if (!SHA256_HEX.matcher(expectedHash).matches()) {
+            return expectedHash;
+        }
+        if (!expectedHash.equalsIgnoreCase(uploadHash)) {
+            throw new TemplateProcessingException("Hash mismatch for template " + templateId + ": expected " + expectedHash
+                    + " but the uploaded file has SHA-256 " + uploadHash, null);
+        }
+        return uploadHash;
+    }
+
+    /**
+     * Copies the upload to a temporary file, feeding the digest with the same pass over the data.
+     */
+    @NotNull
+    private Path spoolToTempFile(@NotNull InputStream inputStream, @NotNull MessageDigest digest) throws IOException {
+        Path zipFile = Files.createTempFile("project-template-", ".zip");
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(zipFile), digest)) {
+            inputStream.transferTo(out);
+        } catch (IOException e) {
+            deleteTempFile(zipFile);
+            throw e;
+        }
+        return zipFile;
+    }
+
+    private void deleteTempFile(@Nullable Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Swallow exceptions during cleanup
+        }
+    }
+
     @VisibleForTesting
     @SuppressWarnings("java:S5042")
-    boolean canProcessZip(byte[] zipData) {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(zipData);
-             ZipInputStream zis = new ZipInputStream(bais, StandardCharsets.UTF_8)) {
-            return zis.getNextEntry() != null;
+    boolean canProcessZip(@NotNull Path zipFile) {
+        try (ZipFile zip = new ZipFile(zipFile.toFile(), StandardCharsets.UTF_8)) {
+            return zip.size() > 0;
         } catch (IOException e) {
             return false;
         }
@@ -130,8 +724,9 @@ public class ProjectTemplateService {
 
     @VisibleForTesting
     @SuppressWarnings("java:S5042")
-    void saveZipProjectTemplates(@NotNull String templateId, @NotNull byte[] zipData,
-                                 @Nullable String templateHash) {
+    @NotNull
+    TemplateSyncReport saveZipProjectTemplates(@NotNull String templateId, @NotNull Path zipFile,
+                                               @Nullable String templateHash, @NotNull BlobUpload upload) {
         IRepositoryConnection connection = repositoryService.getConnection(TEMPLATES_ROOT_REPO);
         ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
 
@@ -141,65 +736,462 @@ public class ProjectTemplateService {
             Properties properties = new Properties();
             projectLifecycleManager.saveProjectTemplate(templateId, properties, null);
 
-            extractZipEntries(zipData, connection, templateFolder);
+            Map<String, String> manifest = new TreeMap<>();
+            TemplateImportTimings timings = extractZipEntries(zipFile, connection, templateFolder, manifest);
+            saveTemplateFile(connection, templateFolder, TEMPLATE_MANIFEST_FILE, formatManifest(manifest));
 
             if (templateHash != null && !templateHash.trim().isEmpty()) {
                 saveTemplateHash(connection, templateFolder, templateHash);
             }
+            deleteBlobTemplate(connection, templateId, upload);
 
+            return new TemplateSyncReport(TemplateSyncMode.FULL, manifest.size(), 0, 0, 0, timings);
         } catch (Exception e) {
             cleanupTemplateFolder(connection, templateFolder);
             throw new TemplateProcessingException("Failed to process zip file for template: " + templateId, e);
         }
     }
 
+    /**
+     * Writes only the files whose content hash differs from the stored manifest and deletes the files missing in the zip,
+     * together with the folders left empty, unless the zip lists them as directories.
+     * The template is registered with Polarion like by a full upload.
+     * Falls back to {@link #saveZipProjectTemplates(String, Path, String, BlobUpload)} if the template has no manifest yet
+     * or its files are stored as blobs.
+     * The stored template is left as it is if the synchronization fails.
+     */
+    @VisibleForTesting
+    @SuppressWarnings("java:S5042")
+    @NotNull
+    TemplateSyncReport syncZipProjectTemplates(@NotNull String templateId, @NotNull Path zipFile,
+                                               @Nullable String templateHash, @NotNull BlobUpload upload) {
+        IRepositoryConnection connection = repositoryService.getConnection(TEMPLATES_ROOT_REPO);
+        ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
+
+        Map<String, String> storedManifest = readTemplateManifest(connection, templateFolder);
+        if (storedManifest == null || connection.exists(templateFolder.append(TEMPLATE_BLOBS_MARKER_FILE))) {
+            return saveZipProjectTemplates(templateId, zipFile, templateHash, upload);
+        }
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile(), StandardCharsets.UTF_8)) {
+            projectLifecycleManager.saveProjectTemplate(templateId, new Properties(), null);
+
+            Map<String, String> manifest = new TreeMap<>();
+            Set<String> folders = new HashSet<>();
+            EntryCounts counts = new EntryCounts();
+            TemplateImportTimings timings = extractionPipeline.run(zip, this::templateEntryName,
+                    entry -> syncExtractedEntry(zip, entry, connection, templateFolder, storedManifest, manifest, folders, counts));
+
+            List<String> deletedEntries = new ArrayList<>();
+            for (String entryName : storedManifest.keySet()) {
+                if (!manifest.containsKey(entryName)) {
+                    ILocation location = templateFolder.append(entryName);
+                    if (connection.exists(location)) {
+                        connection.delete(location);
+                    }
+                    deletedEntries.add(entryName);
+                }
+            }
+            deleteEmptyFolders(connection, templateFolder, deletedEntries, folders);
+
+            if (!manifest.equals(storedManifest)) {
+                saveTemplateFile(connection, templateFolder, TEMPLATE_MANIFEST_FILE, formatManifest(manifest));
+            }
+            if (templateHash != null && !templateHash.trim().isEmpty()) {
+                saveTemplateHash(connection, templateFolder, templateHash);
+            }
+            deleteBlobTemplate(connection, templateId, upload);
+
+            return new TemplateSyncReport(TemplateSyncMode.DELTA, counts.created, counts.updated, deletedEntries.size(), counts.unchanged, timings);
+        } catch (Exception e) {
+            throw new TemplateProcessingException("Failed to synchronize zip file for template: " + templateId, e);
+        }
+    }
+
+    /**
+     * Stores the files as blobs named by their SHA-256 and recreates the template folder with a manifest referencing them.
+     * Blobs that already exist, from this or any other template, are not written again. Directory entries are not stored,
+     * folders are implied by the file paths in the manifest. The referenced blobs are pinned in {@code upload}, the blobs
+     * of the replaced manifest become candidates for the sweep after the commit.
+     */
+    @VisibleForTesting
+    @SuppressWarnings("java:S5042")
+    @NotNull
+    TemplateSyncReport storeContentAddressedTemplate(@NotNull String templateId, @NotNull Path zipFile,
+                                                     @Nullable String templateHash, @NotNull BlobUpload upload) {
+        IRepositoryConnection connection = repositoryService.getConnection(TEMPLATES_ROOT_REPO);
+        ILocation templateFolder = BLOB_TEMPLATES_ROOT_REPO.append(templateId);
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile(), StandardCharsets.UTF_8)) {
+            Map<String, String> previousManifest = readTemplateManifest(connection, templateFolder);
+            recreateTemplateFolder(connection, templateFolder);
+
+            Map<String, String> manifest = new TreeMap<>();
+            EntryCounts counts = new EntryCounts();
+            TemplateImportTimings timings = extractionPipeline.run(zip, this::templateEntryName,
+                    entry -> storeBlob(zip, entry, connection, manifest, upload, counts));
+
+            saveTemplateFile(connection, templateFolder, TEMPLATE_MANIFEST_FILE, formatManifest(manifest));
+            saveTemplateFile(connection, templateFolder, TEMPLATE_BLOBS_MARKER_FILE, TEMPLATE_BLOBS_ROOT_REPO.getLocationPath());
+            if (templateHash != null && !templateHash.trim().isEmpty()) {
+                saveTemplateHash(connection, templateFolder, templateHash);
+            }
+            // a normal template of the same ID, or the materialized copy of the replaced one
+            cleanupTemplateFolder(connection, TEMPLATES_ROOT_REPO.append(templateId));
+            if (previousManifest != null) {
+                upload.orphanCandidates.addAll(previousManifest.values());
+            }
+
+            return new TemplateSyncReport(TemplateSyncMode.CONTENT_ADDRESSED, counts.created, 0, 0, counts.unchanged, timings);
+        } catch (Exception e) {
+            cleanupTemplateFolder(connection, templateFolder);
+            throw new TemplateProcessingException("Failed to store blobs for template: " + templateId, e);
+        }
+    }
+
+    /**
+     * Writes the files of a content-addressed template into Polarion's template folder and registers the template there,
+     * so that projects can be created from it. The copy keeps the manifest and hash of the stored template, it is deleted
+     * by the next content-addressed upload of the template, and any other upload replaces both.
+     */
+    @VisibleForTesting
+    void materializeTemplate(@NotNull String templateId) {
+        IRepositoryConnection connection = repositoryService.getConnection(TEMPLATES_ROOT_REPO);
+        ILocation blobTemplateFolder = BLOB_TEMPLATES_ROOT_REPO.append(templateId);
+        ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
+
+        Map<String, String> manifest = readTemplateManifest(connection, blobTemplateFolder);
+        if (manifest == null) {
+            throw new TemplateProcessingException("Template not found: " + templateId, null);
+        }
+        List<String> pinnedBlobs = new ArrayList<>();
+        try {
+            for (String contentHash : new HashSet<>(manifest.values())) {
+                blobPins.pin(contentHash);
+                pinnedBlobs.add(contentHash);
+            }
+
+            recreateTemplateFolder(connection, templateFolder);
+            projectLifecycleManager.saveProjectTemplate(templateId, new Properties(), null);
+            for (Map.Entry<String, String> file : manifest.entrySet()) {
+                try (InputStream is = connection.getContent(getBlobLocation(file.getValue()))) {
+                    connection.create(templateFolder.append(file.getKey()), is);
+                }
+            }
+            saveTemplateFile(connection, templateFolder, TEMPLATE_MANIFEST_FILE, formatManifest(manifest));
+            ILocation hashLocation = blobTemplateFolder.append(TEMPLATE_HASH_FILE);
+            if (connection.exists(hashLocation)) {
+                try (InputStream is = connection.getContent(hashLocation)) {
+                    saveTemplateHash(connection, templateFolder, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TemplateProcessingException("Interrupted while materializing template: " + templateId, e);
+        } catch (IOException e) {
+            throw new TemplateProcessingException("Failed to materialize template: " + templateId, e);
+        } finally {
+            blobPins.unpin(pinnedBlobs);
+        }
+    }
+
+    /**
+     * Deletes the content-addressed template of the given ID, if any. Its blobs become candidates for the sweep after the commit.
+     */
+    private void deleteBlobTemplate(@NotNull IRepositoryConnection connection, @NotNull String templateId, @NotNull BlobUpload upload) {
+        ILocation templateFolder = BLOB_TEMPLATES_ROOT_REPO.append(templateId);
+        if (!connection.exists(templateFolder)) {
+            return;
+        }
+        Map<String, String> manifest = readTemplateManifest(connection, templateFolder);
+        connection.delete(templateFolder);
+        if (manifest != null) {
+            upload.orphanCandidates.addAll(manifest.values());
+        }
+    }
+
+    /**
+     * Deletes the candidate blobs that no committed manifest references, in a write transaction of its own. Blobs pinned
+     * by uploads that have not committed yet are kept. The upload that dropped the candidates has already committed,
+     * so a failing sweep does not fail it, the blobs are only left behind.
+     *
+     * @return number of deleted blobs
+     */
+    @VisibleForTesting
+    int sweepOrphanedBlobs(@NotNull Collection<String> candidateHashes) {
+        if (candidateHashes.isEmpty()) {
+            return 0;
+        }
+        Set<String> condemnedHashes = blobPins.condemn(candidateHashes);
+        try {
+            return TransactionalExecutor.executeInWriteTransaction(transaction ->
+                    deleteOrphanedBlobs(repositoryService.getConnection(TEMPLATES_ROOT_REPO), condemnedHashes));
+        } catch (Exception e) {
+            return 0;
+        } finally {
+            blobPins.release(condemnedHashes);
+        }
+    }
+
+    /**
+     * Deletes the candidate blobs that no content-addressed template references any more. Only blobs a template has just dropped
+     * are candidates, so a sweep reads the manifests of all content-addressed templates but never lists the blob folders.
+     *
+     * @return number of deleted blobs
+     */
+    @VisibleForTesting
+    int deleteOrphanedBlobs(@NotNull IRepositoryConnection connection, @NotNull Collection<String> candidateHashes) {
+        if (candidateHashes.isEmpty()) {
+            return 0;
+        }
+        Set<String> referencedHashes = new HashSet<>();
+        if (connection.exists(BLOB_TEMPLATES_ROOT_REPO)) {
+            for (Object subLocation : connection.getSubLocations(BLOB_TEMPLATES_ROOT_REPO, false)) {
+                Map<String, String> manifest = readTemplateManifest(connection, (ILocation) subLocation);
+                if (manifest != null) {
+                    referencedHashes.addAll(manifest.values());
+                }
+            }
+        }
+
+        int deleted = 0;
+        for (String contentHash : new HashSet<>(candidateHashes)) {
+            ILocation blobLocation = getBlobLocation(contentHash);
+            if (!referencedHashes.contains(contentHash) && connection.exists(blobLocation)) {
+                connection.delete(blobLocation);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private void storeBlob(@NotNull ZipFile zip, @NotNull TemplateExtractionPipeline.ExtractedEntry entry,
+                           @NotNull IRepositoryConnection connection, @NotNull Map<String, String> manifest,
+                           @NotNull BlobUpload upload, @NotNull EntryCounts counts) throws IOException {
+        if (entry.isDirectory()) {
+            return;
+        }
+
+        String contentHash;
+        if (entry.isBuffered()) {
+            contentHash = entry.sha256();
+        } else {
+            try (InputStream is = entry.openStream(zip)) {
+                contentHash = sha256(is);
+            }
+        }
+        manifest.put(entry.name(), contentHash);
+
+        if (!upload.pinnedBlobs.add(contentHash)) {
+            counts.unchanged++;
+            return;
+        }
+        try {
+            blobPins.pin(contentHash);
+        } catch (InterruptedException e) {
+            upload.pinnedBlobs.remove(contentHash);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the sweep of blob " + contentHash);
+        }
+        ILocation blobLocation = getBlobLocation(contentHash);
+        if (connection.exists(blobLocation)) {
+            counts.unchanged++;
+            return;
+        }
+        try (InputStream is = entry.openStream(zip)) {
+            connection.create(blobLocation, is);
+            counts.created++;
+        }
+    }
+
+    /**
+     * Blobs are spread over 256 folders by the first two hex digits of their hash to keep folder listings short.
+     */
+    @VisibleForTesting
+    @NotNull
+    static ILocation getBlobLocation(@NotNull String contentHash) {
+        return TEMPLATE_BLOBS_ROOT_REPO.append(contentHash.substring(0, 2)).append(contentHash);
+    }
+
+    private void syncExtractedEntry(@NotNull ZipFile zip, @NotNull TemplateExtractionPipeline.ExtractedEntry entry,
+                                    @NotNull IRepositoryConnection connection, @NotNull ILocation templateFolder,
+                                    @NotNull Map<String, String> storedManifest, @NotNull Map<String, String> manifest,
+                                    @NotNull Set<String> folders, @NotNull EntryCounts counts) throws IOException {
+        ILocation location = templateFolder.append(entry.name());
+        if (entry.isDirectory()) {
+            folders.add(entry.name());
+            if (!connection.exists(location)) {
+                connection.makeFolders(location);
+            }
+            return;
+        }
+
+        String contentHash;
+        if (entry.isBuffered()) {
+            contentHash = entry.sha256();
+        } else {
+            try (InputStream is = entry.openStream(zip)) {
+                contentHash = sha256(is);
+            }
+        }
+        manifest.put(entry.name(), contentHash);
+
+        String storedHash = storedManifest.get(entry.name());
+        if (contentHash.equals(storedHash)) {
+            counts.unchanged++;
+            return;
+        }
+        try (InputStream is = entry.openStream(zip)) {
+            if (storedHash != null || connection.exists(location)) {
+                connection.setContent(location, is);
+                counts.updated++;
+            } else {
+                connection.create(location, is);
+                counts.created++;
+            }
+        }
+    }
+
+    /**
+     * Deletes the folders of the deleted entries which are empty now, deepest first, so that a folder only holding emptied folders goes too.
+     *
+     * @param keptFolders folders listed as directory entries of the zip, kept even if empty
+     */
+    private static void deleteEmptyFolders(@NotNull IRepositoryConnection connection, @NotNull ILocation templateFolder,
+                                           @NotNull List<String> deletedEntries, @NotNull Set<String> keptFolders) {
+        Set<String> folders = new HashSet<>();
+        for (String entryName : deletedEntries) {
+            for (int separator = entryName.lastIndexOf('/'); separator > 0; separator = entryName.lastIndexOf('/', separator - 1)) {
+                folders.add(entryName.substring(0, separator));
+            }
+        }
+        List<String> deepestFirst = new ArrayList<>(folders);
+        deepestFirst.sort(Comparator.comparingLong((String folder) -> folder.chars().filter(c -> c == '/').count()).reversed());
+        for (String folder : deepestFirst) {
+            ILocation location = templateFolder.append(folder);
+            if (!keptFolders.contains(folder) && !keptFolders.contains(folder + "/")
+                    && connection.exists(location) && connection.getSubLocations(location, false).isEmpty()) {
+                connection.delete(location);
+            }
+        }
+    }
+
     @VisibleForTesting
     void saveTemplateHash(@NotNull IRepositoryConnection connection, @NotNull ILocation templateFolder,
                           @NotNull String templateHash) {
-        ILocation templateHashLocation = templateFolder.append(TEMPLATE_HASH_FILE);
-        try (InputStream inputStream = new ByteArrayInputStream(templateHash.getBytes(StandardCharsets.UTF_8))) {
-            if (connection.exists(templateHashLocation)) {
-                connection.setContent(templateHashLocation, inputStream);
+        saveTemplateFile(connection, templateFolder, TEMPLATE_HASH_FILE, templateHash);
+    }
+
+    private void saveTemplateFile(@NotNull IRepositoryConnection connection, @NotNull ILocation templateFolder,
+                                  @NotNull String fileName, @NotNull String content) {
+        ILocation location = templateFolder.append(fileName);
+        try (InputStream inputStream = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))) {
+            if (connection.exists(location)) {
+                connection.setContent(location, inputStream);
             } else {
-                connection.create(templateHashLocation, inputStream);
+                connection.create(location, inputStream);
             }
         } catch (IOException e) {
-            throw new TemplateProcessingException("Failed to save template hash for template: " + templateFolder.getLastComponent(), e);
+            throw new TemplateProcessingException("Failed to save " + fileName + " for template: " + templateFolder.getLastComponent(), e);
         }
     }
 
-    @SuppressWarnings("java:S5042")
-    private void extractZipEntries(byte @NotNull [] zipData,
-                                   @NotNull IRepositoryConnection connection, @NotNull ILocation templateFolder) throws IOException {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(zipData);
-             ZipInputStream zis = new ZipInputStream(bais, StandardCharsets.UTF_8)) {
+    /**
+     * Reads the content-hash manifest of a template: one {@code <sha-256>  <path>} line per file, as written by {@code sha256sum}.
+     *
+     * @return manifest entries by path, or null if the template has no manifest
+     */
+    @VisibleForTesting
+    @Nullable
+    Map<String, String> readTemplateManifest(@NotNull IRepositoryReadOnlyConnection connection, @NotNull ILocation templateFolder) {
+        ILocation manifestLocation = templateFolder.append(TEMPLATE_MANIFEST_FILE);
+        if (!connection.exists(manifestLocation)) {
+            return null;
+        }
 
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                processZipEntry(entry, zis, connection, templateFolder);
-                zis.closeEntry();
+        Map<String, String> manifest = new TreeMap<>();
+        try (InputStream is = connection.getContent(manifestLocation)) {
+            for (String line : new String(is.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                int separator = line.indexOf(MANIFEST_SEPARATOR);
+                if (separator > 0) {
+                    manifest.put(line.substring(separator + MANIFEST_SEPARATOR.length()), line.substring(0, separator));
+                }
             }
+        } catch (IOException e) {
+            throw new TemplateProcessingException("Failed to read template manifest: " + templateFolder.getLastComponent(), e);
         }
+        return manifest;
     }
 
-    private void processZipEntry(@NotNull ZipEntry entry, @NotNull ZipInputStream zis,
-                                 @NotNull IRepositoryConnection connection, @NotNull ILocation templateFolder) throws IOException {
-        String entryName = normalizeEntryName(entry.getName());
+    @NotNull
+    private static String formatManifest(@NotNull Map<String, String> manifest) {
+        StringBuilder content = new StringBuilder();
+        manifest.forEach((entryName, contentHash) -> content.append(contentHash).append(MANIFEST_SEPARATOR).append(entryName).append('\n'));
+        return content.toString();
+    }
 
-        if (entryName == null) {
-            return;
+    @NotNull
+    static String sha256(@NotNull InputStream is) throws IOException {
+        MessageDigest digest = newSha256Digest();
+        try (DigestInputStream dis = new DigestInputStream(is, digest)) {
+            dis.transferTo(OutputStream.nullOutputStream());
         }
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
-        ILocation fileLocation = templateFolder.append(entryName);
+    @NotNull
+    static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Inflates the entries on a background thread while the current thread writes them to the repository.
+     *
+     * @param manifest receives the content hashes of the extracted files by path
+     * @return stage timings of the extraction
+     */
+    @SuppressWarnings("java:S5042")
+    @NotNull
+    private TemplateImportTimings extractZipEntries(@NotNull Path zipFile, @NotNull IRepositoryConnection connection,
+                                                    @NotNull ILocation templateFolder, @NotNull Map<String, String> manifest) throws IOException {
+        try (ZipFile zip = new ZipFile(zipFile.toFile(), StandardCharsets.UTF_8)) {
+            return extractionPipeline.run(zip, this::templateEntryName,
+                    entry -> writeExtractedEntry(zip, entry, connection, templateFolder, manifest));
+        }
+    }
+
+    private void writeExtractedEntry(@NotNull ZipFile zip, @NotNull TemplateExtractionPipeline.ExtractedEntry entry,
+                                     @NotNull IRepositoryConnection connection, @NotNull ILocation templateFolder,
+                                     @NotNull Map<String, String> manifest) throws IOException {
+        ILocation fileLocation = templateFolder.append(entry.name());
 
         if (entry.isDirectory()) {
             connection.makeFolders(fileLocation);
+        } else if (entry.isBuffered()) {
+            try (InputStream is = entry.openStream(zip)) {
+                connection.create(fileLocation, is);
+            }
+            manifest.put(entry.name(), entry.sha256());
         } else {
-            byte[] content = StreamUtils.suckStream(zis, false);
-            connection.create(fileLocation, new ByteArrayInputStream(content));
+            MessageDigest digest = newSha256Digest();
+            try (DigestInputStream is = new DigestInputStream(entry.openStream(zip), digest)) {
+                connection.create(fileLocation, is);
+                is.transferTo(OutputStream.nullOutputStream());
+            }
+            manifest.put(entry.name(), HexFormat.of().formatHex(digest.digest()));
         }
     }
 
+    @Nullable
+    private String templateEntryName(@NotNull ZipEntry entry) {
+        String entryName = normalizeEntryName(entry.getName());
+        return entryName == null || entryName.equals(TEMPLATE_MANIFEST_FILE) ? null : entryName;
+    }
+
     @VisibleForTesting
     String normalizeEntryName(@Nullable String entryName) {
         if (entryName == null || entryName.isEmpty()) {
@@ -221,26 +1213,54 @@ public class ProjectTemplateService {
 
     @VisibleForTesting
     void createZipFromProject(@NotNull ILocation projectRepo, @NotNull ZipOutputStream zos) throws IOException {
+        createZipFromProject(projectRepo, GlobFilter.ALL, zos);
+    }
+
+    @VisibleForTesting
+    void createZipFromProject(@NotNull ILocation projectRepo, @NotNull GlobFilter filter, @NotNull ZipOutputStream zos) throws IOException {
+        collectZipEntries(projectRepo, filter, (entry, is) -> addEntryToZip(zos, is, entry));
+    }
+
+    /**
+     * Passes the filtered project content to the consumer, parent folders before their content.
+     * With include patterns a folder entry is only passed on once it turns out to contain an included file,
+     * so the archive does not fill up with empty folders.
+     */
+    private void collectZipEntries(@NotNull ILocation projectRepo, @NotNull GlobFilter filter, @NotNull ZipEntryConsumer consumer) throws IOException {
         IRepositoryConnection connection = repositoryService.getConnection(projectRepo);
 
         if (connection == null) {
             throw new IOException("Failed to establish repository connection for: " + projectRepo);
         }
 
-        for (Object object : connection.getSubLocations(projectRepo, true)) {
-            if (!(object instanceof ILocation location)) {
-                continue;
-            }
+        RepositoryTreeIterator nodes = filter.isAll()
+                ? new RepositoryTreeIterator(connection, projectRepo)
+                : new RepositoryTreeIterator(connection, projectRepo, node -> filter.accepts(relativePath(node.location(), projectRepo), node.folder()));
+        Deque<ZipEntry> pendingFolders = new ArrayDeque<>();
+        while (nodes.hasNext()) {
+            RepositoryTreeIterator.Node node = nodes.next();
+            ILocation location = node.location();
 
             try {
-                ZipEntry entry = createZipEntry(connection, location, projectRepo);
-                if (entry != null) {
-                    if (connection.isFile(location)) {
-                        try (InputStream is = connection.getContent(location)) {
-                            addEntryToZip(zos, is, entry);
-                        }
-                    } else {
-                        addEntryToZip(zos, null, entry);
+                ZipEntry entry = createZipEntry(location, projectRepo, node.folder());
+                if (filter.hasIncludes()) {
+                    while (!pendingFolders.isEmpty() && !entry.getName().startsWith(pendingFolders.peekLast().getName())) {
+                        pendingFolders.removeLast();
+                    }
+                    if (node.folder()) {
+                        pendingFolders.addLast(entry);
+                        continue;
+                    }
+                    while (!pendingFolders.isEmpty()) {
+                        consumer.accept(pendingFolders.removeFirst(), null);
+                    }
+                }
+
+                if (node.folder()) {
+                    consumer.accept(entry, null);
+                } else {
+                    try (InputStream is = connection.getContent(location)) {
+                        consumer.accept(entry, is);
                     }
                 }
             } catch (IOException e) {
@@ -250,20 +1270,15 @@ public class ProjectTemplateService {
     }
 
     @VisibleForTesting
-    @Nullable
-    ZipEntry createZipEntry(@NotNull IRepositoryConnection connection, @NotNull ILocation location,
-                            @NotNull ILocation projectRoot) {
-        String relativePath = location.getRelativeLocation(projectRoot).getLocationPath();
-
-        if (connection.isFolder(location)) {
-            return new ZipEntry(relativePath + "/");
-        }
-
-        if (connection.isFile(location)) {
-            return new ZipEntry(relativePath);
-        }
+    @NotNull
+    ZipEntry createZipEntry(@NotNull ILocation location, @NotNull ILocation projectRoot, boolean folder) {
+        String relativePath = relativePath(location, projectRoot);
+        return new ZipEntry(folder ? relativePath + "/" : relativePath);
+    }
 
-        return null;
+    @NotNull
+    private static String relativePath(@NotNull ILocation location, @NotNull ILocation projectRoot) {
+        return location.getRelativeLocation(projectRoot).getLocationPath();
     }
 
     @VisibleForTesting
@@ -294,7 +1309,7 @@ public class ProjectTemplateService {
         }
     }
 
-    private void validateProjectId(@Nullable String projectId) {
+    private static void validateProjectId(@Nullable String projectId) {
         if (projectId == null || projectId.trim().isEmpty()) {
             throw new IllegalArgumentException("Project ID cannot be null or empty");
         }
@@ -305,6 +1320,44 @@ public class ProjectTemplateService {
         }
     }
 
+    /**
+     * Blobs an upload references and blobs it dropped, to be unpinned and swept once its transaction has committed.
+     */
+    @VisibleForTesting
+    static final class BlobUpload {
+        private final Set<String> pinnedBlobs = new HashSet<>();
+        private final Set<String> orphanCandidates = new HashSet<>();
+
+        @VisibleForTesting
+        @NotNull
+        Set<String> getOrphanCandidates() {
+            return orphanCandidates;
+        }
+    }
+
+    private static final class EntryCounts {
+        private int created;
+        private int updated;
+        private int unchanged;
+    }
+
+    @FunctionalInterface
+    private interface ZipEntryConsumer {
+        void accept(@NotNull ZipEntry entry, @Nullable InputStream is) throws IOException;
+    }
+
+    /**
+     * Project folder and the revision of its last change. The revision identifies the content of a downloaded archive.
+     */
+    public record ProjectRevision(@NotNull ILocation location, @NotNull String revision) {
+    }
+
+    /**
+     * A file requested by its path relative to a template or project folder, and where its content is stored.
+     */
+    public record StoredFile(@NotNull String path, @NotNull ILocation location) {
+    }
+
     /**
      * Custom exception for template processing errors.
      */
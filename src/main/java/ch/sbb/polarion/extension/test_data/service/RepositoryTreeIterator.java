@@ -0,0 +1,72 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import com.polarion.platform.service.repository.IRepositoryReadOnlyConnection;
+import com.polarion.subterra.base.location.ILocation;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Walks a repository folder depth-first, parent folders before their content, without listing the whole tree up front.
+ * A folder's children are only listed when the walk descends into it, and every node costs exactly one
+ * {@link IRepositoryReadOnlyConnection#isFolder(ILocation)} call: the answer travels with the node, so callers never ask again.
+ * Anything that is not a folder is reported as a file.
+ * Nodes rejected by the filter are skipped, and so is the content of rejected folders.
+ */
+class RepositoryTreeIterator implements Iterator<RepositoryTreeIterator.Node> {
+
+    private final IRepositoryReadOnlyConnection connection;
+    private final Predicate<Node> filter;
+    private final Deque<Iterator<?>> openFolders = new ArrayDeque<>();
+    private Node next;
+
+    RepositoryTreeIterator(@NotNull IRepositoryReadOnlyConnection connection, @NotNull ILocation root) {
+        this(connection, root, node -> true);
+    }
+
+    RepositoryTreeIterator(@NotNull IRepositoryReadOnlyConnection connection, @NotNull ILocation root, @NotNull Predicate<Node> filter) {
+        this.connection = connection;
+        this.filter = filter;
+        openFolder(root);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !openFolders.isEmpty()) {
+            Iterator<?> children = openFolders.peek();
+            if (!children.hasNext()) {
+                openFolders.pop();
+            } else if (children.next() instanceof ILocation location) {
+                Node node = new Node(location, connection.isFolder(location));
+                if (filter.test(node)) {
+                    next = node;
+                }
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public @NotNull Node next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Node node = next;
+        next = null;
+        if (node.folder()) {
+            openFolder(node.location());
+        }
+        return node;
+    }
+
+    private void openFolder(@NotNull ILocation folder) {
+        openFolders.push(connection.getSubLocations(folder, false).iterator());
+    }
+
+    record Node(@NotNull ILocation location, boolean folder) {
+    }
+}
@@ -0,0 +1,202 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An archive which one download builds while streaming it, spooled to a temporary file so that concurrent downloads
+ * of the same project revision can stream it too. Readers follow the file as it grows, so they neither wait for the whole
+ * build nor depend on the archive fitting into memory.
+ * <p>
+ * The builder and every attached reader hold a reference, the file is deleted when the last one is released.
+ */
+public class SpooledArchive {
+
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    private @Nullable Path file;
+    private long length;
+    private boolean complete;
+    private boolean failed;
+    private int references = 1;
+
+    /**
+     * Creates the temporary file and returns a stream writing to it and then to {@code out}.
+     * Closing the returned stream does not close {@code out}.
+     */
+    @NotNull
+    OutputStream openWriter(@NotNull OutputStream out) throws IOException {
+        Path spoolFile = Files.createTempFile("project-archive-", ".zip");
+        OutputStream spool = new BufferedOutputStream(Files.newOutputStream(spoolFile), SPOOL_BUFFER_SIZE);
+        synchronized (this) {
+            file = spoolFile;
+        }
+        return new SpoolingOutputStream(spool, out);
+    }
+
+    synchronized void complete() {
+        complete = true;
+        notifyAll();
+    }
+
+    synchronized void fail() {
+        failed = true;
+        notifyAll();
+    }
+
+    /**
+     * @return false if the archive is already released and its file deleted
+     */
+    synchronized boolean attach() {
+        if (references == 0) {
+            return false;
+        }
+        references++;
+        return true;
+    }
+
+    void release() {
+        Path deletedFile;
+        synchronized (this) {
+            if (--references > 0 || file == null) {
+                return;
+            }
+            deletedFile = file;
+        }
+        try {
+            Files.deleteIfExists(deletedFile);
+        } catch (IOException ignored) {
+            // Swallow exceptions during cleanup
+        }
+    }
+
+    /**
+     * Copies the archive into the output stream while it is being built, until the build completes.
+     *
+     * @return false if the build failed before anything was copied, so the caller can build the archive itself
+     * @throws IOException if the build fails after a part of the archive was copied, or copying fails
+     */
+    boolean copyTo(@NotNull OutputStream out) throws IOException {
+        byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+        long copied = 0;
+        InputStream in = null;
+        try {
+            while (true) {
+                long available = awaitBytes(copied);
+                if (available < 0) {
+                    if (copied == 0) {
+                        return false;
+                    }
+                    throw new IOException("The shared build of the archive failed");
+                }
+                if (available == 0) {
+                    break;
+                }
+                if (in == null) {
+                    in = Files.newInputStream(getFile());
+                }
+                while (available > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, available));
+                    if (read < 0) {
+                        throw new EOFException("The spooled archive is shorter than written");
+                    }
+                    out.write(buffer, 0, read);
+                    copied += read;
+                    available -= read;
+                }
+            }
+            out.flush();
+            return true;
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * @return number of spooled bytes beyond {@code copied}, 0 once the build is complete and everything was copied, -1 if it failed
+     */
+    private synchronized long awaitBytes(long copied) throws IOException {
+        try {
+            while (length == copied && !complete && !failed) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the shared build of the archive", e);
+        }
+        return failed ? -1 : length - copied;
+    }
+
+    private synchronized @NotNull Path getFile() {
+        if (file == null) {
+            throw new IllegalStateException("The archive has no spool file");
+        }
+        return file;
+    }
+
+    private synchronized void spooled(long bytes) {
+        length += bytes;
+        notifyAll();
+    }
+
+    /**
+     * Writes to the spool file before the builder's client and publishes the spooled bytes to readers every {@link #SPOOL_BUFFER_SIZE} bytes and on flush.
+     */
+    private final class SpoolingOutputStream extends FilterOutputStream {
+
+        private final OutputStream spool;
+        private long unpublished;
+
+        SpoolingOutputStream(@NotNull OutputStream spool, @NotNull OutputStream out) {
+            super(out);
+            this.spool = spool;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte @NotNull [] b, int off, int len) throws IOException {
+            spool.write(b, off, len);
+            unpublished += len;
+            if (unpublished >= SPOOL_BUFFER_SIZE) {
+                publish();
+            }
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            publish();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                publish();
+            } finally {
+                spool.close();
+            }
+        }
+
+        private void publish() throws IOException {
+            spool.flush();
+            spooled(unpublished);
+            unpublished = 0;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import ch.sbb.polarion.extension.test_data.rest.model.TemplateImportTimings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Two-stage extraction of a template ZIP: a background thread inflates and hashes the entries into a bounded queue,
+ * while the calling thread takes them from the queue and writes them to the repository.
+ * <p>
+ * Repository calls stay on the calling thread, which owns the repository connection, and overlap with the decompression
+ * of the following entries. At most {@code queueCapacity} entries are held in memory. Entries larger than
+ * {@code maxBufferedEntrySize} are not buffered, the writer streams them from the ZIP file itself.
+ */
+class TemplateExtractionPipeline {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 16;
+    static final int DEFAULT_MAX_BUFFERED_ENTRY_SIZE = 4 * 1024 * 1024;
+    private static final long POLL_MILLIS = 50;
+
+    private static final ExtractedEntry END = new ExtractedEntry("", new ZipEntry("/"), null, null);
+
+    private final int queueCapacity;
+    private final int maxBufferedEntrySize;
+
+    TemplateExtractionPipeline() {
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BUFFERED_ENTRY_SIZE);
+    }
+
+    TemplateExtractionPipeline(int queueCapacity, int maxBufferedEntrySize) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be a natural number");
+        }
+        if (maxBufferedEntrySize < 0) {
+            throw new IllegalArgumentException("maxBufferedEntrySize must not be negative");
+        }
+        this.queueCapacity = queueCapacity;
+        this.maxBufferedEntrySize = maxBufferedEntrySize;
+    }
+
+    /**
+     * Passes the entries of the ZIP file to the writer in archive order.
+     *
+     * @param entryNames maps an entry to its target path, null to skip the entry
+     * @param writer     called on the current thread for every entry that is not skipped
+     * @return time spent in and waited for by both stages
+     * @throws IOException if the ZIP file cannot be read or the writer fails
+     */
+    @NotNull
+    TemplateImportTimings run(@NotNull ZipFile zip, @NotNull Function<ZipEntry, String> entryNames, @NotNull EntryWriter writer) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<ExtractedEntry> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Decompressor decompressor = new Decompressor(zip, entryNames, queue);
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "template-extraction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<Void> decompression = executor.submit(decompressor);
+            long writeNanos = 0;
+            long writeWaitNanos = 0;
+            while (true) {
+                long waitStart = System.nanoTime();
+                ExtractedEntry entry = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                long writeStart = System.nanoTime();
+                writeWaitNanos += writeStart - waitStart;
+                if (entry == null) {
+                    // END is only sent on success, a failed decompression is noticed through its future
+                    if (decompression.isDone() && queue.isEmpty()) {
+                        decompression.get();
+                        throw new IOException("Template extraction ended before all entries were read");
+                    }
+                    continue;
+                }
+                if (entry == END) {
+                    break;
+                }
+                writer.write(entry);
+                writeNanos += System.nanoTime() - writeStart;
+            }
+            decompression.get();
+            return new TemplateImportTimings(
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    TimeUnit.NANOSECONDS.toMillis(decompressor.decompressNanos),
+                    TimeUnit.NANOSECONDS.toMillis(decompressor.waitNanos),
+                    TimeUnit.NANOSECONDS.toMillis(writeNanos),
+                    TimeUnit.NANOSECONDS.toMillis(writeWaitNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Template extraction was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to decompress template entries", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    interface EntryWriter {
+        void write(@NotNull ExtractedEntry entry) throws IOException;
+    }
+
+    /**
+     * A ZIP entry on its way to the repository. Files up to the buffering limit carry their inflated content and its SHA-256,
+     * larger files and directories carry neither.
+     */
+    record ExtractedEntry(@NotNull String name, @NotNull ZipEntry zipEntry, byte @Nullable [] content, @Nullable String sha256) {
+
+        boolean isDirectory() {
+            return zipEntry.isDirectory();
+        }
+
+        boolean isBuffered() {
+            return content != null;
+        }
+
+        @NotNull
+        InputStream openStream(@NotNull ZipFile zip) throws IOException {
+            return content != null ? new ByteArrayInputStream(content) : zip.getInputStream(zipEntry);
+        }
+    }
+
+    private class Decompressor implements Callable<Void> {
+
+        private final ZipFile zip;
+        private final Function<ZipEntry, String> entryNames;
+        private final BlockingQueue<ExtractedEntry> queue;
+        private long decompressNanos;
+        private long waitNanos;
+
+        Decompressor(@NotNull ZipFile zip, @NotNull Function<ZipEntry, String> entryNames, @NotNull BlockingQueue<ExtractedEntry> queue) {
+            this.zip = zip;
+            this.entryNames = entryNames;
+            this.queue = queue;
+        }
+
+        @Override
+        public Void call() throws IOException, InterruptedException {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                long start = System.nanoTime();
+                ZipEntry zipEntry = entries.nextElement();
+                String name = entryNames.apply(zipEntry);
+                if (name == null) {
+                    decompressNanos += System.nanoTime() - start;
+                    continue;
+                }
+                ExtractedEntry entry = extract(zipEntry, name);
+                long putStart = System.nanoTime();
+                decompressNanos += putStart - start;
+                queue.put(entry);
+                waitNanos += System.nanoTime() - putStart;
+            }
+            // only sent when all entries were queued: after a failure of the writer nobody takes from the queue any more,
+            // and the interrupt of shutdownNow() ends a put() waiting on the full queue
+            queue.put(END);
+            return null;
+        }
+
+        @NotNull
+        private ExtractedEntry extract(@NotNull ZipEntry zipEntry, @NotNull String name) throws IOException {
+            if (zipEntry.isDirectory() || zipEntry.getSize() < 0 || zipEntry.getSize() > maxBufferedEntrySize) {
+                return new ExtractedEntry(name, zipEntry, null, null);
+            }
+            MessageDigest digest = ProjectTemplateService.newSha256Digest();
+            try (DigestInputStream is = new DigestInputStream(zip.getInputStream(zipEntry), digest)) {
+                byte[] content = is.readAllBytes();
+                return new ExtractedEntry(name, zipEntry, content, HexFormat.of().formatHex(digest.digest()));
+            }
+        }
+    }
+}
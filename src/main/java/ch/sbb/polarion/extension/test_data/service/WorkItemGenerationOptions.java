@@ -0,0 +1,25 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import ch.sbb.polarion.extension.test_data.util.ContentPool;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Parameters of work item generation in a document.
+ *
+ * @param quantity        number of work items to create
+ * @param batchSize       number of work items created per write transaction
+ * @param seed            seed of the generated content, {@code null} for non-reproducible content
+ * @param contentPoolSize number of pre-generated description fragments, 0 to generate every description from scratch
+ */
+public record WorkItemGenerationOptions(int quantity, int batchSize, @Nullable Long seed, int contentPoolSize) {
+
+    public WorkItemGenerationOptions {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity must be a natural number");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be a natural number");
+        }
+        ContentPool.validateSize(contentPoolSize);
+    }
+}
@@ -0,0 +1,80 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import ch.sbb.polarion.extension.test_data.util.WorkItemProjections;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of the work item projections of documents, bounded by the total number of cached work items.
+ * The projections are kept per document together with the repository revision they were read at,
+ * so a new commit to the document makes them stale and the next read replaces them.
+ */
+public class WorkItemProjectionCache {
+
+    private static final int DEFAULT_MAX_WORK_ITEMS = 500_000;
+
+    private final int maxWorkItems;
+    private final int maxDocumentWorkItems;
+    private final LinkedHashMap<String, CachedProjections> documents = new LinkedHashMap<>(16, 0.75f, true);
+    private int totalWorkItems;
+
+    @VisibleForTesting
+    WorkItemProjectionCache(int maxWorkItems) {
+        if (maxWorkItems < 0) {
+            throw new IllegalArgumentException("maxWorkItems must not be negative");
+        }
+        this.maxWorkItems = maxWorkItems;
+        this.maxDocumentWorkItems = maxWorkItems / 4;
+    }
+
+    public static @NotNull WorkItemProjectionCache getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * @return the projections read at the given revision of the document, or null if they are not cached
+     */
+    public synchronized @Nullable WorkItemProjections get(@NotNull String documentKey, @NotNull String revision) {
+        CachedProjections cached = documents.get(documentKey);
+        return cached != null && cached.revision().equals(revision) ? cached.workItems() : null;
+    }
+
+    /**
+     * Caches the projections, replacing the projections of an older revision of the same document
+     * and evicting the least recently used documents until the size budget is met.
+     * Documents with more than a quarter of the budget are not cached, so that one huge document cannot evict all others.
+     */
+    public synchronized void put(@NotNull String documentKey, @NotNull String revision, @NotNull WorkItemProjections workItems) {
+        if (workItems.size() > maxDocumentWorkItems) {
+            return;
+        }
+        CachedProjections previous = documents.put(documentKey, new CachedProjections(revision, workItems));
+        if (previous != null) {
+            totalWorkItems -= previous.workItems().size();
+        }
+        totalWorkItems += workItems.size();
+
+        Iterator<Map.Entry<String, CachedProjections>> iterator = documents.entrySet().iterator();
+        while (totalWorkItems > maxWorkItems && iterator.hasNext()) {
+            totalWorkItems -= iterator.next().getValue().workItems().size();
+            iterator.remove();
+        }
+    }
+
+    @VisibleForTesting
+    synchronized int getTotalWorkItems() {
+        return totalWorkItems;
+    }
+
+    private record CachedProjections(@NotNull String revision, @NotNull WorkItemProjections workItems) {
+    }
+
+    private static final class InstanceHolder {
+        private static final WorkItemProjectionCache INSTANCE = new WorkItemProjectionCache(DEFAULT_MAX_WORK_ITEMS);
+    }
+}
@@ -0,0 +1,67 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import ch.sbb.polarion.extension.generic.service.PolarionService;
+import ch.sbb.polarion.extension.test_data.util.WorkItemProjections;
+import com.polarion.alm.tracker.model.IWorkItem;
+import com.polarion.platform.service.repository.IRepositoryReadOnlyConnection;
+import com.polarion.subterra.base.location.ILocation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Reads the work items of documents as {@link WorkItemProjections}, served from the {@link WorkItemProjectionCache}
+ * as long as the document folder has not changed in the repository.
+ * Generators refer to work items through the projections and only load the work items they modify, one at a time, by id.
+ */
+public class WorkItemProjectionService {
+
+    private final PolarionService polarionService;
+    private final WorkItemProjectionCache cache;
+
+    public WorkItemProjectionService(@NotNull PolarionService polarionService) {
+        this(polarionService, WorkItemProjectionCache.getInstance());
+    }
+
+    @VisibleForTesting
+    public WorkItemProjectionService(@NotNull PolarionService polarionService, @NotNull WorkItemProjectionCache cache) {
+        this.polarionService = polarionService;
+        this.cache = cache;
+    }
+
+    /**
+     * The revision is read before the work items, so projections read while a commit lands are cached under the older revision
+     * and replaced by the next read.
+     */
+    public @NotNull WorkItemProjections getWorkItems(@NotNull String projectId, @NotNull String spaceId, @NotNull String documentName) {
+        String documentKey = projectId + "/" + spaceId + "/" + documentName;
+        String revision = getDocumentRevision(projectId, spaceId, documentName);
+        if (revision != null) {
+            WorkItemProjections cached = cache.get(documentKey, revision);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        WorkItemProjections workItems = WorkItemProjections.of(polarionService.getModule(projectId, spaceId, documentName).getAllWorkItems());
+        if (revision != null) {
+            cache.put(documentKey, revision, workItems);
+        }
+        return workItems;
+    }
+
+    public @NotNull IWorkItem getWorkItem(@NotNull WorkItemProjections workItems, int index) {
+        return polarionService.getTrackerService().getWorkItem(workItems.projectId(index), workItems.id(index));
+    }
+
+    /**
+     * The document folder is resolved from the project location, so projects placed in project groups are found as well.
+     *
+     * @return last revision of the document folder, which also holds the work items of the document, or null if the folder is not found
+     */
+    private @Nullable String getDocumentRevision(@NotNull String projectId, @NotNull String spaceId, @NotNull String documentName) {
+        ILocation documentLocation = polarionService.getTrackerProject(projectId).getLocation().append("modules/" + spaceId + "/" + documentName);
+        IRepositoryReadOnlyConnection connection = polarionService.getReadOnlyConnection(documentLocation);
+        return connection.exists(documentLocation) ? connection.getLastRevision(documentLocation) : null;
+    }
+}
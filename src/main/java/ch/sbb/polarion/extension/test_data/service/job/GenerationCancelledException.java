@@ -0,0 +1,7 @@
+package ch.sbb.polarion.extension.test_data.service.job;
+
+public class GenerationCancelledException extends RuntimeException {
+    public GenerationCancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,128 @@
+package ch.sbb.polarion.extension.test_data.service.job;
+
+import ch.sbb.polarion.extension.test_data.rest.model.GenerationJobState;
+import ch.sbb.polarion.extension.test_data.rest.model.GenerationJobStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of a single asynchronous generation job. Updated by the worker thread, read by status requests.
+ */
+public class GenerationJob implements GenerationProgress {
+
+    private final String id;
+    private final String type;
+    private final String owner;
+    private final AtomicLong itemsDone = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+
+    private volatile GenerationJobState state = GenerationJobState.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Object result;
+
+    /**
+     * @param owner id of the user who submitted the job, null if it was submitted without an authenticated user
+     */
+    public GenerationJob(@NotNull String id, @NotNull String type, @Nullable String owner) {
+        this.id = id;
+        this.type = type;
+        this.owner = owner;
+    }
+
+    public @NotNull String getId() {
+        return id;
+    }
+
+    public @Nullable String getOwner() {
+        return owner;
+    }
+
+    public @NotNull GenerationJobState getState() {
+        return state;
+    }
+
+    public @Nullable Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return state == GenerationJobState.SUCCEEDED || state == GenerationJobState.FAILED || state == GenerationJobState.CANCELLED;
+    }
+
+    /**
+     * Requests cooperative cancellation, the job stops at its next {@link #checkCancelled()}.
+     *
+     * @return false if the job has already finished, so there is nothing left to cancel
+     */
+    public synchronized boolean requestCancel() {
+        if (isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    @Override
+    public void itemsProcessed(int count) {
+        itemsDone.addAndGet(count);
+    }
+
+    @Override
+    public void committed() {
+        commits.incrementAndGet();
+    }
+
+    @Override
+    public void checkCancelled() {
+        if (cancelRequested) {
+            throw new GenerationCancelledException("Job " + id + " was cancelled");
+        }
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        state = GenerationJobState.RUNNING;
+    }
+
+    void markSucceeded(@Nullable Object jobResult) {
+        result = jobResult;
+        finish(GenerationJobState.SUCCEEDED);
+    }
+
+    void markCancelled() {
+        finish(GenerationJobState.CANCELLED);
+    }
+
+    void markFailed(@NotNull Throwable throwable) {
+        error = throwable.getMessage() != null ? throwable.getMessage() : throwable.getClass().getName();
+        finish(GenerationJobState.FAILED);
+    }
+
+    private synchronized void finish(@NotNull GenerationJobState finalState) {
+        finishedAt = Instant.now();
+        state = finalState;
+    }
+
+    public @NotNull GenerationJobStatus toStatus() {
+        Instant start = startedAt;
+        Instant end = finishedAt;
+        long done = itemsDone.get();
+
+        double itemsPerSecond = 0;
+        if (start != null) {
+            long elapsedMillis = (end != null ? end : Instant.now()).toEpochMilli() - start.toEpochMilli();
+            itemsPerSecond = elapsedMillis > 0 ? done * 1000.0 / elapsedMillis : 0;
+        }
+
+        return new GenerationJobStatus(id, type, state, done, commits.get(), itemsPerSecond,
+                start != null ? start.toString() : null,
+                end != null ? end.toString() : null,
+                error, result);
+    }
+}
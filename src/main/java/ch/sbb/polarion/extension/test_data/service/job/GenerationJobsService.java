@@ -0,0 +1,122 @@
+package ch.sbb.polarion.extension.test_data.service.job;
+
+import com.polarion.platform.core.PlatformContext;
+import com.polarion.platform.security.ISecurityService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.security.auth.Subject;
+import java.security.PrivilegedAction;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs generation jobs on a bounded executor so that long generations do not hold HTTP threads.
+ * Jobs run on behalf of the user who submitted them and are kept for a while after they finish,
+ * so their final status can still be queried. Only the submitting user can see a job.
+ */
+public class GenerationJobsService {
+
+    private static final int WORKER_THREADS = 4;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final Duration FINISHED_JOBS_RETENTION = Duration.ofHours(24);
+
+    private final ISecurityService securityService;
+    private final ExecutorService executor;
+    private final Map<String, GenerationJob> jobs = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    GenerationJobsService(@NotNull ISecurityService securityService, @NotNull ExecutorService executor) {
+        this.securityService = securityService;
+        this.executor = executor;
+    }
+
+    public static @NotNull GenerationJobsService getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Queues the work and returns immediately.
+     *
+     * @param type a short name of the generation, reported back in the job status
+     * @param work the generation itself; it must report progress to and check cancellation on the given {@link GenerationProgress}
+     * @return the queued job
+     * @throws RejectedExecutionException if too many jobs are already queued
+     */
+    public @NotNull GenerationJob submit(@NotNull String type, @NotNull Function<GenerationProgress, Object> work) {
+        evictExpiredJobs();
+
+        GenerationJob job = new GenerationJob(UUID.randomUUID().toString(), type, securityService.getCurrentUser());
+        Subject userSubject = securityService.getCurrentSubject();
+
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> securityService.doAsUser(userSubject, (PrivilegedAction<Void>) () -> {
+                run(job, work);
+                return null;
+            }));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * @return the job, or null if there is no job with this id or it was submitted by another user
+     */
+    public @Nullable GenerationJob getJob(@NotNull String jobId) {
+        GenerationJob job = jobs.get(jobId);
+        if (job == null || !Objects.equals(job.getOwner(), securityService.getCurrentUser())) {
+            return null;
+        }
+        return job;
+    }
+
+    @SuppressWarnings("java:S1181") // the job must record any failure, otherwise it would stay RUNNING forever
+    private static void run(@NotNull GenerationJob job, @NotNull Function<GenerationProgress, Object> work) {
+        try {
+            job.checkCancelled();
+            job.markRunning();
+            job.markSucceeded(work.apply(job));
+        } catch (GenerationCancelledException e) {
+            job.markCancelled();
+        } catch (Throwable e) {
+            job.markFailed(e);
+        }
+    }
+
+    private void evictExpiredJobs() {
+        Instant threshold = Instant.now().minus(FINISHED_JOBS_RETENTION);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() != null && job.getFinishedAt().isBefore(threshold));
+    }
+
+    private static @NotNull ExecutorService createExecutor() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "test-data-generation-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), threadFactory);
+    }
+
+    private static final class InstanceHolder {
+        private static final GenerationJobsService INSTANCE = new GenerationJobsService(
+                PlatformContext.getPlatform().lookupService(ISecurityService.class), createExecutor());
+    }
+}
@@ -0,0 +1,34 @@
+package ch.sbb.polarion.extension.test_data.service.job;
+
+/**
+ * Receives progress of a long-running generation and lets it be cancelled cooperatively.
+ * Services call {@link #checkCancelled()} between write transactions, never inside one.
+ */
+public interface GenerationProgress {
+
+    GenerationProgress NONE = new GenerationProgress() {
+        @Override
+        public void itemsProcessed(int count) {
+            // progress is not tracked
+        }
+
+        @Override
+        public void committed() {
+            // progress is not tracked
+        }
+
+        @Override
+        public void checkCancelled() {
+            // cannot be cancelled
+        }
+    };
+
+    void itemsProcessed(int count);
+
+    void committed();
+
+    /**
+     * @throws GenerationCancelledException if cancellation of the generation was requested
+     */
+    void checkCancelled();
+}
@@ -0,0 +1,122 @@
+package ch.sbb.polarion.extension.test_data.service.job;
+
+import com.polarion.platform.core.PlatformContext;
+import com.polarion.platform.security.ISecurityService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.security.auth.Subject;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent tasks on a short-lived pool of at most {@code parallelism} threads.
+ * Every task runs on behalf of the user who called {@link #invokeAll(List, int)}.
+ * <p>
+ * Workers are never interrupted, a task may be in the middle of a write transaction.
+ */
+public class ParallelTaskRunner {
+
+    private final ISecurityService securityService;
+
+    public ParallelTaskRunner() {
+        this(PlatformContext.getPlatform().lookupService(ISecurityService.class));
+    }
+
+    @VisibleForTesting
+    public ParallelTaskRunner(@NotNull ISecurityService securityService) {
+        this.securityService = securityService;
+    }
+
+    /**
+     * Runs all tasks and waits for them to finish.
+     * Once a task fails, the tasks which have not started yet are skipped, the running ones are finished
+     * and then the failure of the first failed task in task order is rethrown.
+     *
+     * @return results in the order of the tasks
+     */
+    public @NotNull <T> List<T> invokeAll(@NotNull List<Supplier<T>> tasks, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be a natural number");
+        }
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+
+        Subject userSubject = securityService.getCurrentSubject();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()), createThreadFactory());
+        try {
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Supplier<T> task : tasks) {
+                futures.add(executor.submit(() -> runUnlessCancelled(userSubject, task, cancelled)));
+            }
+
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : futures) {
+                results.add(getResult(future, cancelled));
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+    }
+
+    private <T> T runUnlessCancelled(@NotNull Subject userSubject, @NotNull Supplier<T> task, @NotNull AtomicBoolean cancelled) {
+        if (cancelled.get()) {
+            return null;
+        }
+        try {
+            return securityService.doAsUser(userSubject, (PrivilegedAction<T>) task::get);
+        } catch (RuntimeException | Error e) {
+            cancelled.set(true);
+            throw e;
+        }
+    }
+
+    private static <T> T getResult(@NotNull Future<T> future, @NotNull AtomicBoolean cancelled) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for parallel tasks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Waits for the running tasks however long their transactions take, unless the calling thread is interrupted. The tasks finish anyway, the workers are daemon threads.
+     */
+    private static void awaitTermination(@NotNull ExecutorService executor) {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static @NotNull ThreadFactory createThreadFactory() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "test-data-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
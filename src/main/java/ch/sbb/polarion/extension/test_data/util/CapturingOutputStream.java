@@ -0,0 +1,54 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream which passes everything to the wrapped stream and keeps a copy of the written bytes,
+ * as long as they do not exceed {@code maxCapturedBytes}. Closing it closes the wrapped stream.
+ */
+public class CapturingOutputStream extends FilterOutputStream {
+
+    private final int maxCapturedBytes;
+    private @Nullable ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+    public CapturingOutputStream(@NotNull OutputStream out, int maxCapturedBytes) {
+        super(out);
+        this.maxCapturedBytes = maxCapturedBytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        capture(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte @NotNull [] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        capture(b, off, len);
+    }
+
+    /**
+     * @return the written bytes, or null if there were more than {@code maxCapturedBytes}
+     */
+    public byte @Nullable [] getCapturedBytes() {
+        return captured == null ? null : captured.toByteArray();
+    }
+
+    private void capture(byte @NotNull [] b, int off, int len) {
+        if (captured == null) {
+            return;
+        }
+        if (captured.size() + (long) len > maxCapturedBytes) {
+            captured = null;
+        } else {
+            captured.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Pre-generated HTML text and image fragments of work item descriptions.
+ * <p>
+ * The pool is built once per generation job and shared between all documents of the job, work items pick random fragments
+ * from it instead of building a fresh description every time. The pool is immutable and can be used from several threads.
+ * Work item links are not pooled as they refer to the work items of the document being generated.
+ */
+public final class ContentPool {
+
+    public static final int MAX_SIZE = 10_000;
+
+    private final String[] htmlTexts;
+    private final String[] htmlImages;
+
+    private ContentPool(@NotNull String[] htmlTexts, @NotNull String[] htmlImages) {
+        this.htmlTexts = htmlTexts;
+        this.htmlImages = htmlImages;
+    }
+
+    /**
+     * Builds a pool of {@code size} text and {@code size} image fragments, returns {@code null} if {@code size} is 0 (pool disabled).
+     */
+    public static @Nullable ContentPool create(int size, @Nullable Long seed) {
+        validateSize(size);
+        if (size == 0) {
+            return null;
+        }
+
+        RandomGenerator random = RandomStreams.forKey(seed, "content-pool");
+        HtmlDescriptionBuilder fragment = new HtmlDescriptionBuilder();
+        String[] htmlTexts = new String[size];
+        String[] htmlImages = new String[size];
+        for (int i = 0; i < size; i++) {
+            htmlTexts[i] = fragment.reset().appendRandomHtmlText(random).toString();
+            htmlImages[i] = fragment.reset().appendRandomHtmlImages(random).toString();
+        }
+        return new ContentPool(htmlTexts, htmlImages);
+    }
+
+    /**
+     * @throws IllegalArgumentException if size is not between 0 and {@link #MAX_SIZE}
+     */
+    public static void validateSize(int size) {
+        if (size < 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("contentPoolSize must be between 0 and " + MAX_SIZE);
+        }
+    }
+
+    public int size() {
+        return htmlTexts.length;
+    }
+
+    public @NotNull String htmlText(@NotNull RandomGenerator random) {
+        return htmlTexts[random.nextInt(htmlTexts.length)];
+    }
+
+    public @NotNull String htmlImages(@NotNull RandomGenerator random) {
+        return htmlImages[random.nextInt(htmlImages.length)];
+    }
+}
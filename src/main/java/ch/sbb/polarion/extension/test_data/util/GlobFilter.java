@@ -0,0 +1,178 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Include/exclude filter for relative repository paths ({@code /}-separated, without leading slash).
+ * <p>
+ * Glob syntax: {@code *} matches within one path segment, {@code ?} matches one character of a segment,
+ * {@code **} matches across segments, so {@code **}{@code /*.xml} matches XML files at any depth.
+ * A pattern ending with {@code /**} also matches the folder itself, so excluding {@code attachments/**} skips the whole folder.
+ * <p>
+ * A path is accepted if it matches no exclude pattern and, when include patterns are given, matches one of them.
+ * Folders are accepted as long as they are not excluded and may contain included paths, so whole subtrees can be skipped without being listed:
+ * excluding {@code **}{@code /attachments/**} skips every {@code attachments} folder, including {@code *.xml} skips all folders.
+ * Whether a folder may contain included paths is decided segment by segment, the leading segments of an include pattern
+ * up to its first {@code **} have to match the folder's segments.
+ */
+public final class GlobFilter {
+
+    public static final GlobFilter ALL = new GlobFilter(List.of(), List.of());
+
+    private final List<String> includeGlobs;
+    private final List<String> excludeGlobs;
+    private final List<Pattern> includes;
+    private final List<Pattern> excludes;
+    private final List<List<Pattern>> includeSegments;
+
+    private GlobFilter(@NotNull List<String> includeGlobs, @NotNull List<String> excludeGlobs) {
+        this.includeGlobs = includeGlobs;
+        this.excludeGlobs = excludeGlobs;
+        this.includes = includeGlobs.stream().map(GlobFilter::toPattern).toList();
+        this.excludes = excludeGlobs.stream().map(GlobFilter::toPattern).toList();
+        this.includeSegments = includeGlobs.stream().map(GlobFilter::toSegmentPatterns).toList();
+    }
+
+    /**
+     * @param include glob patterns of the paths to keep, all paths are kept if null or empty
+     * @param exclude glob patterns of the paths to skip
+     * @throws IllegalArgumentException if a pattern contains {@code ..}
+     */
+    public static @NotNull GlobFilter of(@Nullable List<String> include, @Nullable List<String> exclude) {
+        List<String> includeGlobs = normalize(include);
+        List<String> excludeGlobs = normalize(exclude);
+        return includeGlobs.isEmpty() && excludeGlobs.isEmpty() ? ALL : new GlobFilter(includeGlobs, excludeGlobs);
+    }
+
+    public boolean isAll() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+
+    public boolean hasIncludes() {
+        return !includes.isEmpty();
+    }
+
+    public boolean accepts(@NotNull String path, boolean folder) {
+        if (matchesAny(excludes, path)) {
+            return false;
+        }
+        if (includes.isEmpty()) {
+            return true;
+        }
+        return folder ? mayContainIncluded(path) : matchesAny(includes, path);
+    }
+
+    /**
+     * Short stable identifier of the patterns, for cache keys and entity tags.
+     */
+    public @NotNull String fingerprint() {
+        if (isAll()) {
+            return "";
+        }
+        String description = "include=" + String.join("\n", includeGlobs) + "\nexclude=" + String.join("\n", excludeGlobs);
+        return UUID.nameUUIDFromBytes(description.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private boolean mayContainIncluded(@NotNull String folderPath) {
+        String[] folderSegments = folderPath.split("/");
+        for (int i = 0; i < includeSegments.size(); i++) {
+            if (mayContain(includeSegments.get(i), folderSegments) || includes.get(i).matcher(folderPath).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param globSegments segment patterns of an include pattern, null standing for {@code **}
+     * @return true if paths below the folder can match the pattern
+     */
+    private static boolean mayContain(@NotNull List<Pattern> globSegments, @NotNull String[] folderSegments) {
+        for (int segment = 0; segment < folderSegments.length; segment++) {
+            Pattern globSegment = globSegments.get(segment);
+            if (globSegment == null) {
+                return true;
+            }
+            // the last segment of the pattern matches the folder itself at best, not its content
+            if (segment == globSegments.size() - 1 || !globSegment.matcher(folderSegments[segment]).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesAny(@NotNull List<Pattern> patterns, @NotNull String path) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static @NotNull List<String> normalize(@Nullable List<String> globs) {
+        if (globs == null) {
+            return List.of();
+        }
+        return globs.stream()
+                .filter(glob -> glob != null && !glob.isBlank())
+                .map(glob -> {
+                    String normalized = glob.trim().replace('\\', '/');
+                    while (normalized.startsWith("/")) {
+                        normalized = normalized.substring(1);
+                    }
+                    if (normalized.contains("..")) {
+                        throw new IllegalArgumentException("Glob pattern must not contain '..': " + glob);
+                    }
+                    return normalized;
+                })
+                .toList();
+    }
+
+    /**
+     * Splits a pattern into per-segment patterns, a segment containing {@code **} may span several folders and becomes null.
+     */
+    private static @NotNull List<Pattern> toSegmentPatterns(@NotNull String glob) {
+        List<Pattern> segments = new ArrayList<>();
+        for (String segment : glob.split("/", -1)) {
+            segments.add(segment.contains("**") ? null : toPattern(segment));
+        }
+        return segments;
+    }
+
+    @SuppressWarnings("java:S3776")
+    private static @NotNull Pattern toPattern(@NotNull String glob) {
+        StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            if (glob.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 3;
+            } else if (glob.startsWith("/**", i) && i + 3 == glob.length()) {
+                regex.append("(?:/.*)?");
+                i += 3;
+            } else if (glob.startsWith("**", i)) {
+                regex.append(".*");
+                i += 2;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+                i++;
+            } else if (c == '?') {
+                regex.append("[^/]");
+                i++;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+                i++;
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
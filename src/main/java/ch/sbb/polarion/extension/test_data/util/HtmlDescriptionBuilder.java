@@ -0,0 +1,238 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import com.polarion.alm.tracker.model.IWorkItem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import static ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils.IMAGE_DIMENSION_MIN_SIZE;
+import static ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils.IMAGE_HEIGHT_BOUND;
+import static ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils.IMAGE_WIDTH_BOUND;
+import static ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils.MINIMAL_COUNT;
+import static ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils.NUMBER_OF_ELEMENTS_BOUND;
+import static ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils.NUMBER_OF_IMAGES_BOUND;
+import static ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils.NUMBER_OF_SHAPES;
+
+/**
+ * Appends generated HTML (text, SVG images and work item links) of a work item description into a single buffer.
+ * <p>
+ * SVG images are rendered into a scratch buffer and Base64-encoded straight into the description, colours are written as hex digits,
+ * so apart from growing the buffers no intermediate objects are created. An instance is meant to be reused for all work items of a document
+ * by calling {@link #reset()} between them, it is not thread-safe.
+ */
+@SuppressWarnings("java:S1192")
+public final class HtmlDescriptionBuilder {
+
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    private static final int SVG_INITIAL_CAPACITY = 1024;
+    private static final int MAX_COLOR = 0xFFFFFF;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final char[] BASE64_DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final String[] WORDS = {
+            "Lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do",
+            "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "Ut",
+            "enim", "ad", "minim", "veniam", "quis", "nostrud", "exercitation", "ullamco", "laboris",
+            "nisi", "ut", "aliquip", "ex", "ea", "commodo", "consequat", "Duis", "aute", "irure",
+            "dolor", "in", "reprehenderit", "in", "voluptate", "velit", "esse", "cillum", "dolore",
+            "eu", "fugiat", "nulla", "pariatur", "Excepteur", "sint", "occaecat", "cupidatat", "non",
+            "proident", "sunt", "in", "culpa", "qui", "officia", "deserunt", "mollit", "anim", "id",
+            "est", "laborum", "Curabitur", "pretium", "tincidunt", "lacus", "Suspendisse", "potenti",
+            "Sed", "nec", "metus", "mi", "Vivamus", "ac", "augue", "eget", "arcu", "dictum", "varius",
+            "Duis", "at", "consectetur", "lectus", "Fusce", "dapibus", "Phasellus", "non", "arcu",
+            "porttitor", "orci", "mollis", "sed", "sem", "Pellentesque", "habitant", "morbi",
+            "tristique", "senectus", "netus", "et", "malesuada", "fames", "ac", "turpis", "egestas"
+    };
+
+    private final StringBuilder html;
+    private StringBuilder svg;
+
+    public HtmlDescriptionBuilder() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public HtmlDescriptionBuilder(int initialCapacity) {
+        this.html = new StringBuilder(initialCapacity);
+    }
+
+    public @NotNull HtmlDescriptionBuilder reset() {
+        html.setLength(0);
+        return this;
+    }
+
+    public @NotNull HtmlDescriptionBuilder append(@NotNull CharSequence text) {
+        html.append(text);
+        return this;
+    }
+
+    public @NotNull HtmlDescriptionBuilder appendRandomHtmlText(@NotNull RandomGenerator random) {
+        int numElements = random.nextInt(NUMBER_OF_ELEMENTS_BOUND) + MINIMAL_COUNT;
+
+        for (int i = 0; i < numElements; i++) {
+            int numWords = random.nextInt(NUMBER_OF_ELEMENTS_BOUND) + MINIMAL_COUNT;
+
+            html.append("<strong><em>");
+            appendRandomWords(numWords, random);
+            html.append("</em></strong>\n");
+
+            html.append("<u>");
+            appendRandomWords(numWords, random);
+            html.append("</u>\n");
+
+            html.append("<s>");
+            appendRandomWords(numWords, random);
+            html.append("</s>\n");
+        }
+        return this;
+    }
+
+    private void appendRandomWords(int numWords, @NotNull RandomGenerator random) {
+        for (int j = 0; j < numWords; j++) {
+            html.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+    }
+
+    public @NotNull HtmlDescriptionBuilder appendRandomHtmlImages(@NotNull RandomGenerator random) {
+        int height = random.nextInt(IMAGE_HEIGHT_BOUND) + IMAGE_DIMENSION_MIN_SIZE;
+        int width = random.nextInt(IMAGE_WIDTH_BOUND) + IMAGE_DIMENSION_MIN_SIZE;
+        int numberOfImages = random.nextInt(NUMBER_OF_IMAGES_BOUND);
+
+        for (int i = 0; i < numberOfImages; i++) {
+            renderRandomSVG(random, width, height);
+            html.append("<img src=\"data:image/svg+xml;base64,");
+            appendBase64(svg);
+            html.append("\" alt=\"Random SVG Image\">");
+        }
+        return this;
+    }
+
+    private void renderRandomSVG(@NotNull RandomGenerator random, int width, int height) {
+        if (svg == null) {
+            svg = new StringBuilder(SVG_INITIAL_CAPACITY);
+        }
+        svg.setLength(0);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"")
+                .append(width)
+                .append("\" height=\"")
+                .append(height)
+                .append("\">\n");
+
+        svg.append("<rect width=\"100%\" height=\"100%\" fill=\"");
+        appendColor(svg, random.nextInt(MAX_COLOR));
+        svg.append("\" />\n");
+
+        for (int i = 0; i < NUMBER_OF_SHAPES; i++) {
+            int color = random.nextInt(MAX_COLOR);
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            int w = random.nextInt(width / 2);
+            int h = random.nextInt(height / 2);
+            svg.append("<rect x=\"")
+                    .append(x)
+                    .append("\" y=\"")
+                    .append(y)
+                    .append("\" width=\"")
+                    .append(w)
+                    .append("\" height=\"")
+                    .append(h)
+                    .append("\" fill=\"");
+            appendColor(svg, color);
+            svg.append("\" />\n");
+        }
+
+        svg.append("</svg>");
+    }
+
+    /**
+     * Appends the color in {@code #RRGGBB} form, same as {@code String.format("#%06X", color)}.
+     */
+    private static void appendColor(@NotNull StringBuilder target, int color) {
+        target.append('#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            target.append(HEX_DIGITS[(color >> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * Appends the standard padded Base64 encoding of an ASCII character sequence.
+     */
+    private void appendBase64(@NotNull CharSequence source) {
+        int length = source.length();
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int bits = (source.charAt(i) & 0xFF) << 16 | (source.charAt(i + 1) & 0xFF) << 8 | (source.charAt(i + 2) & 0xFF);
+            html.append(BASE64_DIGITS[bits >>> 18 & 0x3F])
+                    .append(BASE64_DIGITS[bits >>> 12 & 0x3F])
+                    .append(BASE64_DIGITS[bits >>> 6 & 0x3F])
+                    .append(BASE64_DIGITS[bits & 0x3F]);
+        }
+        int remaining = length - i;
+        if (remaining == 1) {
+            int bits = (source.charAt(i) & 0xFF) << 16;
+            html.append(BASE64_DIGITS[bits >>> 18 & 0x3F])
+                    .append(BASE64_DIGITS[bits >>> 12 & 0x3F])
+                    .append("==");
+        } else if (remaining == 2) {
+            int bits = (source.charAt(i) & 0xFF) << 16 | (source.charAt(i + 1) & 0xFF) << 8;
+            html.append(BASE64_DIGITS[bits >>> 18 & 0x3F])
+                    .append(BASE64_DIGITS[bits >>> 12 & 0x3F])
+                    .append(BASE64_DIGITS[bits >>> 6 & 0x3F])
+                    .append('=');
+        }
+    }
+
+    public @NotNull HtmlDescriptionBuilder appendRandomWorkItemLinks(@NotNull List<IWorkItem> workItems, @NotNull RandomGenerator random) {
+        int numberOfLinks = random.nextInt(NUMBER_OF_ELEMENTS_BOUND);
+
+        if (workItems.isEmpty()) {
+            return this;
+        }
+
+        for (int i = 0; i < numberOfLinks; i++) {
+            IWorkItem workItem = workItems.get(random.nextInt(workItems.size()));
+            appendWorkItemLink(workItem.getId(), workItem.getTitle(), workItem.getProjectId());
+        }
+        return this;
+    }
+
+    /**
+     * Same links as {@link #appendRandomWorkItemLinks(List, RandomGenerator)}, taken from projections instead of work item objects.
+     */
+    public @NotNull HtmlDescriptionBuilder appendRandomWorkItemLinks(@NotNull WorkItemProjections workItems, @NotNull RandomGenerator random) {
+        int numberOfLinks = random.nextInt(NUMBER_OF_ELEMENTS_BOUND);
+
+        if (workItems.isEmpty()) {
+            return this;
+        }
+
+        for (int i = 0; i < numberOfLinks; i++) {
+            int index = random.nextInt(workItems.size());
+            appendWorkItemLink(workItems.id(index), workItems.title(index), workItems.projectId(index));
+        }
+        return this;
+    }
+
+    private void appendWorkItemLink(@Nullable String id, @Nullable String title, @Nullable String projectId) {
+        html.append("<span class=\"polarion-rte-link\" data-type=\"workItem\" data-item-id=\"").append(id).append("\" data-option-id=\"long\">\n")
+                .append("\t<span class=\"polarion-no-style-cleanup\" style=\"white-space:nowrap;\" title=\"").append(id).append(" - ").append(title).append("\">\n")
+                .append("\t\t<a style=\"font-size:1em;\" target=\"_top\" class=\"polarion-Hyperlink\" href=\"/polarion/#/project/").append(projectId).append("/workitem?id=").append(id).append("\">\n")
+                .append("\t\t\t<span style=\"white-space:nowrap;\">\n")
+                .append("\t\t\t\t<img src=\"/polarion/icons/default/enums/type_requirement.gif\" class=\"polarion-Icons\" onmousedown=\"return false;\" contenteditable=\"false\">\n")
+                .append("\t\t\t</span>\n")
+                .append("\t\t\t<span style=\"color:#000000;\">").append(id).append("</span>\n")
+                .append("\t\t\t<span style=\"white-space: normal\"> - ").append(title).append("</span>\n")
+                .append("\t\t</a>\n")
+                .append("\t</span>\n")
+                .append("</span>");
+    }
+
+    public int length() {
+        return html.length();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return html.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive {@code long} values with open addressing and linear probing, without boxing and without an entry object per value.
+ * A value takes 8 to 16 bytes depending on the fill level, and {@link #clear()} keeps the table, so one instance can be reused cheaply.
+ * {@link Long#MIN_VALUE} marks free slots and cannot be stored. The set is not thread-safe.
+ */
+public final class LongHashSet {
+
+    private static final long FREE = Long.MIN_VALUE;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] slots;
+    private int shift;
+    private int size;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param expectedSize number of values the set holds without growing
+     */
+    public LongHashSet(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > MAX_CAPACITY / 2) {
+            throw new IllegalArgumentException("expectedSize must be between 0 and " + MAX_CAPACITY / 2);
+        }
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize * 2 - 1)) << 1));
+    }
+
+    /**
+     * @return {@code true} if the value was not in the set yet
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be stored");
+        }
+        int index = indexOf(value);
+        if (slots[index] == value) {
+            return false;
+        }
+        slots[index] = value;
+        size++;
+        if (size * 2 > slots.length) {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        return value != FREE && slots[indexOf(value)] == value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(slots, FREE);
+            size = 0;
+        }
+    }
+
+    /**
+     * @return slot of the value, or the free slot where it belongs if it is not in the set
+     */
+    private int indexOf(long value) {
+        int mask = slots.length - 1;
+        int index = (int) ((value * GOLDEN_GAMMA) >>> shift);
+        while (slots[index] != FREE && slots[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void grow() {
+        if (slots.length == MAX_CAPACITY) {
+            throw new IllegalStateException("LongHashSet cannot grow beyond " + MAX_CAPACITY + " slots");
+        }
+        long[] oldSlots = slots;
+        allocate(slots.length * 2);
+        for (long value : oldSlots) {
+            if (value != FREE) {
+                slots[indexOf(value)] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[capacity];
+        Arrays.fill(slots, FREE);
+        shift = Long.numberOfLeadingZeros(capacity - 1);
+    }
+}
@@ -0,0 +1,28 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream which flushes instead of closing the wrapped stream, so that a wrapping stream (e.g. a zip stream)
+ * can be closed to release its resources while the wrapped stream (e.g. an HTTP response) stays open.
+ */
+public class NonClosingOutputStream extends FilterOutputStream {
+
+    public NonClosingOutputStream(@NotNull OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(byte @NotNull [] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,391 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes a standard ZIP archive whose entries are deflated concurrently on a {@link ForkJoinPool}.
+ * <p>
+ * Entry content is read on the calling thread (repository streams are bound to its transaction), compressed by the pool
+ * and written to the output stream strictly in the order the entries were put. At most {@code maxPendingEntries} entries
+ * with at most {@code maxPendingBytes} of content, plus their deflated copies, are held in memory at a time.
+ * Entries larger than a quarter of {@code maxPendingBytes} are not buffered: they are deflated on the calling thread
+ * and streamed, followed by a data descriptor, so the heap stays flat however large the files are.
+ * Zip64 records are written when the archive or a streamed entry outgrows the classic format.
+ * <p>
+ * The records are written by hand because {@link java.util.zip.ZipOutputStream} deflates every entry itself on the writing thread:
+ * it cannot take content deflated elsewhere, and putting it as a {@code STORED} entry would produce an uncompressed archive.
+ * Streamed entries are written like {@code ZipOutputStream} writes entries of unknown size: the local header has no Zip64
+ * extra field, the data descriptor has 8-byte sizes if an entry exceeds 4 GB, and the central directory carries its Zip64 sizes.
+ * <p>
+ * Not thread-safe: all entries have to be put from one thread.
+ */
+public final class ParallelZipWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    private static final int DEFAULT_MAX_PENDING_BYTES = 32 * 1024 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final ForkJoinPool pool;
+    private final int maxPendingEntries;
+    private final long maxPendingBytes;
+    private final int maxBufferedEntryBytes;
+    private final int dosTime;
+    private final Deque<CompletableFuture<CompressedEntry>> pending = new ArrayDeque<>();
+    private final List<CentralRecord> centralRecords = new ArrayList<>();
+    private long pendingBytes;
+    private long written;
+    private boolean finished;
+
+    public ParallelZipWriter(@NotNull OutputStream out, @NotNull ForkJoinPool pool, int maxPendingEntries) {
+        this(out, pool, maxPendingEntries, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    public ParallelZipWriter(@NotNull OutputStream out, @NotNull ForkJoinPool pool, int maxPendingEntries, long maxPendingBytes) {
+        if (maxPendingEntries < 1) {
+            throw new IllegalArgumentException("maxPendingEntries must be a natural number");
+        }
+        if (maxPendingBytes < 1) {
+            throw new IllegalArgumentException("maxPendingBytes must be a natural number");
+        }
+        this.out = out;
+        this.pool = pool;
+        this.maxPendingEntries = maxPendingEntries;
+        this.maxPendingBytes = maxPendingBytes;
+        this.maxBufferedEntryBytes = (int) Math.min(Integer.MAX_VALUE - 8, maxPendingBytes / 4);
+        this.dosTime = toDosTime(LocalDateTime.now());
+    }
+
+    /**
+     * Puts the next entry. Directories (names ending with {@code /}) are stored without content,
+     * files are read from {@code content} and deflated in the background, or streamed if they are too large to buffer.
+     *
+     * @throws IOException if reading the content or writing the archive fails, also if deflating an earlier entry failed
+     */
+    public void putEntry(@NotNull ZipEntry entry, @Nullable InputStream content) throws IOException {
+        if (finished) {
+            throw new IOException("ZIP archive is already finished");
+        }
+        String name = entry.getName();
+        byte[] data = content == null || entry.isDirectory() ? new byte[0] : content.readNBytes(maxBufferedEntryBytes + 1);
+        if (data.length > maxBufferedEntryBytes) {
+            writePendingEntries(0, 0);
+            writeStreamedEntry(name, data, content);
+            return;
+        }
+        writePendingEntries(maxPendingEntries - 1, maxPendingBytes - data.length);
+        if (entry.isDirectory()) {
+            pending.addLast(CompletableFuture.completedFuture(CompressedEntry.stored(name)));
+        } else {
+            pending.addLast(CompletableFuture.supplyAsync(() -> CompressedEntry.deflated(name, data), pool));
+        }
+        pendingBytes += data.length;
+    }
+
+    /**
+     * Writes all pending entries and the central directory. The output stream is flushed but not closed.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        writePendingEntries(0, 0);
+        writeCentralDirectory();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes pending entries in order until at most {@code entryLimit} entries with at most {@code byteLimit} bytes of content are left.
+     */
+    private void writePendingEntries(int entryLimit, long byteLimit) throws IOException {
+        while (!pending.isEmpty() && (pending.size() > entryLimit || pendingBytes > byteLimit)) {
+            CompressedEntry entry = await(pending.removeFirst());
+            pendingBytes -= entry.size();
+            writeEntry(entry);
+        }
+    }
+
+    /**
+     * Waits for a background compression and reports its failure as an {@link IOException} with the original cause.
+     */
+    private static @NotNull CompressedEntry await(@NotNull CompletableFuture<CompressedEntry> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException("Failed to deflate ZIP entry: " + cause.getMessage(), cause);
+        }
+    }
+
+    private void writeEntry(@NotNull CompressedEntry entry) throws IOException {
+        long offset = written;
+        ByteBuffer header = newBuffer(30 + entry.name().length);
+        header.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort((short) VERSION_DEFAULT)
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) entry.method())
+                .putInt(dosTime)
+                .putInt((int) entry.crc())
+                .putInt(entry.data().length)
+                .putInt(entry.size())
+                .putShort((short) entry.name().length)
+                .putShort((short) 0)
+                .put(entry.name());
+        write(header);
+        out.write(entry.data());
+        written += entry.data().length;
+        centralRecords.add(new CentralRecord(entry.name(), FLAG_UTF8, entry.method(), entry.crc(), entry.data().length, entry.size(), offset));
+    }
+
+    /**
+     * Deflates the entry on the calling thread while it is read. The local header cannot carry the CRC and the sizes,
+     * so they follow the data in a data descriptor.
+     *
+     * @param head    content already read from the stream
+     * @param content rest of the content
+     */
+    private void writeStreamedEntry(@NotNull String entryName, byte @NotNull [] head, @NotNull InputStream content) throws IOException {
+        byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+        long offset = written;
+        ByteBuffer header = newBuffer(30 + name.length);
+        header.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort((short) VERSION_DEFAULT)
+                .putShort((short) (FLAG_UTF8 | FLAG_DATA_DESCRIPTOR))
+                .putShort((short) ZipEntry.DEFLATED)
+                .putInt(dosTime)
+                .putInt(0)
+                .putInt(0)
+                .putInt(0)
+                .putShort((short) name.length)
+                .putShort((short) 0)
+                .put(name);
+        write(header);
+
+        CRC32 crc = new CRC32();
+        long size = 0;
+        long dataStart = written;
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            byte[] output = new byte[STREAM_BUFFER_SIZE];
+            byte[] input = head;
+            int length = head.length;
+            while (length >= 0) {
+                crc.update(input, 0, length);
+                size += length;
+                deflater.setInput(input, 0, length);
+                while (!deflater.needsInput()) {
+                    writeDeflated(deflater, output);
+                }
+                if (input == head) {
+                    input = new byte[STREAM_BUFFER_SIZE];
+                }
+                length = content.read(input);
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                writeDeflated(deflater, output);
+            }
+        } finally {
+            deflater.end();
+        }
+        long compressedSize = written - dataStart;
+
+        // readers expect 8-byte sizes in the descriptor exactly when the entry exceeds 4 GB
+        boolean zip64 = size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC;
+        ByteBuffer descriptor = newBuffer(zip64 ? 24 : 16);
+        descriptor.putInt(DATA_DESCRIPTOR_SIGNATURE)
+                .putInt((int) crc.getValue());
+        if (zip64) {
+            descriptor.putLong(compressedSize)
+                    .putLong(size);
+        } else {
+            descriptor.putInt((int) compressedSize)
+                    .putInt((int) size);
+        }
+        write(descriptor);
+        centralRecords.add(new CentralRecord(name, FLAG_UTF8 | FLAG_DATA_DESCRIPTOR, ZipEntry.DEFLATED, crc.getValue(), compressedSize, size, offset));
+    }
+
+    private void writeDeflated(@NotNull Deflater deflater, byte @NotNull [] output) throws IOException {
+        int length = deflater.deflate(output);
+        out.write(output, 0, length);
+        written += length;
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long centralDirectoryOffset = written;
+        for (CentralRecord centralRecord : centralRecords) {
+            boolean zip64Size = centralRecord.size() >= ZIP64_MAGIC;
+            boolean zip64CompressedSize = centralRecord.compressedSize() >= ZIP64_MAGIC;
+            boolean zip64Offset = centralRecord.offset() >= ZIP64_MAGIC;
+            int zip64Length = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+            boolean zip64 = zip64Length > 0;
+            int extraLength = zip64 ? 4 + zip64Length : 0;
+            ByteBuffer header = newBuffer(46 + centralRecord.name().length + extraLength);
+            header.putInt(CENTRAL_HEADER_SIGNATURE)
+                    .putShort((short) (zip64 ? VERSION_ZIP64 : VERSION_DEFAULT))
+                    .putShort((short) (zip64 ? VERSION_ZIP64 : VERSION_DEFAULT))
+                    .putShort((short) centralRecord.flags())
+                    .putShort((short) centralRecord.method())
+                    .putInt(dosTime)
+                    .putInt((int) centralRecord.crc())
+                    .putInt((int) Math.min(centralRecord.compressedSize(), ZIP64_MAGIC))
+                    .putInt((int) Math.min(centralRecord.size(), ZIP64_MAGIC))
+                    .putShort((short) centralRecord.name().length)
+                    .putShort((short) extraLength)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt((int) Math.min(centralRecord.offset(), ZIP64_MAGIC))
+                    .put(centralRecord.name());
+            if (zip64) {
+                // the Zip64 fields follow in this order, each only present if its classic field overflows
+                header.putShort((short) ZIP64_EXTRA_ID)
+                        .putShort((short) zip64Length);
+                if (zip64Size) {
+                    header.putLong(centralRecord.size());
+                }
+                if (zip64CompressedSize) {
+                    header.putLong(centralRecord.compressedSize());
+                }
+                if (zip64Offset) {
+                    header.putLong(centralRecord.offset());
+                }
+            }
+            write(header);
+        }
+        writeEnd(centralRecords.size(), centralDirectoryOffset, written - centralDirectoryOffset);
+    }
+
+    private void writeEnd(long entryCount, long centralDirectoryOffset, long centralDirectorySize) throws IOException {
+        if (entryCount >= ZIP64_MAGIC_COUNT || centralDirectoryOffset >= ZIP64_MAGIC || centralDirectorySize >= ZIP64_MAGIC) {
+            long zip64EndOffset = written;
+            ByteBuffer zip64End = newBuffer(56 + 20);
+            zip64End.putInt(ZIP64_END_SIGNATURE)
+                    .putLong(44)
+                    .putShort((short) VERSION_ZIP64)
+                    .putShort((short) VERSION_ZIP64)
+                    .putInt(0)
+                    .putInt(0)
+                    .putLong(entryCount)
+                    .putLong(entryCount)
+                    .putLong(centralDirectorySize)
+                    .putLong(centralDirectoryOffset)
+                    .putInt(ZIP64_LOCATOR_SIGNATURE)
+                    .putInt(0)
+                    .putLong(zip64EndOffset)
+                    .putInt(1);
+            write(zip64End);
+        }
+        ByteBuffer end = newBuffer(22);
+        end.putInt(END_SIGNATURE)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) Math.min(entryCount, ZIP64_MAGIC_COUNT))
+                .putShort((short) Math.min(entryCount, ZIP64_MAGIC_COUNT))
+                .putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC))
+                .putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC))
+                .putShort((short) 0);
+        write(end);
+    }
+
+    private void write(@NotNull ByteBuffer buffer) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        written += buffer.position();
+    }
+
+    private static @NotNull ByteBuffer newBuffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int toDosTime(@NotNull LocalDateTime time) {
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+
+    private record CompressedEntry(byte @NotNull [] name, int method, long crc, int size, byte @NotNull [] data) {
+
+        static @NotNull CompressedEntry stored(@NotNull String name) {
+            return new CompressedEntry(name.getBytes(StandardCharsets.UTF_8), ZipEntry.STORED, 0, 0, new byte[0]);
+        }
+
+        static @NotNull CompressedEntry deflated(@NotNull String name, byte @NotNull [] content) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(content);
+                deflater.finish();
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    int length = deflater.deflate(buffer);
+                    compressed.write(buffer, 0, length);
+                }
+                return new CompressedEntry(name.getBytes(StandardCharsets.UTF_8), ZipEntry.DEFLATED, crc.getValue(), content.length, compressed.toByteArray());
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    private record CentralRecord(byte @NotNull [] name, int flags, int method, long crc, long compressedSize, long size, long offset) {
+    }
+}
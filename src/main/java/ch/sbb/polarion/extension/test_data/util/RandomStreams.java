@@ -0,0 +1,53 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Source of random generators for the content generators.
+ * <p>
+ * Without a seed every thread gets its own {@link ThreadLocalRandom}, so generation is contention-free but not reproducible.
+ * With a seed every key (usually a document) gets an independent {@link SplittableRandom} derived from the seed and the key,
+ * so the same seed produces the same content no matter in which order or on which threads the documents are generated.
+ * The returned generators must only be used by the thread that obtained them.
+ */
+@UtilityClass
+public class RandomStreams {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final long MIN_STAMP = 1_000_000_000_000L;
+    private static final long MAX_STAMP = 10_000_000_000_000L;
+
+    public static @NotNull RandomGenerator forKey(@Nullable Long seed, @NotNull String... keyParts) {
+        if (seed == null) {
+            return ThreadLocalRandom.current();
+        }
+        return new SplittableRandom(seed * GOLDEN_GAMMA + hash(keyParts));
+    }
+
+    /**
+     * Value appended to generated titles and descriptions to make them distinguishable: the current time when not seeded,
+     * otherwise a pseudo-random number of the same shape, so that seeded content stays reproducible.
+     */
+    public static @NotNull String stamp(@Nullable Long seed, @NotNull RandomGenerator random) {
+        return seed == null ? Long.toString(System.currentTimeMillis()) : Long.toString(random.nextLong(MIN_STAMP, MAX_STAMP));
+    }
+
+    private static long hash(@NotNull String... keyParts) {
+        long hash = FNV_OFFSET_BASIS;
+        for (String keyPart : keyParts) {
+            for (int i = 0; i < keyPart.length(); i++) {
+                hash = (hash ^ keyPart.charAt(i)) * FNV_PRIME;
+            }
+            hash = (hash ^ '/') * FNV_PRIME;
+        }
+        return hash;
+    }
+}
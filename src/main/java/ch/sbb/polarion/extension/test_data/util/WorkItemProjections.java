@@ -0,0 +1,65 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import com.polarion.alm.tracker.model.IWorkItem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Id, title and project id of the work items of a document, in document order, which is all the content generators need to refer to them.
+ * <p>
+ * The fields are read once per work item and kept in plain arrays, so the projections neither pin the {@link IWorkItem} objects
+ * nor query them again. Consecutive work items of the same project share one project id string.
+ * Instances are immutable and can be used from several threads.
+ */
+public final class WorkItemProjections {
+
+    private final String[] ids;
+    private final String[] titles;
+    private final String[] projectIds;
+
+    private WorkItemProjections(@NotNull String[] ids, @NotNull String[] titles, @NotNull String[] projectIds) {
+        this.ids = ids;
+        this.titles = titles;
+        this.projectIds = projectIds;
+    }
+
+    public static @NotNull WorkItemProjections of(@NotNull List<IWorkItem> workItems) {
+        String[] ids = new String[workItems.size()];
+        String[] titles = new String[workItems.size()];
+        String[] projectIds = new String[workItems.size()];
+        String previousProjectId = null;
+        int i = 0;
+        for (IWorkItem workItem : workItems) {
+            ids[i] = workItem.getId();
+            titles[i] = workItem.getTitle();
+            String projectId = workItem.getProjectId();
+            projectIds[i] = Objects.equals(projectId, previousProjectId) ? previousProjectId : projectId;
+            previousProjectId = projectIds[i];
+            i++;
+        }
+        return new WorkItemProjections(ids, titles, projectIds);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    public @Nullable String id(int index) {
+        return ids[index];
+    }
+
+    public @Nullable String title(int index) {
+        return titles[index];
+    }
+
+    public @Nullable String projectId(int index) {
+        return projectIds[index];
+    }
+}
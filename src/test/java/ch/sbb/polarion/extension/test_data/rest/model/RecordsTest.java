@@ -81,4 +81,17 @@ class RecordsTest {
         assertEquals("desc", r.description());
         assertEquals(0, r.elements().size());
     }
+
+    @Test
+    void bulkDocumentsRequestDefaults() {
+        BulkDocumentsRequest r = new BulkDocumentsRequest(null, null, null, null, null, null, null, null);
+        assertEquals("doc_%03d", r.namePattern());
+        assertEquals(1, r.count());
+        assertEquals(1, r.startIndex());
+        assertEquals(100, r.quantity());
+        assertEquals(1, r.batchSize());
+        assertEquals(4, r.parallelism());
+        assertNull(r.seed());
+        assertEquals(0, r.contentPoolSize());
+    }
 }
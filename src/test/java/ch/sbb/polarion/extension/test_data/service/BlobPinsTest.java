@@ -0,0 +1,55 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlobPinsTest {
+
+    @Test
+    @SneakyThrows
+    void condemnSkipsPinnedAndCondemnedBlobs() {
+        BlobPins pins = new BlobPins();
+        pins.pin("a");
+        pins.pin("a");
+
+        assertEquals(Set.of("b"), pins.condemn(List.of("a", "b")));
+        assertEquals(Set.of(), pins.condemn(List.of("b")));
+
+        pins.unpin(List.of("a"));
+        assertTrue(pins.isPinned("a"));
+        pins.unpin(List.of("a"));
+        assertFalse(pins.isPinned("a"));
+        pins.release(Set.of("b"));
+        assertEquals(Set.of("a", "b"), pins.condemn(List.of("a", "b")));
+    }
+
+    @Test
+    @SneakyThrows
+    void pinWaitsUntilTheSweepReleasesTheBlob() {
+        BlobPins pins = new BlobPins();
+        Set<String> condemned = pins.condemn(List.of("a"));
+
+        CompletableFuture<Void> pinned = CompletableFuture.runAsync(() -> {
+            try {
+                pins.pin("a");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(pinned.isDone());
+
+        pins.release(condemned);
+        pinned.get(5, TimeUnit.SECONDS);
+        assertTrue(pins.isPinned("a"));
+    }
+}
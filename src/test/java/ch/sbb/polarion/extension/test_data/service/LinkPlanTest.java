@@ -0,0 +1,201 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import ch.sbb.polarion.extension.test_data.rest.model.LinkTopology;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinkPlanTest {
+
+    @ParameterizedTest
+    @EnumSource(LinkTopology.class)
+    void targetsBelongToOtherDocuments(LinkTopology topology) {
+        LinkPlan plan = plan(topology, new int[]{50, 0, 30, 80}, 3, 42);
+
+        for (int document = 0; document < plan.documentCount(); document++) {
+            for (int workItem = 0; workItem < plan.workItemCount(document); workItem++) {
+                for (int link = 0; link < plan.linksPerWorkItem(); link++) {
+                    int target = plan.target(document, workItem, link);
+                    if (target != LinkPlan.NO_TARGET) {
+                        assertNotEquals(document, plan.documentOf(target));
+                        assertNotEquals(1, plan.documentOf(target));
+                    }
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(LinkTopology.class)
+    void sameSeedPlansSameLinks(LinkTopology topology) {
+        assertArrayEquals(targets(plan(topology, new int[]{20, 30, 10}, 2, 7)), targets(plan(topology, new int[]{20, 30, 10}, 2, 7)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(LinkTopology.class)
+    void plansNoDuplicateLinks(LinkTopology topology) {
+        LinkPlan plan = plan(topology, new int[]{40, 6, 12}, 5, 3);
+
+        for (int document = 0; document < plan.documentCount(); document++) {
+            for (int workItem = 0; workItem < plan.workItemCount(document); workItem++) {
+                Set<Integer> workItemTargets = new HashSet<>();
+                for (int link = 0; link < plan.linksPerWorkItem(); link++) {
+                    int target = plan.target(document, workItem, link);
+                    assertTrue(target == LinkPlan.NO_TARGET || workItemTargets.add(target));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = LinkTopology.class, names = "CHAIN", mode = EnumSource.Mode.EXCLUDE)
+    void plansRequestedNumberOfLinksWhileTargetsRemain(LinkTopology topology) {
+        // every work item of the small documents can reach all 4 work items of the other small document
+        LinkPlan plan = plan(topology, new int[]{4, 4}, 4, 9);
+        assertEquals(32, plan.plannedLinks());
+        assertTrue(Arrays.stream(targets(plan)).noneMatch(target -> target == LinkPlan.NO_TARGET));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = LinkTopology.class, names = "CHAIN", mode = EnumSource.Mode.EXCLUDE)
+    void plansRequestedNumberOfLinksWhenPickedDocumentIsUsedUp(LinkTopology topology) {
+        // the single work item of the middle document is picked often but can only be linked once per source
+        LinkPlan plan = plan(topology, new int[]{100, 1, 100}, 10, 5);
+        assertEquals(2010, plan.plannedLinks());
+        assertTrue(Arrays.stream(targets(plan)).noneMatch(target -> target == LinkPlan.NO_TARGET));
+    }
+
+    @Test
+    void leavesSlotsUnusedWhenTargetsRunOut() {
+        LinkPlan plan = plan(LinkTopology.UNIFORM, new int[]{2, 3}, 5, 1);
+        // 2 sources with 3 possible targets each, 3 sources with 2 possible targets each
+        assertEquals(12, plan.plannedLinks());
+    }
+
+    @Test
+    void chainWidensSegmentsNarrowerThanLinksPerWorkItem() {
+        LinkPlan plan = plan(LinkTopology.CHAIN, new int[]{10, 10}, 3, 1);
+
+        assertEquals(30, plan.plannedLinks());
+        for (int workItem = 0; workItem < 10; workItem++) {
+            Set<Integer> positions = new HashSet<>();
+            for (int link = 0; link < 3; link++) {
+                positions.add(plan.target(0, workItem, link) - plan.workItemNumber(1, 0));
+            }
+            int from = Math.min(workItem, 7);
+            assertEquals(Set.of(from, from + 1, from + 2), positions);
+        }
+    }
+
+    @Test
+    void uniformPlansEveryLinkBetweenNonEmptyDocuments() {
+        LinkPlan plan = plan(LinkTopology.UNIFORM, new int[]{10, 20}, 4, 1);
+        assertTrue(Arrays.stream(targets(plan)).noneMatch(target -> target == LinkPlan.NO_TARGET));
+    }
+
+    @Test
+    void chainLinksToNextDocumentAtSamePosition() {
+        LinkPlan plan = plan(LinkTopology.CHAIN, new int[]{10, 100, 20}, 2, 3);
+
+        for (int workItem = 0; workItem < 10; workItem++) {
+            for (int link = 0; link < 2; link++) {
+                int target = plan.target(0, workItem, link);
+                assertEquals(1, plan.documentOf(target));
+                int position = target - plan.workItemNumber(1, 0);
+                assertTrue(position >= workItem * 10 && position < (workItem + 1) * 10);
+            }
+        }
+        for (int workItem = 0; workItem < 100; workItem++) {
+            // segments of one work item are widened to the two links per work item
+            int from = Math.min(workItem / 5, 18);
+            int position = plan.target(1, workItem, 0) - plan.workItemNumber(2, 0);
+            assertTrue(position >= from && position < from + 2);
+        }
+        assertTrue(plan.hasLinks(1));
+        assertFalse(plan.hasLinks(2));
+    }
+
+    @Test
+    void clusteredLinksMostlyToSameSection() {
+        LinkPlan plan = plan(LinkTopology.CLUSTERED, new int[]{800, 800}, 1, 5);
+
+        int sameSection = 0;
+        for (int workItem = 0; workItem < 800; workItem++) {
+            int position = plan.target(0, workItem, 0) - plan.workItemNumber(1, 0);
+            if (position / 100 == workItem / 100) {
+                sameSection++;
+            }
+        }
+        assertTrue(sameSection > 650, "links to the same section: " + sameSection);
+    }
+
+    @Test
+    void preferentialAttachmentCreatesHubs() {
+        int[] documentSizes = {1000, 1000, 1000};
+        int maxUniformInDegree = maxInDegree(plan(LinkTopology.UNIFORM, documentSizes, 3, 11));
+        int maxPreferentialInDegree = maxInDegree(plan(LinkTopology.PREFERENTIAL_ATTACHMENT, documentSizes, 3, 11));
+
+        assertTrue(maxPreferentialInDegree > 2 * maxUniformInDegree,
+                "max in-degree uniform " + maxUniformInDegree + ", preferential " + maxPreferentialInDegree);
+    }
+
+    @Test
+    void documentOfSkipsEmptyDocuments() {
+        LinkPlan plan = plan(LinkTopology.UNIFORM, new int[]{0, 0, 3, 0, 2}, 1, 1);
+        assertEquals(2, plan.documentOf(0));
+        assertEquals(2, plan.documentOf(2));
+        assertEquals(4, plan.documentOf(3));
+        assertEquals(4, plan.documentOf(4));
+    }
+
+    @Test
+    void rejectsInvalidLinksPerWorkItem() {
+        int[] documentSizes = {1, 1};
+        assertThrows(IllegalArgumentException.class, () -> plan(LinkTopology.UNIFORM, documentSizes, 0, 1));
+    }
+
+    @Test
+    void rejectsTooManyLinks() {
+        int[] documentSizes = {Integer.MAX_VALUE / 4, Integer.MAX_VALUE / 4};
+        assertThrows(IllegalArgumentException.class, () -> plan(LinkTopology.UNIFORM, documentSizes, 3, 1));
+    }
+
+    private static LinkPlan plan(LinkTopology topology, int[] documentSizes, int linksPerWorkItem, long seed) {
+        return LinkPlan.plan(topology, documentSizes, linksPerWorkItem, document -> new SplittableRandom(seed + document));
+    }
+
+    private static int[] targets(LinkPlan plan) {
+        int[] targets = new int[plan.workItemNumber(plan.documentCount() - 1, plan.workItemCount(plan.documentCount() - 1)) * plan.linksPerWorkItem()];
+        int slot = 0;
+        for (int document = 0; document < plan.documentCount(); document++) {
+            for (int workItem = 0; workItem < plan.workItemCount(document); workItem++) {
+                for (int link = 0; link < plan.linksPerWorkItem(); link++) {
+                    targets[slot++] = plan.target(document, workItem, link);
+                }
+            }
+        }
+        return targets;
+    }
+
+    private static int maxInDegree(LinkPlan plan) {
+        int[] inDegrees = new int[plan.workItemNumber(plan.documentCount() - 1, plan.workItemCount(plan.documentCount() - 1))];
+        for (int target : targets(plan)) {
+            if (target != LinkPlan.NO_TARGET) {
+                inDegrees[target]++;
+            }
+        }
+        return Arrays.stream(inDegrees).max().orElse(0);
+    }
+}
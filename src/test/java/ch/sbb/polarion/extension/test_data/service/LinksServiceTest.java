@@ -2,8 +2,15 @@ package ch.sbb.polarion.extension.test_data.service;
 
 import ch.sbb.polarion.extension.generic.service.PolarionService;
 import ch.sbb.polarion.extension.test_data.rest.model.CrossDocumentLinksRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.CrossDocumentLinksResponse;
 import ch.sbb.polarion.extension.test_data.rest.model.DocumentRef;
+import ch.sbb.polarion.extension.test_data.rest.model.LinkCommitTiming;
+import ch.sbb.polarion.extension.test_data.rest.model.LinkTopology;
 import ch.sbb.polarion.extension.test_data.rest.model.LinkedRevisionsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.SourceDocumentLinks;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationProgress;
+import ch.sbb.polarion.extension.test_data.service.job.ParallelTaskRunner;
+import com.polarion.alm.tracker.ITrackerService;
 import com.polarion.alm.tracker.model.ILinkRoleOpt;
 import com.polarion.alm.tracker.model.IModule;
 import com.polarion.alm.tracker.model.ITrackerProject;
@@ -12,24 +19,36 @@ import com.polarion.platform.ITransactionService;
 import com.polarion.platform.core.IPlatform;
 import com.polarion.platform.core.PlatformContext;
 import com.polarion.platform.persistence.IEnumeration;
+import com.polarion.platform.service.repository.IRepositoryReadOnlyConnection;
+import com.polarion.platform.service.repository.IRepositoryService;
+import com.polarion.subterra.base.location.Location;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class LinksServiceTest {
@@ -56,7 +75,7 @@ class LinksServiceTest {
         LinksService service = new LinksService(mock(PolarionService.class));
         CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
                 List.of(new DocumentRef("_default", "doc_1")), 1, "relates_to");
-        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", request));
+        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", request, GenerationProgress.NONE));
     }
 
     @Test
@@ -84,23 +103,212 @@ class LinksServiceTest {
         }
         when(moduleA.getAllWorkItems()).thenReturn(wisA);
         when(moduleB.getAllWorkItems()).thenReturn(wisB);
+        mockWorkItemLookup(polarionService, "doc_a", wisA);
+        mockWorkItemLookup(polarionService, "doc_b", wisB);
         when(polarionService.getModule("p", "_default", "doc_a")).thenReturn(moduleA);
         when(polarionService.getModule("p", "_default", "doc_b")).thenReturn(moduleB);
 
         CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
                 List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b")),
                 2, "relates_to");
-        int created = new LinksService(polarionService).createCrossDocumentLinks("p", request);
+        int created = new LinksService(polarionService).createCrossDocumentLinks("p", request, GenerationProgress.NONE).created();
         assertEquals((wisA.size() + wisB.size()) * 2, created);
         verify(wisA.get(0), atLeast(2)).addLinkedItem(any(), eq(role), eq(null), anyBoolean());
     }
 
+    @Test
+    void createCrossDocumentLinksCommitsInChunks() {
+        PolarionService polarionService = mock(PolarionService.class);
+        ILinkRoleOpt role = mockLinkRole(polarionService);
+        List<IWorkItem> wisA = mockLinkableWorkItems(polarionService, "doc_a", 5, role);
+        mockLinkableWorkItems(polarionService, "doc_b", 2, role);
+        GenerationProgress progress = mock(GenerationProgress.class);
+
+        CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
+                List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b")),
+                1, "relates_to", 42L, 2, null, null);
+        CrossDocumentLinksResponse response = new LinksService(polarionService).createCrossDocumentLinks("p", request, progress);
+
+        assertEquals(7, response.created());
+        assertEquals(List.of(2, 2, 1, 2), response.commits().stream().map(LinkCommitTiming::workItems).toList());
+        assertEquals(List.of("doc_a", "doc_a", "doc_a", "doc_b"), response.commits().stream().map(c -> c.sourceDocument().documentName()).toList());
+        assertTrue(response.commits().stream().allMatch(c -> c.links() == c.workItems() && c.commitMillis() <= c.durationMillis()));
+        verify(progress, times(4)).committed();
+        // before every chunk and once after all source documents, so that a cancelled run fails instead of reporting cancelled documents
+        verify(progress, times(5)).checkCancelled();
+        verify(wisA.get(4)).save();
+    }
+
+    @Test
+    void createCrossDocumentLinksPicksSameLinksForAnyChunkSize() {
+        List<List<Object>> picks = new ArrayList<>();
+        for (Integer chunkSize : Arrays.asList(null, 1, 3)) {
+            PolarionService polarionService = mock(PolarionService.class);
+            ILinkRoleOpt role = mockLinkRole(polarionService);
+            List<IWorkItem> wisA = mockLinkableWorkItems(polarionService, "doc_a", 4, role);
+            List<IWorkItem> wisB = mockLinkableWorkItems(polarionService, "doc_b", 4, role);
+            CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
+                    List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b")),
+                    2, "relates_to", 7L, chunkSize, null, null);
+
+            CrossDocumentLinksResponse response = new LinksService(polarionService).createCrossDocumentLinks("p", request, GenerationProgress.NONE);
+
+            assertEquals(16, response.created());
+            List<Object> targets = new ArrayList<>();
+            for (IWorkItem source : wisA) {
+                ArgumentCaptor<IWorkItem> captor = ArgumentCaptor.forClass(IWorkItem.class);
+                verify(source, times(2)).addLinkedItem(captor.capture(), eq(role), eq(null), anyBoolean());
+                captor.getAllValues().forEach(target -> targets.add(wisB.indexOf(target)));
+            }
+            picks.add(targets);
+        }
+        assertEquals(picks.get(0), picks.get(1));
+        assertEquals(picks.get(0), picks.get(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createCrossDocumentLinksLinksSourceDocumentsInParallel() {
+        PolarionService polarionService = mock(PolarionService.class);
+        ILinkRoleOpt role = mockLinkRole(polarionService);
+        mockLinkableWorkItems(polarionService, "doc_a", 3, role);
+        mockLinkableWorkItems(polarionService, "doc_b", 2, role);
+        mockLinkableWorkItems(polarionService, "doc_c", 4, role);
+        // tasks run on the calling thread, static mocks are not visible from other threads
+        ParallelTaskRunner parallelTaskRunner = mock(ParallelTaskRunner.class);
+        when(parallelTaskRunner.invokeAll(anyList(), eq(3))).thenAnswer(invocation ->
+                ((List<Supplier<?>>) invocation.getArgument(0)).stream().map(Supplier::get).toList());
+
+        CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
+                List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b"), new DocumentRef("_default", "doc_c")),
+                2, "relates_to", 42L, 2, 3, null);
+        CrossDocumentLinksResponse response = new LinksService(polarionService, parallelTaskRunner).createCrossDocumentLinks("p", request, GenerationProgress.NONE);
+
+        assertEquals(18, response.created());
+        assertEquals(List.of("doc_a", "doc_a", "doc_b", "doc_c", "doc_c"), response.commits().stream().map(c -> c.sourceDocument().documentName()).toList());
+        assertTrue(response.linkingMillis() <= response.wallClockMillis());
+        assertTrue(response.linksPerSecond() >= 0);
+        assertEquals(List.of(new SourceDocumentLinks(new DocumentRef("_default", "doc_a"), 6, null),
+                new SourceDocumentLinks(new DocumentRef("_default", "doc_b"), 4, null),
+                new SourceDocumentLinks(new DocumentRef("_default", "doc_c"), 8, null)), response.documents());
+        assertEquals(0, response.failed());
+        verify(parallelTaskRunner).invokeAll(anyList(), eq(3));
+    }
+
+    @Test
+    void createCrossDocumentLinksStopsOtherDocumentsAfterFailure() {
+        PolarionService polarionService = mock(PolarionService.class);
+        ILinkRoleOpt role = mockLinkRole(polarionService);
+        List<IWorkItem> wisA = mockLinkableWorkItems(polarionService, "doc_a", 3, role);
+        List<IWorkItem> wisB = mockLinkableWorkItems(polarionService, "doc_b", 2, role);
+        doThrow(new IllegalStateException("save failed")).when(wisA.get(1)).save();
+
+        CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
+                List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b")),
+                1, "relates_to", 42L, 1, null, null);
+        CrossDocumentLinksResponse response = new LinksService(polarionService).createCrossDocumentLinks("p", request, GenerationProgress.NONE);
+
+        assertEquals(List.of(new SourceDocumentLinks(new DocumentRef("_default", "doc_a"), 1, "save failed"),
+                new SourceDocumentLinks(new DocumentRef("_default", "doc_b"), 0, "stopped because another source document failed")), response.documents());
+        assertEquals(2, response.failed());
+        assertEquals(1, response.created());
+        assertEquals(1, response.commits().size());
+        verify(wisA.get(2), never()).save();
+        verify(wisB.get(0), never()).save();
+    }
+
+    @Test
+    void createCrossDocumentLinksDoesNotUseWorkersWithoutParallelism() {
+        PolarionService polarionService = mock(PolarionService.class);
+        ILinkRoleOpt role = mockLinkRole(polarionService);
+        mockLinkableWorkItems(polarionService, "doc_a", 2, role);
+        mockLinkableWorkItems(polarionService, "doc_b", 2, role);
+        ParallelTaskRunner parallelTaskRunner = mock(ParallelTaskRunner.class);
+
+        CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
+                List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b")), 1, "relates_to");
+        CrossDocumentLinksResponse response = new LinksService(polarionService, parallelTaskRunner).createCrossDocumentLinks("p", request, GenerationProgress.NONE);
+
+        assertEquals(4, response.created());
+        verifyNoInteractions(parallelTaskRunner);
+    }
+
+    @Test
+    void createCrossDocumentLinksRejectsInvalidParallelism() {
+        LinksService service = new LinksService(mock(PolarionService.class));
+        List<DocumentRef> documents = List.of(new DocumentRef("_default", "a"), new DocumentRef("_default", "b"));
+        CrossDocumentLinksRequest none = new CrossDocumentLinksRequest(documents, 1, "relates_to", null, null, 0, null);
+        CrossDocumentLinksRequest tooMany = new CrossDocumentLinksRequest(documents, 1, "relates_to", null, null, 17, null);
+        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", none, GenerationProgress.NONE));
+        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", tooMany, GenerationProgress.NONE));
+    }
+
+    @Test
+    void createCrossDocumentLinksCreatesRequestedLinksWithoutRedundantCalls() {
+        PolarionService polarionService = mock(PolarionService.class);
+        ILinkRoleOpt role = mockLinkRole(polarionService);
+        List<IWorkItem> wisA = mockLinkableWorkItems(polarionService, "doc_a", 3, role);
+        List<IWorkItem> wisB = mockLinkableWorkItems(polarionService, "doc_b", 2, role);
+
+        CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
+                List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b")), 2, "relates_to", 42L);
+        CrossDocumentLinksResponse response = new LinksService(polarionService).createCrossDocumentLinks("p", request, GenerationProgress.NONE);
+
+        assertEquals(10, response.planned());
+        assertEquals(10, response.created());
+        for (IWorkItem source : wisA) {
+            verify(source).addLinkedItem(wisB.get(0), role, null, false);
+            verify(source).addLinkedItem(wisB.get(1), role, null, false);
+        }
+        for (IWorkItem source : wisB) {
+            verify(source, times(2)).addLinkedItem(any(), eq(role), eq(null), anyBoolean());
+        }
+    }
+
+    @Test
+    void createCrossDocumentLinksFollowsChainTopology() {
+        PolarionService polarionService = mock(PolarionService.class);
+        ILinkRoleOpt role = mockLinkRole(polarionService);
+        List<IWorkItem> wisA = mockLinkableWorkItems(polarionService, "doc_a", 2, role);
+        List<IWorkItem> wisB = mockLinkableWorkItems(polarionService, "doc_b", 4, role);
+        List<IWorkItem> wisC = mockLinkableWorkItems(polarionService, "doc_c", 2, role);
+
+        CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
+                List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b"), new DocumentRef("_default", "doc_c")),
+                1, "relates_to", 42L, null, null, LinkTopology.CHAIN);
+        CrossDocumentLinksResponse response = new LinksService(polarionService).createCrossDocumentLinks("p", request, GenerationProgress.NONE);
+
+        assertEquals(6, response.created());
+        assertEquals(List.of("doc_a", "doc_b"), response.commits().stream().map(c -> c.sourceDocument().documentName()).toList());
+        verify(wisA.get(0)).addLinkedItem(argThat(target -> wisB.indexOf(target) < 2), eq(role), eq(null), anyBoolean());
+        verify(wisA.get(1)).addLinkedItem(argThat(target -> wisB.indexOf(target) >= 2), eq(role), eq(null), anyBoolean());
+        verify(wisB.get(3)).addLinkedItem(wisC.get(1), role, null, false);
+        verify(wisC.get(0), never()).addLinkedItem(any(), any(), any(), anyBoolean());
+        verify(wisC.get(0), never()).save();
+    }
+
+    @Test
+    void createCrossDocumentLinksRejectsDuplicateDocuments() {
+        LinksService service = new LinksService(mock(PolarionService.class));
+        CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
+                List.of(new DocumentRef("_default", "a"), new DocumentRef("_default", "a")), 1, "relates_to");
+        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", request, GenerationProgress.NONE));
+    }
+
+    @Test
+    void createCrossDocumentLinksRejectsNonPositiveCommitChunkSize() {
+        LinksService service = new LinksService(mock(PolarionService.class));
+        CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
+                List.of(new DocumentRef("_default", "a"), new DocumentRef("_default", "b")), 1, "relates_to", null, 0, null, null);
+        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", request, GenerationProgress.NONE));
+    }
+
     @Test
     void createCrossDocumentLinksRejectsNonPositiveLinksPerWorkItem() {
         LinksService service = new LinksService(mock(PolarionService.class));
         CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
                 List.of(new DocumentRef("_default", "a"), new DocumentRef("_default", "b")), 0, "relates_to");
-        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", request));
+        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", request, GenerationProgress.NONE));
     }
 
     @Test
@@ -115,7 +323,7 @@ class LinksServiceTest {
         CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
                 List.of(new DocumentRef("_default", "a"), new DocumentRef("_default", "b")), 1, "unknown");
         LinksService service = new LinksService(polarionService);
-        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", request));
+        assertThrows(IllegalArgumentException.class, () -> service.createCrossDocumentLinks("p", request, GenerationProgress.NONE));
     }
 
     @Test
@@ -132,12 +340,13 @@ class LinksServiceTest {
         IModule moduleB = mock(IModule.class);
         when(moduleA.getAllWorkItems()).thenReturn(new ArrayList<>());
         when(moduleB.getAllWorkItems()).thenReturn(new ArrayList<>());
+        mockWorkItemLookup(polarionService, "doc_a", List.of());
         when(polarionService.getModule("p", "_default", "doc_a")).thenReturn(moduleA);
         when(polarionService.getModule("p", "_default", "doc_b")).thenReturn(moduleB);
 
         CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
                 List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b")), 1, "relates_to");
-        int created = new LinksService(polarionService).createCrossDocumentLinks("p", request);
+        int created = new LinksService(polarionService).createCrossDocumentLinks("p", request, GenerationProgress.NONE).created();
         assertEquals(0, created);
     }
 
@@ -163,16 +372,31 @@ class LinksServiceTest {
         }
         when(moduleA.getAllWorkItems()).thenReturn(wisA);
         when(moduleB.getAllWorkItems()).thenReturn(wisB);
+        mockWorkItemLookup(polarionService, "doc_a", wisA);
+        mockWorkItemLookup(polarionService, "doc_b", wisB);
         when(polarionService.getModule("p", "_default", "doc_a")).thenReturn(moduleA);
         when(polarionService.getModule("p", "_default", "doc_b")).thenReturn(moduleB);
 
         CrossDocumentLinksRequest request = new CrossDocumentLinksRequest(
                 List.of(new DocumentRef("_default", "doc_a"), new DocumentRef("_default", "doc_b")), 1, "relates_to");
-        int created = new LinksService(polarionService).createCrossDocumentLinks("p", request);
+        int created = new LinksService(polarionService).createCrossDocumentLinks("p", request, GenerationProgress.NONE).created();
         // wisA returns false for every addLinkedItem; wisB defaults to false too -> nothing counted
         assertEquals(0, created);
     }
 
+    @Test
+    void validateCrossDocumentLinksRequestRejectsInvalidRequestsUpFront() {
+        assertThrows(IllegalArgumentException.class, () -> LinksService.validateCrossDocumentLinksRequest(null));
+        assertThrows(IllegalArgumentException.class, () -> LinksService.validateCrossDocumentLinksRequest(
+                new CrossDocumentLinksRequest(null, 1, "relates_to")));
+        assertThrows(IllegalArgumentException.class, () -> LinksService.validateCrossDocumentLinksRequest(
+                new CrossDocumentLinksRequest(List.of(new DocumentRef("_default", "a")), 1, "relates_to")));
+        assertThrows(IllegalArgumentException.class, () -> LinksService.validateCrossDocumentLinksRequest(
+                new CrossDocumentLinksRequest(List.of(new DocumentRef("_default", "a"), new DocumentRef("_default", "b")), 1, "relates_to", null, 0, null, null)));
+        LinksService.validateCrossDocumentLinksRequest(
+                new CrossDocumentLinksRequest(List.of(new DocumentRef("_default", "a"), new DocumentRef("_default", "b")), 1, "relates_to"));
+    }
+
     @Test
     void addLinkedRevisionsRejectsNonPositiveWorkItemsPerRevision() {
         LinksService service = new LinksService(mock(PolarionService.class));
@@ -187,6 +411,7 @@ class LinksServiceTest {
         IModule module = mock(IModule.class);
         when(module.getAllWorkItems()).thenReturn(new ArrayList<>());
         when(polarionService.getModule("p", "_default", "doc")).thenReturn(module);
+        mockWorkItemLookup(polarionService, "doc", List.of());
 
         int added = new LinksService(polarionService).addLinkedRevisions("p", "_default", "doc",
                 new LinkedRevisionsRequest(List.of("1"), 3, null));
@@ -205,6 +430,7 @@ class LinksServiceTest {
         }
         when(module.getAllWorkItems()).thenReturn(wis);
         when(polarionService.getModule("p", "_default", "doc")).thenReturn(module);
+        mockWorkItemLookup(polarionService, "doc", wis);
 
         int added = new LinksService(polarionService).addLinkedRevisions("p", "_default", "doc",
                 new LinkedRevisionsRequest(List.of("100"), 2, null));
@@ -230,10 +456,59 @@ class LinksServiceTest {
         }
         when(module.getAllWorkItems()).thenReturn(wis);
         when(polarionService.getModule("p", "_default", "doc")).thenReturn(module);
+        mockWorkItemLookup(polarionService, "doc", wis);
 
         int added = new LinksService(polarionService).addLinkedRevisions("p", "_default", "doc",
                 new LinkedRevisionsRequest(List.of("100", "200"), 2, "ref"));
         assertEquals(4, added);
         assertTrue(added > 0);
     }
+
+    private static ILinkRoleOpt mockLinkRole(PolarionService polarionService) {
+        ITrackerProject trackerProject = mock(ITrackerProject.class);
+        when(polarionService.getTrackerProject("p")).thenReturn(trackerProject);
+        IEnumeration<ILinkRoleOpt> roleEnum = mock(IEnumeration.class);
+        ILinkRoleOpt role = mock(ILinkRoleOpt.class);
+        when(roleEnum.wrapOption("relates_to")).thenReturn(role);
+        when(trackerProject.getWorkItemLinkRoleEnum()).thenReturn(roleEnum);
+        return role;
+    }
+
+    private static List<IWorkItem> mockLinkableWorkItems(PolarionService polarionService, String documentName, int count, ILinkRoleOpt role) {
+        List<IWorkItem> workItems = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            IWorkItem workItem = mock(IWorkItem.class);
+            when(workItem.addLinkedItem(any(), eq(role), eq(null), anyBoolean())).thenReturn(true);
+            workItems.add(workItem);
+        }
+        IModule module = mock(IModule.class);
+        when(module.getAllWorkItems()).thenReturn(workItems);
+        when(polarionService.getModule("p", "_default", documentName)).thenReturn(module);
+        mockWorkItemLookup(polarionService, documentName, workItems);
+        return workItems;
+    }
+
+    /**
+     * Gives the work items ids and makes them loadable by id. The document folders are not found in the repository, so nothing is cached.
+     */
+    private static void mockWorkItemLookup(PolarionService polarionService, String documentName, List<IWorkItem> workItems) {
+        ITrackerService trackerService = polarionService.getTrackerService();
+        if (trackerService == null) {
+            trackerService = mock(ITrackerService.class);
+            when(polarionService.getTrackerService()).thenReturn(trackerService);
+            when(polarionService.getReadOnlyConnection(any())).thenReturn(mock(IRepositoryReadOnlyConnection.class));
+            ITrackerProject trackerProject = polarionService.getTrackerProject("p");
+            if (trackerProject == null) {
+                trackerProject = mock(ITrackerProject.class);
+                when(polarionService.getTrackerProject("p")).thenReturn(trackerProject);
+            }
+            when(trackerProject.getLocation()).thenReturn(Location.getLocationWithRepository(IRepositoryService.DEFAULT, "/p"));
+        }
+        for (int i = 0; i < workItems.size(); i++) {
+            IWorkItem workItem = workItems.get(i);
+            when(workItem.getId()).thenReturn(documentName + "-" + i);
+            when(workItem.getProjectId()).thenReturn("p");
+            when(trackerService.getWorkItem("p", documentName + "-" + i)).thenReturn(workItem);
+        }
+    }
 }
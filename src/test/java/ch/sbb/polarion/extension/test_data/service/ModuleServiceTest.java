@@ -1,6 +1,13 @@
 package ch.sbb.polarion.extension.test_data.service;
 
 import ch.sbb.polarion.extension.generic.service.PolarionService;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkDocumentsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkDocumentsResponse;
+import ch.sbb.polarion.extension.test_data.rest.model.DocumentGenerationTiming;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationCancelledException;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationProgress;
+import ch.sbb.polarion.extension.test_data.service.job.ParallelTaskRunner;
+import ch.sbb.polarion.extension.test_data.util.ContentPool;
 import ch.sbb.polarion.extension.test_data.util.DocumentGeneratorUtils;
 import com.polarion.alm.tracker.IModuleManager;
 import com.polarion.alm.tracker.ITrackerService;
@@ -9,18 +16,25 @@ import com.polarion.alm.tracker.model.IModule;
 import com.polarion.alm.tracker.model.ITrackerProject;
 import com.polarion.alm.tracker.model.ITypeOpt;
 import com.polarion.alm.tracker.model.IWorkItem;
+import com.polarion.core.util.types.Text;
 import com.polarion.platform.ITransactionService;
 import com.polarion.platform.core.IPlatform;
 import com.polarion.platform.core.PlatformContext;
 import com.polarion.platform.persistence.IEnumeration;
+import com.polarion.platform.service.repository.IRepositoryReadOnlyConnection;
+import com.polarion.platform.service.repository.IRepositoryService;
+import com.polarion.subterra.base.location.Location;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
@@ -78,10 +92,11 @@ class ModuleServiceTest {
 
         when(polarionService.getModule("projectId", "spaceId", "documentName")).thenReturn(module);
 
-        IModule createdModule = moduleService.createDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", 5);
+        IModule createdModule = moduleService.createDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", new WorkItemGenerationOptions(5, 1, null, 0), GenerationProgress.NONE);
         assertNotNull(createdModule);
 
-        assertThrows(IllegalArgumentException.class, () -> moduleService.createDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", 0));
+        assertThrows(IllegalArgumentException.class, () -> moduleService.createDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", new WorkItemGenerationOptions(0, 1, null, 0), GenerationProgress.NONE));
+        assertThrows(IllegalArgumentException.class, () -> moduleService.createDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", new WorkItemGenerationOptions(5, 0, null, 0), GenerationProgress.NONE));
     }
 
     @Test
@@ -93,10 +108,128 @@ class ModuleServiceTest {
         when(polarionService.getModule("projectId", "_default", "documentName")).thenReturn(module);
         ModuleService moduleService = new ModuleService(polarionService);
 
-        IModule extendedModule = moduleService.extendDocumentWithGeneratedWorkItems("projectId", null, "documentName", 5);
+        IModule extendedModule = moduleService.extendDocumentWithGeneratedWorkItems("projectId", null, "documentName", new WorkItemGenerationOptions(5, 1, null, 0), GenerationProgress.NONE);
         assertNotNull(extendedModule);
 
-        assertThrows(IllegalArgumentException.class, () -> moduleService.extendDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", 0));
+        assertThrows(IllegalArgumentException.class, () -> moduleService.extendDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", new WorkItemGenerationOptions(0, 1, null, 0), GenerationProgress.NONE));
+        assertThrows(IllegalArgumentException.class, () -> moduleService.extendDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", new WorkItemGenerationOptions(5, 0, null, 0), GenerationProgress.NONE));
+    }
+
+    @Test
+    void testExtendDocumentWithSeededContentPool() {
+        assertEquals(generateSeededDescriptions(42L), generateSeededDescriptions(42L));
+
+        ModuleService moduleService = new ModuleService(mock(PolarionService.class));
+        assertThrows(IllegalArgumentException.class, () -> moduleService.extendDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", new WorkItemGenerationOptions(5, 1, null, -1), GenerationProgress.NONE));
+        assertThrows(IllegalArgumentException.class, () -> moduleService.extendDocumentWithGeneratedWorkItems("projectId", "spaceId", "documentName", new WorkItemGenerationOptions(5, 1, null, ContentPool.MAX_SIZE + 1), GenerationProgress.NONE));
+    }
+
+    private static List<String> generateSeededDescriptions(long seed) {
+        IModule module = mock(IModule.class);
+        IWorkItem workItem = mock(IWorkItem.class);
+        when(module.createWorkItem(anyString())).thenReturn(workItem);
+
+        PolarionService polarionService = mock(PolarionService.class);
+        when(polarionService.getModule("projectId", "_default", "documentName")).thenReturn(module);
+        new ModuleService(polarionService).extendDocumentWithGeneratedWorkItems("projectId", null, "documentName", new WorkItemGenerationOptions(20, 5, seed, 3), GenerationProgress.NONE);
+
+        ArgumentCaptor<Text> descriptions = ArgumentCaptor.forClass(Text.class);
+        verify(workItem, atLeastOnce()).setDescription(descriptions.capture());
+        return descriptions.getAllValues().stream().map(Text::getContent).toList();
+    }
+
+    @Test
+    void testExtendDocumentWithGeneratedWorkItemsInBatches() {
+        IModule module = mock(IModule.class);
+        IWorkItem workItem = mock(IWorkItem.class);
+        when(module.createWorkItem(anyString())).thenReturn(workItem);
+
+        PolarionService polarionService = mock(PolarionService.class);
+        when(polarionService.getModule("projectId", "_default", "documentName")).thenReturn(module);
+        ModuleService moduleService = new ModuleService(polarionService);
+
+        moduleService.extendDocumentWithGeneratedWorkItems("projectId", null, "documentName", new WorkItemGenerationOptions(5, 2, null, 0), GenerationProgress.NONE);
+
+        verify(module, times(5)).createWorkItem(anyString());
+        verify(workItem, times(5)).save();
+        verify(module, times(3)).update();
+        verify(module, times(3)).save();
+    }
+
+    @Test
+    void testExtendDocumentWithGeneratedWorkItemsStopsWhenCancelled() {
+        IModule module = mock(IModule.class);
+        when(module.createWorkItem(anyString())).thenReturn(mock(IWorkItem.class));
+
+        PolarionService polarionService = mock(PolarionService.class);
+        when(polarionService.getModule("projectId", "_default", "documentName")).thenReturn(module);
+        ModuleService moduleService = new ModuleService(polarionService);
+
+        GenerationProgress progress = mock(GenerationProgress.class);
+        doNothing().doThrow(new GenerationCancelledException("cancelled")).when(progress).checkCancelled();
+
+        assertThrows(GenerationCancelledException.class, () -> moduleService.extendDocumentWithGeneratedWorkItems("projectId", null, "documentName", new WorkItemGenerationOptions(6, 2, null, 0), progress));
+
+        verify(module, times(2)).createWorkItem(anyString());
+        verify(progress).itemsProcessed(2);
+        verify(progress).committed();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateDocumentsWithGeneratedWorkItems() {
+        PolarionService polarionService = mock(PolarionService.class);
+        ITrackerProject trackerProject = mock(ITrackerProject.class);
+        when(polarionService.getTrackerProject("projectId")).thenReturn(trackerProject);
+        IEnumeration<ILinkRoleOpt> linkRoleEnumeration = mock(IEnumeration.class);
+        when(trackerProject.getWorkItemLinkRoleEnum()).thenReturn(linkRoleEnumeration);
+
+        IModule module = mock(IModule.class);
+        when(module.createWorkItem(anyString())).thenReturn(mock(IWorkItem.class));
+        ITrackerService trackerService = mock(ITrackerService.class);
+        IModuleManager moduleManager = mock(IModuleManager.class);
+        when(moduleManager.createModule(eq(trackerProject), any(), anyString(), eq(null), any(), eq(false))).thenReturn(module);
+        when(moduleManager.createModule(eq(trackerProject), any(), eq("doc_002"), eq(null), any(), eq(false))).thenThrow(new IllegalStateException("Document already exists"));
+        when(trackerService.getModuleManager()).thenReturn(moduleManager);
+        when(polarionService.getTrackerService()).thenReturn(trackerService);
+
+        // tasks run on the calling thread, static mocks are not visible from other threads
+        ParallelTaskRunner parallelTaskRunner = mock(ParallelTaskRunner.class);
+        when(parallelTaskRunner.invokeAll(anyList(), eq(2))).thenAnswer(invocation ->
+                ((List<Supplier<?>>) invocation.getArgument(0)).stream().map(Supplier::get).toList());
+
+        ModuleService moduleService = new ModuleService(polarionService, parallelTaskRunner);
+        BulkDocumentsResponse response = moduleService.createDocumentsWithGeneratedWorkItems("projectId", "spaceId",
+                new BulkDocumentsRequest("doc_%03d", 3, null, 2, null, 2, null, null), GenerationProgress.NONE);
+
+        assertEquals(List.of("doc_001", "doc_002", "doc_003"), response.documents().stream().map(DocumentGenerationTiming::documentName).toList());
+        assertEquals(2, response.succeeded());
+        assertEquals(1, response.failed());
+        assertEquals("Document already exists", response.documents().get(1).error());
+        verify(module, times(4)).createWorkItem(anyString());
+
+        assertThrows(IllegalArgumentException.class, () -> moduleService.createDocumentsWithGeneratedWorkItems("projectId", "spaceId",
+                new BulkDocumentsRequest("doc", 2, null, null, null, null, null, null), GenerationProgress.NONE));
+        assertThrows(IllegalArgumentException.class, () -> moduleService.createDocumentsWithGeneratedWorkItems("projectId", "spaceId",
+                new BulkDocumentsRequest(null, 2, null, null, null, 100, null, null), GenerationProgress.NONE));
+    }
+
+    @Test
+    void testValidateRequestsWithoutRepository() {
+        assertThrows(IllegalArgumentException.class, () -> ModuleService.validateBulkDocumentsRequest(null));
+        assertThrows(IllegalArgumentException.class, () -> ModuleService.validateBulkDocumentsRequest(
+                new BulkDocumentsRequest("doc_%03d", 0, null, null, null, null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> ModuleService.validateBulkDocumentsRequest(
+                new BulkDocumentsRequest("doc_%03d", 1, null, 0, null, null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> ModuleService.validateBulkDocumentsRequest(
+                new BulkDocumentsRequest("doc_%03d", 1, null, null, null, null, null, ContentPool.MAX_SIZE + 1)));
+        assertThrows(IllegalArgumentException.class, () -> ModuleService.validateBulkDocumentsRequest(
+                new BulkDocumentsRequest("doc_%q", 1, null, null, null, null, null, null)));
+        ModuleService.validateBulkDocumentsRequest(new BulkDocumentsRequest(null, 3, null, null, null, null, null, null));
+
+        assertThrows(IllegalArgumentException.class, () -> ModuleService.validateChangeDescriptions(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> ModuleService.validateChangeDescriptions(1, -1));
+        ModuleService.validateChangeDescriptions(1, 0);
     }
 
     @Test
@@ -115,14 +248,32 @@ class ModuleServiceTest {
             workItems.add(i % 2 == 0 ? workItemRequirement : workItemHeading);
         }
         when(module.getAllWorkItems()).thenReturn(workItems);
+        when(workItemRequirement.getId()).thenReturn("requirement");
+        when(workItemRequirement.getProjectId()).thenReturn("projectId");
+        when(workItemHeading.getId()).thenReturn("heading");
+        when(workItemHeading.getProjectId()).thenReturn("projectId");
 
         PolarionService polarionService = mock(PolarionService.class);
         when(polarionService.getModule("projectId", "spaceId", "documentName")).thenReturn(module);
+        when(polarionService.getReadOnlyConnection(any())).thenReturn(mock(IRepositoryReadOnlyConnection.class));
+        ITrackerProject trackerProject = mock(ITrackerProject.class);
+        when(trackerProject.getLocation()).thenReturn(Location.getLocationWithRepository(IRepositoryService.DEFAULT, "/projectId"));
+        when(polarionService.getTrackerProject("projectId")).thenReturn(trackerProject);
+        ITrackerService trackerService = mock(ITrackerService.class);
+        when(trackerService.getWorkItem("projectId", "requirement")).thenReturn(workItemRequirement);
+        when(trackerService.getWorkItem("projectId", "heading")).thenReturn(workItemHeading);
+        when(polarionService.getTrackerService()).thenReturn(trackerService);
         ModuleService moduleService = new ModuleService(polarionService);
 
-        IModule updatedModule = moduleService.changeDocumentWorkItemDescriptions("projectId", "spaceId", "documentName", 5);
+        IModule updatedModule = moduleService.changeDocumentWorkItemDescriptions("projectId", "spaceId", "documentName", 5, null, 0, GenerationProgress.NONE);
         assertNotNull(updatedModule);
+        // items 5 and 10 are changed, only the requirement gets a new description
+        verify(trackerService).getWorkItem("projectId", "requirement");
+        verify(trackerService).getWorkItem("projectId", "heading");
+        verify(workItemRequirement).setDescription(any());
+        verify(workItemHeading, never()).setDescription(any());
+        verify(workItemHeading).save();
 
-        assertThrows(IllegalArgumentException.class, () -> moduleService.changeDocumentWorkItemDescriptions("projectId", "spaceId", "documentName", 0));
+        assertThrows(IllegalArgumentException.class, () -> moduleService.changeDocumentWorkItemDescriptions("projectId", "spaceId", "documentName", 0, null, 0, GenerationProgress.NONE));
     }
 }
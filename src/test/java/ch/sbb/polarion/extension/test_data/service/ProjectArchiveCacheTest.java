@@ -0,0 +1,80 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProjectArchiveCacheTest {
+
+    @Test
+    void returnsArchiveOfSameRevisionOnly() {
+        ProjectArchiveCache cache = new ProjectArchiveCache(1000);
+        cache.put("/project", "10", new byte[]{1, 2, 3});
+
+        assertArrayEquals(new byte[]{1, 2, 3}, cache.get("/project", "10"));
+        assertNull(cache.get("/project", "11"));
+        assertNull(cache.get("/other", "10"));
+    }
+
+    @Test
+    void newRevisionReplacesOldArchive() {
+        ProjectArchiveCache cache = new ProjectArchiveCache(1000);
+        cache.put("/project", "10", new byte[100]);
+        cache.put("/project", "11", new byte[50]);
+
+        assertNull(cache.get("/project", "10"));
+        assertNotNull(cache.get("/project", "11"));
+        assertEquals(50, cache.getTotalBytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedArchives() {
+        ProjectArchiveCache cache = new ProjectArchiveCache(1000);
+        cache.put("/a", "1", new byte[250]);
+        cache.put("/b", "1", new byte[250]);
+        cache.put("/c", "1", new byte[250]);
+        cache.get("/a", "1");
+
+        cache.put("/d", "1", new byte[250]);
+        cache.put("/e", "1", new byte[250]);
+
+        assertNotNull(cache.get("/a", "1"));
+        assertNull(cache.get("/b", "1"));
+        assertNotNull(cache.get("/e", "1"));
+        assertEquals(1000, cache.getTotalBytes());
+    }
+
+    @Test
+    void registersOneBuildPerProjectRevision() {
+        ProjectArchiveCache cache = new ProjectArchiveCache(1000);
+        SpooledArchive first = new SpooledArchive();
+        SpooledArchive second = new SpooledArchive();
+
+        assertNull(cache.startBuild("/project", "1", first));
+        assertSame(first, cache.startBuild("/project", "1", second));
+        assertNull(cache.startBuild("/project", "2", second));
+
+        cache.finishBuild("/project", "1", second);
+        assertSame(first, cache.startBuild("/project", "1", new SpooledArchive()));
+        cache.finishBuild("/project", "1", first);
+        assertNull(cache.startBuild("/project", "1", second));
+    }
+
+    @Test
+    void skipsArchivesAboveQuarterOfBudget() {
+        ProjectArchiveCache cache = new ProjectArchiveCache(1000);
+        assertEquals(250, cache.getMaxArchiveBytes());
+
+        cache.put("/project", "1", new byte[251]);
+
+        assertNull(cache.get("/project", "1"));
+        assertEquals(0, cache.getTotalBytes());
+        assertThrows(IllegalArgumentException.class, () -> new ProjectArchiveCache(-1));
+    }
+}
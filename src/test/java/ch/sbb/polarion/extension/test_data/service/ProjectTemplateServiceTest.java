@@ -1,5 +1,14 @@
 package ch.sbb.polarion.extension.test_data.service;
 
+import ch.sbb.polarion.extension.test_data.rest.model.BulkProjectsRequest;
+import ch.sbb.polarion.extension.test_data.rest.model.BulkProjectsResponse;
+import ch.sbb.polarion.extension.test_data.rest.model.ProjectCreationTiming;
+import ch.sbb.polarion.extension.test_data.rest.model.TemplateSyncMode;
+import ch.sbb.polarion.extension.test_data.rest.model.TemplateSyncReport;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationCancelledException;
+import ch.sbb.polarion.extension.test_data.service.job.GenerationProgress;
+import ch.sbb.polarion.extension.test_data.service.job.ParallelTaskRunner;
+import ch.sbb.polarion.extension.test_data.util.GlobFilter;
 import com.polarion.alm.projects.IProjectLifecycleManager;
 import com.polarion.core.util.StreamUtils;
 import com.polarion.platform.core.IPlatform;
@@ -8,10 +17,15 @@ import com.polarion.platform.service.repository.IRepositoryConnection;
 import com.polarion.platform.service.repository.IRepositoryReadOnlyConnection;
 import com.polarion.platform.service.repository.IRepositoryService;
 import com.polarion.subterra.base.location.ILocation;
+import com.polarion.subterra.base.location.Location;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InOrder;
 import org.mockito.MockedStatic;
 
 import java.io.ByteArrayInputStream;
@@ -19,9 +33,21 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import static ch.sbb.polarion.extension.test_data.service.ProjectTemplateService.*;
@@ -37,6 +63,9 @@ class ProjectTemplateServiceTest {
     private IRepositoryReadOnlyConnection repositoryReadOnlyConnection;
     private ProjectTemplateService service;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
         IPlatform platform = mock(IPlatform.class);
@@ -75,20 +104,13 @@ class ProjectTemplateServiceTest {
         String templateId = "testTemplate";
         byte[] zipData = createTestZipData();
         InputStream inputStream = new ByteArrayInputStream(zipData);
-        byte[] fileContent = "test content".getBytes(StandardCharsets.UTF_8);
-
-        streamUtilsMockedStatic.when(() -> StreamUtils.suckStream(eq(inputStream), eq(true)))
-                .thenReturn(zipData);
-
-        streamUtilsMockedStatic.when(() -> StreamUtils.suckStream(any(InputStream.class), eq(false)))
-                .thenReturn(fileContent);
 
         when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
 
         service.saveProjectTemplate(templateId, inputStream, null);
 
         verify(repositoryConnection).makeFolders(any(ILocation.class));
-        verify(repositoryConnection, atLeastOnce()).create(any(ILocation.class), any(ByteArrayInputStream.class));
+        verify(repositoryConnection, atLeastOnce()).create(argThat(loc -> loc.toString().endsWith("test.txt")), any(InputStream.class));
         verify(projectLifecycleManager).saveProjectTemplate(eq(templateId), any(), isNull());
     }
 
@@ -96,22 +118,61 @@ class ProjectTemplateServiceTest {
     @SneakyThrows
     void testSaveProjectTemplateWithHash() {
         String templateId = "testTemplate";
-        String templateHash = "abc123def456";
         byte[] zipData = createTestZipData();
+        String templateHash = sha256(zipData).toUpperCase();
         InputStream inputStream = new ByteArrayInputStream(zipData);
-        byte[] fileContent = "test content".getBytes(StandardCharsets.UTF_8);
+        ILocation hashLocation = TEMPLATES_ROOT_REPO.append(templateId).append(TEMPLATE_HASH_FILE);
+        List<String> storedHash = new ArrayList<>();
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(1);
+            storedHash.add(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(repositoryConnection).create(eq(hashLocation), any(InputStream.class));
+
+        service.saveProjectTemplate(templateId, inputStream, templateHash);
+
+        verify(repositoryConnection, atLeast(1)).create(any(ILocation.class), any(InputStream.class));
+        assertEquals(List.of(sha256(zipData)), storedHash);
+    }
 
-        streamUtilsMockedStatic.when(() -> StreamUtils.suckStream(eq(inputStream), eq(true)))
-                .thenReturn(zipData);
+    @Test
+    @SneakyThrows
+    void testSaveProjectTemplateRejectsHashMismatch() {
+        String templateId = "testTemplate";
+        InputStream inputStream = new ByteArrayInputStream(createTestZipData());
+
+        String otherHash = sha256("other content");
+
+        TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+                () -> service.saveProjectTemplate(templateId, inputStream, otherHash));
 
-        streamUtilsMockedStatic.when(() -> StreamUtils.suckStream(any(InputStream.class), eq(false)))
-                .thenReturn(fileContent);
+        assertTrue(exception.getMessage().contains("Hash mismatch"));
+        verify(projectLifecycleManager, never()).saveProjectTemplate(anyString(), any(), any());
+        verify(repositoryConnection, never()).create(any(ILocation.class), any(InputStream.class));
+        verify(repositoryConnection, never()).delete(any(ILocation.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void testSaveProjectTemplateStoresLegacyHashWithoutVerifying() {
+        String templateId = "testTemplate";
+        InputStream inputStream = new ByteArrayInputStream(createTestZipData());
+        ILocation hashLocation = TEMPLATES_ROOT_REPO.append(templateId).append(TEMPLATE_HASH_FILE);
+        List<String> storedHash = new ArrayList<>();
 
         when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(1);
+            storedHash.add(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(repositoryConnection).create(eq(hashLocation), any(InputStream.class));
 
-        service.saveProjectTemplate(templateId, inputStream, templateHash);
+        service.saveProjectTemplate(templateId, inputStream, " abc123def456 ");
 
-        verify(repositoryConnection, atLeast(1)).create(any(ILocation.class), any(ByteArrayInputStream.class));
+        assertEquals(List.of("abc123def456"), storedHash);
+        verify(projectLifecycleManager).saveProjectTemplate(eq(templateId), any(), isNull());
     }
 
     @Test
@@ -208,12 +269,12 @@ class ProjectTemplateServiceTest {
     }
 
     @Test
+    @SneakyThrows
     void testSaveProjectTemplateThrowsTemplateProcessingException() {
         String templateId = "testTemplate";
         InputStream inputStream = mock(InputStream.class);
 
-        streamUtilsMockedStatic.when(() -> StreamUtils.suckStream(any(InputStream.class), eq(true)))
-                .thenThrow(new RuntimeException("Stream error"));
+        when(inputStream.transferTo(any())).thenThrow(new IOException("Stream error"));
 
         assertThrows(ProjectTemplateService.TemplateProcessingException.class,
                 () -> service.saveProjectTemplate(templateId, inputStream, null));
@@ -225,7 +286,7 @@ class ProjectTemplateServiceTest {
         ILocation projectLocation = mock(ILocation.class);
         ILocation fileLocation = mock(ILocation.class);
 
-        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(true)))
+        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(false)))
                 .thenReturn(Collections.singletonList(fileLocation));
         when(repositoryConnection.isFile(fileLocation)).thenReturn(true);
         when(repositoryConnection.isFolder(fileLocation)).thenReturn(false);
@@ -244,13 +305,219 @@ class ProjectTemplateServiceTest {
         assertTrue(result.length > 0);
     }
 
+    @Test
+    void testGetExistingProjectLocation() {
+        when(repositoryReadOnlyConnection.exists(any(ILocation.class))).thenReturn(true);
+        ILocation location = service.getExistingProjectLocation("testProject", "group");
+        assertEquals("testProject", location.getLastComponent());
+
+        when(repositoryReadOnlyConnection.exists(any(ILocation.class))).thenReturn(false);
+        assertThrows(TemplateProcessingException.class, () -> service.getExistingProjectLocation("testProject", null));
+        assertThrows(IllegalArgumentException.class, () -> service.getExistingProjectLocation("../testProject", null));
+    }
+
+    @Test
+    @SneakyThrows
+    void testWriteProjectZipKeepsStreamOpen() {
+        ILocation projectLocation = mock(ILocation.class);
+        ILocation fileLocation = mock(ILocation.class);
+        ILocation relativeLocation = mock(ILocation.class);
+
+        when(repositoryConnection.getSubLocations(projectLocation, false)).thenReturn(Collections.singletonList(fileLocation));
+        when(repositoryConnection.isFile(fileLocation)).thenReturn(true);
+        when(repositoryConnection.getContent(fileLocation)).thenReturn(new ByteArrayInputStream("test".getBytes()));
+        when(fileLocation.getRelativeLocation(projectLocation)).thenReturn(relativeLocation);
+        when(relativeLocation.getLocationPath()).thenReturn("test.txt");
+
+        boolean[] closed = {false};
+        ByteArrayOutputStream response = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        service.writeProjectZip(projectLocation, response);
+
+        assertFalse(closed[0]);
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(response.toByteArray()))) {
+            assertEquals("test.txt", zis.getNextEntry().getName());
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void testWriteProjectZipInParallel() {
+        ILocation projectLocation = mock(ILocation.class);
+        List<ILocation> locations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ILocation fileLocation = mock(ILocation.class);
+            ILocation relativeLocation = mock(ILocation.class);
+            when(repositoryConnection.isFile(fileLocation)).thenReturn(true);
+            when(repositoryConnection.getContent(fileLocation)).thenReturn(new ByteArrayInputStream(("content" + i).getBytes()));
+            when(fileLocation.getRelativeLocation(projectLocation)).thenReturn(relativeLocation);
+            when(relativeLocation.getLocationPath()).thenReturn("file" + i + ".txt");
+            locations.add(fileLocation);
+        }
+        when(repositoryConnection.getSubLocations(projectLocation, false)).thenReturn(locations);
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        service.writeProjectZip(projectLocation, response, 4);
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(response.toByteArray()))) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals("file" + i + ".txt", zis.getNextEntry().getName());
+                assertEquals("content" + i, new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void testParallelProjectZipCanBeSavedAsTemplate() {
+        ILocation projectRoot = mock(ILocation.class);
+        ILocation tracker = mock(ILocation.class);
+        ILocation large = mock(ILocation.class);
+        ILocation small = mock(ILocation.class);
+        mockRelativePath(tracker, projectRoot, "tracker");
+        mockRelativePath(large, projectRoot, "tracker/large.txt");
+        mockRelativePath(small, projectRoot, "tracker/small.xml");
+        // above a quarter of the pending bytes of two threads, so the entry is streamed with a data descriptor
+        String largeContent = "lorem ipsum dolor sit amet ".repeat(120_000);
+        when(repositoryConnection.getSubLocations(projectRoot, false)).thenReturn(List.of(tracker));
+        when(repositoryConnection.getSubLocations(tracker, false)).thenReturn(List.of(large, small));
+        when(repositoryConnection.isFolder(tracker)).thenReturn(true);
+        when(repositoryConnection.getContent(large)).thenAnswer(invocation -> new ByteArrayInputStream(largeContent.getBytes(StandardCharsets.UTF_8)));
+        when(repositoryConnection.getContent(small)).thenAnswer(invocation -> new ByteArrayInputStream("<small/>".getBytes(StandardCharsets.UTF_8)));
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        service.writeProjectZip(projectRoot, archive, 2);
+
+        String templateId = "testTemplate";
+        Map<String, String> createdContent = new HashMap<>();
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        doAnswer(invocation -> {
+            ILocation location = invocation.getArgument(0);
+            InputStream content = invocation.getArgument(1);
+            createdContent.put(location.getRelativeLocation(TEMPLATES_ROOT_REPO.append(templateId)).getLocationPath(),
+                    new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(repositoryConnection).create(any(ILocation.class), any(InputStream.class));
+
+        // saving reads the archive with ZipFile, so through the central directory
+        TemplateSyncReport report = service.saveZipProjectTemplates(templateId, writeTempFile(archive.toByteArray()), null, new BlobUpload());
+
+        assertEquals(2, report.created());
+        assertEquals(largeContent, createdContent.get("tracker/large.txt"));
+        assertEquals("<small/>", createdContent.get("tracker/small.xml"));
+    }
+
+    @Test
+    @SneakyThrows
+    void testWriteProjectZipCachesArchiveOfUnchangedRevision() {
+        ProjectArchiveCache archiveCache = new ProjectArchiveCache(1024 * 1024);
+        ProjectTemplateService cachingService = new ProjectTemplateService(repositoryService, projectLifecycleManager, archiveCache, mock(ParallelTaskRunner.class));
+        ILocation projectLocation = mock(ILocation.class);
+        ILocation fileLocation = mock(ILocation.class);
+        ILocation relativeLocation = mock(ILocation.class);
+
+        when(projectLocation.getLocationPath()).thenReturn("/testProject");
+        when(repositoryConnection.getSubLocations(projectLocation, false)).thenReturn(Collections.singletonList(fileLocation));
+        when(repositoryConnection.isFile(fileLocation)).thenReturn(true);
+        when(repositoryConnection.getContent(fileLocation)).thenAnswer(invocation -> new ByteArrayInputStream("test".getBytes()));
+        when(fileLocation.getRelativeLocation(projectLocation)).thenReturn(relativeLocation);
+        when(relativeLocation.getLocationPath()).thenReturn("test.txt");
+        when(repositoryReadOnlyConnection.getLastRevision(projectLocation)).thenReturn("42", "43");
+
+        ProjectRevision revision42 = new ProjectRevision(projectLocation, "42");
+        assertNull(cachingService.getCachedProjectZip(revision42, GlobFilter.ALL));
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        cachingService.writeProjectZip(revision42, GlobFilter.ALL, response, 1);
+        assertArrayEquals(response.toByteArray(), cachingService.getCachedProjectZip(revision42, GlobFilter.ALL));
+
+        // The project was committed to while the archive was built, so the archive is not cached
+        ProjectRevision staleRevision = new ProjectRevision(projectLocation, "42");
+        archiveCache.put("/testProject", "0", new byte[0]);
+        cachingService.writeProjectZip(staleRevision, GlobFilter.ALL, new ByteArrayOutputStream(), 1);
+        assertNull(cachingService.getCachedProjectZip(staleRevision, GlobFilter.ALL));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1024 * 1024, 16})
+    @SneakyThrows
+    void testConcurrentWriteProjectZipSharesOneBuild(long cacheBytes) {
+        // with 16 bytes the archive is too large for the cache and is only shared through the spool file
+        ProjectTemplateService cachingService = new ProjectTemplateService(repositoryService, projectLifecycleManager, new ProjectArchiveCache(cacheBytes), mock(ParallelTaskRunner.class));
+        ILocation projectLocation = mock(ILocation.class);
+        ILocation fileLocation = mock(ILocation.class);
+        ILocation relativeLocation = mock(ILocation.class);
+        CountDownLatch leaderReading = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        when(projectLocation.getLocationPath()).thenReturn("/testProject");
+        when(repositoryConnection.getSubLocations(projectLocation, false)).thenReturn(Collections.singletonList(fileLocation));
+        when(repositoryConnection.isFile(fileLocation)).thenReturn(true);
+        when(repositoryConnection.getContent(fileLocation)).thenAnswer(invocation -> {
+            leaderReading.countDown();
+            assertTrue(releaseLeader.await(10, TimeUnit.SECONDS));
+            return new ByteArrayInputStream("test".getBytes());
+        });
+        when(fileLocation.getRelativeLocation(projectLocation)).thenReturn(relativeLocation);
+        when(relativeLocation.getLocationPath()).thenReturn("test.txt");
+        when(repositoryReadOnlyConnection.getLastRevision(projectLocation)).thenReturn("42");
+
+        ProjectRevision projectRevision = new ProjectRevision(projectLocation, "42");
+        ByteArrayOutputStream leaderResponse = new ByteArrayOutputStream();
+        ByteArrayOutputStream followerResponse = new ByteArrayOutputStream();
+        Thread leader = new Thread(() -> cachingService.writeProjectZip(projectRevision, GlobFilter.ALL, leaderResponse, 1));
+        Thread follower = new Thread(() -> cachingService.writeProjectZip(projectRevision, GlobFilter.ALL, followerResponse, 1));
+
+        leader.start();
+        assertTrue(leaderReading.await(10, TimeUnit.SECONDS));
+        follower.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (follower.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        releaseLeader.countDown();
+        leader.join(10_000);
+        follower.join(10_000);
+
+        verify(repositoryConnection, times(1)).getSubLocations(projectLocation, false);
+        assertTrue(leaderResponse.size() > 0);
+        assertArrayEquals(leaderResponse.toByteArray(), followerResponse.toByteArray());
+    }
+
+    @Test
+    void testGetExistingProjectRevision() {
+        when(repositoryReadOnlyConnection.exists(any(ILocation.class))).thenReturn(true);
+        when(repositoryReadOnlyConnection.getLastRevision(any(ILocation.class))).thenReturn("42");
+
+        ProjectRevision projectRevision = service.getExistingProjectRevision("testProject", null);
+
+        assertEquals("testProject", projectRevision.location().getLastComponent());
+        assertEquals("42", projectRevision.revision());
+    }
+
+    @Test
+    void testWriteProjectZipInvalidParallelism() {
+        ILocation projectLocation = mock(ILocation.class);
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+        assertThrows(IllegalArgumentException.class, () -> service.writeProjectZip(projectLocation, response, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.writeProjectZip(projectLocation, response, MAX_ZIP_PARALLELISM + 1));
+    }
+
     @Test
     void testDownloadProjectWithNullGroup() {
         String projectId = "testProject";
         ILocation fileLocation = mock(ILocation.class);
         ILocation relativeLoc = mock(ILocation.class);
 
-        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(true)))
+        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(false)))
                 .thenReturn(Collections.singletonList(fileLocation));
         when(repositoryConnection.isFile(fileLocation)).thenReturn(true);
         when(repositoryConnection.isFolder(fileLocation)).thenReturn(false);
@@ -275,7 +542,7 @@ class ProjectTemplateServiceTest {
         ILocation fileLocation = mock(ILocation.class);
         ILocation relativeLoc = mock(ILocation.class);
 
-        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(true)))
+        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(false)))
                 .thenReturn(Collections.singletonList(fileLocation));
         when(repositoryConnection.isFile(fileLocation)).thenReturn(true);
         when(repositoryConnection.isFolder(fileLocation)).thenReturn(false);
@@ -301,7 +568,7 @@ class ProjectTemplateServiceTest {
         ILocation fileLocation = mock(ILocation.class);
         ILocation relativeLoc = mock(ILocation.class);
 
-        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(true)))
+        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(false)))
                 .thenReturn(Collections.singletonList(fileLocation));
         when(repositoryConnection.isFile(fileLocation)).thenReturn(true);
         when(repositoryConnection.isFolder(fileLocation)).thenReturn(false);
@@ -327,7 +594,7 @@ class ProjectTemplateServiceTest {
         ILocation fileLocation = mock(ILocation.class);
         ILocation relativeLoc = mock(ILocation.class);
 
-        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(true)))
+        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(false)))
                 .thenReturn(Collections.singletonList(fileLocation));
         when(repositoryConnection.isFile(fileLocation)).thenReturn(true);
         when(repositoryConnection.isFolder(fileLocation)).thenReturn(false);
@@ -392,14 +659,15 @@ class ProjectTemplateServiceTest {
     @Test
     @SneakyThrows
     void testCanProcessZipValidZip() {
-        byte[] zipData = createTestZipData();
-        assertTrue(service.canProcessZip(zipData));
+        Path zipFile = writeTempFile(createTestZipData());
+        assertTrue(service.canProcessZip(zipFile));
     }
 
     @Test
+    @SneakyThrows
     void testCanProcessZipInvalidZip() {
-        byte[] invalidData = "not a zip".getBytes(StandardCharsets.UTF_8);
-        assertFalse(service.canProcessZip(invalidData));
+        Path invalidFile = writeTempFile("not a zip".getBytes(StandardCharsets.UTF_8));
+        assertFalse(service.canProcessZip(invalidFile));
     }
 
     @Test
@@ -462,9 +730,6 @@ class ProjectTemplateServiceTest {
         byte[] invalidZipData = "not a zip file".getBytes(StandardCharsets.UTF_8);
         InputStream inputStream = new ByteArrayInputStream(invalidZipData);
 
-        streamUtilsMockedStatic.when(() -> StreamUtils.suckStream(eq(inputStream), eq(true)))
-                .thenReturn(invalidZipData);
-
         assertThrows(TemplateProcessingException.class,
                 () -> service.saveProjectTemplate(templateId, inputStream, null));
 
@@ -518,9 +783,6 @@ class ProjectTemplateServiceTest {
         }
         byte[] zipData = baos.toByteArray();
 
-        streamUtilsMockedStatic.when(() -> StreamUtils.suckStream(any(InputStream.class), eq(true)))
-                .thenReturn(zipData);
-
         InputStream inputStream = new ByteArrayInputStream(zipData);
         when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
 
@@ -533,7 +795,7 @@ class ProjectTemplateServiceTest {
     void testDownloadProjectIOException() {
         String projectId = "testProject";
 
-        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(true)))
+        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(false)))
                 .thenThrow(new RuntimeException("Connection error"));
 
         assertThrows(RuntimeException.class,
@@ -548,10 +810,8 @@ class ProjectTemplateServiceTest {
 
         when(location.getRelativeLocation(projectRoot)).thenReturn(relativeLoc);
         when(relativeLoc.getLocationPath()).thenReturn("testdir");
-        when(repositoryConnection.isFolder(location)).thenReturn(true);
-        when(repositoryConnection.isFile(location)).thenReturn(false);
 
-        ZipEntry entry = service.createZipEntry(repositoryConnection, location, projectRoot);
+        ZipEntry entry = service.createZipEntry(location, projectRoot, true);
 
         assertNotNull(entry);
         assertEquals("testdir/", entry.getName());
@@ -565,29 +825,133 @@ class ProjectTemplateServiceTest {
 
         when(location.getRelativeLocation(projectRoot)).thenReturn(relativeLoc);
         when(relativeLoc.getLocationPath()).thenReturn("test.txt");
-        when(repositoryConnection.isFolder(location)).thenReturn(false);
-        when(repositoryConnection.isFile(location)).thenReturn(true);
 
-        ZipEntry entry = service.createZipEntry(repositoryConnection, location, projectRoot);
+        ZipEntry entry = service.createZipEntry(location, projectRoot, false);
 
         assertNotNull(entry);
         assertEquals("test.txt", entry.getName());
     }
 
     @Test
-    void testCreateZipEntryNeither() {
-        ILocation location = mock(ILocation.class);
+    @SneakyThrows
+    void testCreateZipFromProjectWalksTreeWithOneCallPerNode() {
         ILocation projectRoot = mock(ILocation.class);
-        ILocation relativeLoc = mock(ILocation.class);
+        ILocation folder = mock(ILocation.class);
+        ILocation nestedFile = mock(ILocation.class);
+        ILocation rootFile = mock(ILocation.class);
+        mockRelativePath(folder, projectRoot, "folder");
+        mockRelativePath(nestedFile, projectRoot, "folder/nested.txt");
+        mockRelativePath(rootFile, projectRoot, "root.txt");
+
+        when(repositoryConnection.getSubLocations(projectRoot, false)).thenReturn(List.of(folder, rootFile));
+        when(repositoryConnection.getSubLocations(folder, false)).thenReturn(List.of(nestedFile));
+        when(repositoryConnection.isFolder(folder)).thenReturn(true);
+        when(repositoryConnection.getContent(any(ILocation.class))).thenAnswer(invocation -> new ByteArrayInputStream("x".getBytes()));
 
-        when(location.getRelativeLocation(projectRoot)).thenReturn(relativeLoc);
-        when(relativeLoc.getLocationPath()).thenReturn("unknown");
-        when(repositoryConnection.isFolder(location)).thenReturn(false);
-        when(repositoryConnection.isFile(location)).thenReturn(false);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            service.createZipFromProject(projectRoot, zos);
+        }
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            for (ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        assertEquals(List.of("folder/", "folder/nested.txt", "root.txt"), names);
+        verify(repositoryConnection, never()).getSubLocations(any(ILocation.class), eq(true));
+        verify(repositoryConnection, never()).isFile(any(ILocation.class));
+        verify(repositoryConnection, times(3)).isFolder(any(ILocation.class));
+        verify(repositoryConnection, times(2)).getSubLocations(any(ILocation.class), eq(false));
+    }
+
+    @Test
+    @SneakyThrows
+    void testCreateZipFromProjectSkipsExcludedSubtrees() {
+        ILocation projectRoot = mock(ILocation.class);
+        ILocation tracker = mock(ILocation.class);
+        ILocation workItem = mock(ILocation.class);
+        ILocation attachments = mock(ILocation.class);
+        ILocation image = mock(ILocation.class);
+        ILocation readme = mock(ILocation.class);
+        mockRelativePath(tracker, projectRoot, "tracker");
+        mockRelativePath(workItem, projectRoot, "tracker/workitem.xml");
+        mockRelativePath(attachments, projectRoot, "attachments");
+        mockRelativePath(image, projectRoot, "attachments/image.png");
+        mockRelativePath(readme, projectRoot, "readme.txt");
+
+        when(repositoryConnection.getSubLocations(projectRoot, false)).thenReturn(List.of(tracker, attachments, readme));
+        when(repositoryConnection.getSubLocations(tracker, false)).thenReturn(List.of(workItem));
+        when(repositoryConnection.getSubLocations(attachments, false)).thenReturn(List.of(image));
+        when(repositoryConnection.isFolder(tracker)).thenReturn(true);
+        when(repositoryConnection.isFolder(attachments)).thenReturn(true);
+        when(repositoryConnection.getContent(any(ILocation.class))).thenAnswer(invocation -> new ByteArrayInputStream("x".getBytes()));
+
+        assertEquals(List.of("tracker/", "tracker/workitem.xml", "readme.txt"),
+                zipEntryNames(projectRoot, GlobFilter.of(null, List.of("attachments/**"))));
+        verify(repositoryConnection, never()).getSubLocations(attachments, false);
+        verify(repositoryConnection, never()).getContent(image);
+
+        clearInvocations(repositoryConnection);
+        assertEquals(List.of("tracker/", "tracker/workitem.xml"),
+                zipEntryNames(projectRoot, GlobFilter.of(List.of("**/*.xml"), null)));
+        verify(repositoryConnection, never()).getContent(readme);
+
+        clearInvocations(repositoryConnection);
+        assertEquals(List.of("readme.txt"), zipEntryNames(projectRoot, GlobFilter.of(List.of("*.txt"), null)));
+        verify(repositoryConnection, never()).getSubLocations(tracker, false);
+        verify(repositoryConnection, never()).getSubLocations(attachments, false);
+    }
+
+    @Test
+    @SneakyThrows
+    void testCreateZipFromProjectSkipsExcludedFoldersAtAnyDepth() {
+        ILocation projectRoot = mock(ILocation.class);
+        ILocation tracker = mock(ILocation.class);
+        ILocation workItem = mock(ILocation.class);
+        ILocation workItemFile = mock(ILocation.class);
+        ILocation attachments = mock(ILocation.class);
+        ILocation image = mock(ILocation.class);
+        mockRelativePath(tracker, projectRoot, "tracker");
+        mockRelativePath(workItem, projectRoot, "tracker/WI-1");
+        mockRelativePath(workItemFile, projectRoot, "tracker/WI-1/workitem.xml");
+        mockRelativePath(attachments, projectRoot, "tracker/WI-1/attachments");
+        mockRelativePath(image, projectRoot, "tracker/WI-1/attachments/image.png");
+
+        when(repositoryConnection.getSubLocations(projectRoot, false)).thenReturn(List.of(tracker));
+        when(repositoryConnection.getSubLocations(tracker, false)).thenReturn(List.of(workItem));
+        when(repositoryConnection.getSubLocations(workItem, false)).thenReturn(List.of(workItemFile, attachments));
+        when(repositoryConnection.getSubLocations(attachments, false)).thenReturn(List.of(image));
+        when(repositoryConnection.isFolder(tracker)).thenReturn(true);
+        when(repositoryConnection.isFolder(workItem)).thenReturn(true);
+        when(repositoryConnection.isFolder(attachments)).thenReturn(true);
+        when(repositoryConnection.getContent(any(ILocation.class))).thenAnswer(invocation -> new ByteArrayInputStream("x".getBytes()));
+
+        assertEquals(List.of("tracker/", "tracker/WI-1/", "tracker/WI-1/workitem.xml"),
+                zipEntryNames(projectRoot, GlobFilter.of(null, List.of("**/attachments/**"))));
+        verify(repositoryConnection, never()).getSubLocations(attachments, false);
+        verify(repositoryConnection, never()).getContent(image);
+    }
 
-        ZipEntry entry = service.createZipEntry(repositoryConnection, location, projectRoot);
+    private List<String> zipEntryNames(ILocation projectRoot, GlobFilter filter) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            service.createZipFromProject(projectRoot, filter, zos);
+        }
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            for (ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
 
-        assertNull(entry);
+    private static void mockRelativePath(ILocation location, ILocation root, String path) {
+        ILocation relativeLocation = mock(ILocation.class);
+        when(location.getRelativeLocation(root)).thenReturn(relativeLocation);
+        when(relativeLocation.getLocationPath()).thenReturn(path);
     }
 
     @Test
@@ -664,22 +1028,19 @@ class ProjectTemplateServiceTest {
         String emptyHash = "   ";
         byte[] zipData = createTestZipData();
         InputStream inputStream = new ByteArrayInputStream(zipData);
-        byte[] fileContent = "test content".getBytes(StandardCharsets.UTF_8);
-
-        streamUtilsMockedStatic.when(() -> StreamUtils.suckStream(eq(inputStream), eq(true)))
-                .thenReturn(zipData);
-
-        streamUtilsMockedStatic.when(() -> StreamUtils.suckStream(any(InputStream.class), eq(false)))
-                .thenReturn(fileContent);
+        List<String> storedHash = new ArrayList<>();
 
         when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(1);
+            storedHash.add(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(repositoryConnection).create(argThat(loc -> loc.toString().contains(TEMPLATE_HASH_FILE)), any(InputStream.class));
 
         service.saveProjectTemplate(templateId, inputStream, emptyHash);
 
-        // Hash file should not be saved when template hash is empty or contains only whitespace
-        verify(repositoryConnection, never()).create(
-                argThat(loc -> loc.toString().contains(TEMPLATE_HASH_FILE)),
-                any(InputStream.class));
+        // A blank client hash is not checked, the digest computed by the server is stored anyway
+        assertEquals(List.of(sha256(zipData)), storedHash);
     }
 
     @Test
@@ -690,7 +1051,7 @@ class ProjectTemplateServiceTest {
         ILocation relLoc1 = mock(ILocation.class);
         ILocation relLoc2 = mock(ILocation.class);
 
-        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(true)))
+        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(false)))
                 .thenReturn(List.of(file1, file2));
 
         when(repositoryConnection.isFile(file1)).thenReturn(true);
@@ -738,7 +1099,7 @@ class ProjectTemplateServiceTest {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ZipOutputStream zos = new ZipOutputStream(baos);
 
-        when(repositoryConnection.getSubLocations(projectLocation, true))
+        when(repositoryConnection.getSubLocations(projectLocation, false))
                 .thenReturn(List.of(file));
         when(repositoryConnection.isFile(file)).thenReturn(true);
         when(file.getRelativeLocation(projectLocation))
@@ -751,16 +1112,17 @@ class ProjectTemplateServiceTest {
     }
 
     @Test
+    @SneakyThrows
     void testCanProcessZipWithCorruptedData() {
-        byte[] corruptedData = new byte[]{0x50, 0x4b, 0x03, 0x04, 0x00, 0x00}; // Partial ZIP header
-        assertFalse(service.canProcessZip(corruptedData));
+        Path corruptedFile = writeTempFile(new byte[]{0x50, 0x4b, 0x03, 0x04, 0x00, 0x00}); // Partial ZIP header
+        assertFalse(service.canProcessZip(corruptedFile));
     }
 
     @Test
     @SneakyThrows
     void testSaveZipProjectTemplatesCleanupOnException() {
         String templateId = "testTemplate";
-        byte[] zipData = createTestZipData();
+        Path zipFile = writeTempFile(createTestZipData());
         ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
 
         // First call for recreateTemplateFolder, second for cleanupTemplateFolder
@@ -769,9 +1131,518 @@ class ProjectTemplateServiceTest {
                 .when(projectLifecycleManager).saveProjectTemplate(anyString(), any(), any());
 
         assertThrows(ProjectTemplateService.TemplateProcessingException.class,
-                () -> service.saveZipProjectTemplates(templateId, zipData, null));
+                () -> service.saveZipProjectTemplates(templateId, zipFile, null, new BlobUpload()));
+
+        verify(repositoryConnection).delete(templateFolder);
+    }
+
+    @Test
+    @SneakyThrows
+    void testSaveProjectTemplateStreamsEntryContent() {
+        String templateId = "testTemplate";
+        InputStream inputStream = new ByteArrayInputStream(createTestZipData());
+        List<String> createdContent = new ArrayList<>();
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(1);
+            createdContent.add(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(repositoryConnection).create(argThat(loc -> loc.toString().endsWith("test.txt")), any(InputStream.class));
+
+        service.saveProjectTemplate(templateId, inputStream, null);
+
+        assertEquals(List.of("test content"), createdContent);
+        streamUtilsMockedStatic.verifyNoInteractions();
+    }
+
+    @Test
+    @SneakyThrows
+    void testSaveZipProjectTemplatesWritesManifest() {
+        String templateId = "testTemplate";
+        ILocation manifestLocation = TEMPLATES_ROOT_REPO.append(templateId).append(TEMPLATE_MANIFEST_FILE);
+        List<String> manifestContent = new ArrayList<>();
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(1);
+            manifestContent.add(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(repositoryConnection).create(eq(manifestLocation), any(InputStream.class));
+
+        TemplateSyncReport report = service.saveZipProjectTemplates(templateId, writeTempFile(createTestZipData()), null, new BlobUpload());
+
+        assertEquals(new TemplateSyncReport(TemplateSyncMode.FULL, 1, 0, 0, 0, report.timings()), report);
+        assertEquals(List.of(sha256("test content") + "  test.txt\n"), manifestContent);
+    }
+
+    @Test
+    @SneakyThrows
+    void testSyncZipProjectTemplatesWithoutManifestRecreatesFolder() {
+        String templateId = "testTemplate";
+        ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
 
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        when(repositoryConnection.exists(templateFolder)).thenReturn(true);
+
+        TemplateSyncReport report = service.syncZipProjectTemplates(templateId, writeTempFile(createTestZipData()), null, new BlobUpload());
+
+        assertEquals(TemplateSyncMode.FULL, report.mode());
         verify(repositoryConnection).delete(templateFolder);
+        verify(projectLifecycleManager).saveProjectTemplate(eq(templateId), any(), isNull());
+    }
+
+    @Test
+    @SneakyThrows
+    void testSyncZipProjectTemplatesWritesOnlyChangedEntries() {
+        String templateId = "testTemplate";
+        ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
+        ILocation manifestLocation = templateFolder.append(TEMPLATE_MANIFEST_FILE);
+        String storedManifest = sha256("same") + "  same.txt\n"
+                + sha256("old") + "  changed.txt\n"
+                + sha256("removed") + "  removed.txt\n";
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(true);
+        when(repositoryConnection.exists(templateFolder.append("added.txt"))).thenReturn(false);
+        when(repositoryConnection.exists(templateFolder.append(TEMPLATE_BLOBS_MARKER_FILE))).thenReturn(false);
+        when(repositoryConnection.exists(BLOB_TEMPLATES_ROOT_REPO.append(templateId))).thenReturn(false);
+        when(repositoryConnection.getContent(manifestLocation))
+                .thenReturn(new ByteArrayInputStream(storedManifest.getBytes(StandardCharsets.UTF_8)));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            for (String[] file : new String[][]{{"same.txt", "same"}, {"changed.txt", "new"}, {"added.txt", "added"}}) {
+                zos.putNextEntry(new ZipEntry(file[0]));
+                zos.write(file[1].getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+
+        TemplateSyncReport report = service.syncZipProjectTemplates(templateId, writeTempFile(baos.toByteArray()), "hash", new BlobUpload());
+
+        assertEquals(new TemplateSyncReport(TemplateSyncMode.DELTA, 1, 1, 1, 1, report.timings()), report);
+        verify(repositoryConnection).create(eq(templateFolder.append("added.txt")), any(InputStream.class));
+        verify(repositoryConnection).setContent(eq(templateFolder.append("changed.txt")), any(InputStream.class));
+        verify(repositoryConnection, never()).setContent(eq(templateFolder.append("same.txt")), any(InputStream.class));
+        verify(repositoryConnection).delete(templateFolder.append("removed.txt"));
+        verify(repositoryConnection, never()).delete(templateFolder);
+        verify(repositoryConnection).setContent(eq(manifestLocation), any(InputStream.class));
+        verify(repositoryConnection).setContent(eq(templateFolder.append(TEMPLATE_HASH_FILE)), any(InputStream.class));
+        verify(projectLifecycleManager).saveProjectTemplate(eq(templateId), any(), isNull());
+    }
+
+    @Test
+    @SneakyThrows
+    void testSyncZipProjectTemplatesDeletesFoldersLeftEmpty() {
+        String templateId = "testTemplate";
+        ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
+        String storedManifest = sha256("x") + "  gone/deep/x.txt\n"
+                + sha256("y") + "  shared/y.txt\n"
+                + sha256("z") + "  shared/z.txt\n"
+                + sha256("w") + "  listed/w.txt\n";
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(true);
+        when(repositoryConnection.exists(templateFolder.append(TEMPLATE_BLOBS_MARKER_FILE))).thenReturn(false);
+        when(repositoryConnection.exists(BLOB_TEMPLATES_ROOT_REPO.append(templateId))).thenReturn(false);
+        when(repositoryConnection.getContent(templateFolder.append(TEMPLATE_MANIFEST_FILE)))
+                .thenReturn(new ByteArrayInputStream(storedManifest.getBytes(StandardCharsets.UTF_8)));
+        when(repositoryConnection.getSubLocations(any(ILocation.class), eq(false))).thenReturn(List.of());
+        when(repositoryConnection.getSubLocations(templateFolder.append("shared"), false)).thenReturn(List.of(templateFolder.append("shared/z.txt")));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            zos.putNextEntry(new ZipEntry("listed/"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("shared/z.txt"));
+            zos.write("z".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+
+        TemplateSyncReport report = service.syncZipProjectTemplates(templateId, writeTempFile(baos.toByteArray()), null, new BlobUpload());
+
+        assertEquals(3, report.deleted());
+        InOrder inOrder = inOrder(repositoryConnection);
+        inOrder.verify(repositoryConnection).delete(templateFolder.append("gone/deep"));
+        inOrder.verify(repositoryConnection).delete(templateFolder.append("gone"));
+        verify(repositoryConnection, never()).delete(templateFolder.append("shared"));
+        verify(repositoryConnection, never()).delete(templateFolder.append("listed"));
+        verify(repositoryConnection, never()).delete(templateFolder);
+    }
+
+    @Test
+    @SneakyThrows
+    void testStoreContentAddressedTemplateWritesOnlyNewBlobs() {
+        String templateId = "testTemplate";
+        ILocation templateFolder = BLOB_TEMPLATES_ROOT_REPO.append(templateId);
+        ILocation manifestLocation = templateFolder.append(TEMPLATE_MANIFEST_FILE);
+        List<String> manifestContent = new ArrayList<>();
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        when(repositoryConnection.exists(ProjectTemplateService.getBlobLocation(sha256("shared")))).thenReturn(true);
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(1);
+            manifestContent.add(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(repositoryConnection).create(eq(manifestLocation), any(InputStream.class));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            zos.putNextEntry(new ZipEntry("folder/"));
+            zos.closeEntry();
+            for (String[] file : new String[][]{{"folder/shared.txt", "shared"}, {"new.txt", "new"}, {"copy.txt", "new"}}) {
+                zos.putNextEntry(new ZipEntry(file[0]));
+                zos.write(file[1].getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+
+        TemplateSyncReport report = service.storeContentAddressedTemplate(templateId, writeTempFile(baos.toByteArray()), "hash", new BlobUpload());
+
+        assertEquals(new TemplateSyncReport(TemplateSyncMode.CONTENT_ADDRESSED, 1, 0, 0, 2, report.timings()), report);
+        ILocation newBlob = ProjectTemplateService.getBlobLocation(sha256("new"));
+        assertEquals(TEMPLATE_BLOBS_ROOT_REPO.append(sha256("new").substring(0, 2)).append(sha256("new")), newBlob);
+        verify(repositoryConnection).create(eq(newBlob), any(InputStream.class));
+        verify(repositoryConnection, never()).create(eq(ProjectTemplateService.getBlobLocation(sha256("shared"))), any(InputStream.class));
+        verify(repositoryConnection, never()).create(eq(templateFolder.append("new.txt")), any(InputStream.class));
+        verify(repositoryConnection, never()).makeFolders(templateFolder.append("folder/"));
+        verify(repositoryConnection).create(eq(templateFolder.append(TEMPLATE_BLOBS_MARKER_FILE)), any(InputStream.class));
+        verify(repositoryConnection, never()).makeFolders(TEMPLATES_ROOT_REPO.append(templateId));
+        verify(projectLifecycleManager, never()).saveProjectTemplate(anyString(), any(), any());
+        assertEquals(List.of(sha256("new") + "  copy.txt\n"
+                + sha256("shared") + "  folder/shared.txt\n"
+                + sha256("new") + "  new.txt\n"), manifestContent);
+    }
+
+    @Test
+    @SneakyThrows
+    void testStoreContentAddressedTemplateReplacesTemplateAndDeletesOrphanedBlobs() {
+        String templateId = "testTemplate";
+        ILocation templateFolder = BLOB_TEMPLATES_ROOT_REPO.append(templateId);
+        ILocation otherTemplateFolder = BLOB_TEMPLATES_ROOT_REPO.append("otherTemplate");
+        ILocation sharedBlob = ProjectTemplateService.getBlobLocation(sha256("shared"));
+        ILocation orphanedBlob = ProjectTemplateService.getBlobLocation(sha256("orphaned"));
+        ILocation keptBlob = ProjectTemplateService.getBlobLocation(sha256("kept"));
+        String storedManifest = sha256("orphaned") + "  old.txt\n" + sha256("kept") + "  kept.txt\n";
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(true);
+        when(repositoryConnection.getContent(templateFolder.append(TEMPLATE_MANIFEST_FILE))).thenReturn(
+                new ByteArrayInputStream(storedManifest.getBytes(StandardCharsets.UTF_8)),
+                new ByteArrayInputStream((sha256("shared") + "  shared.txt\n").getBytes(StandardCharsets.UTF_8)));
+        when(repositoryConnection.getContent(otherTemplateFolder.append(TEMPLATE_MANIFEST_FILE)))
+                .thenReturn(new ByteArrayInputStream((sha256("kept") + "  kept.txt\n").getBytes(StandardCharsets.UTF_8)));
+        when(repositoryConnection.getSubLocations(BLOB_TEMPLATES_ROOT_REPO, false)).thenReturn(List.of(templateFolder, otherTemplateFolder));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            zos.putNextEntry(new ZipEntry("shared.txt"));
+            zos.write("shared".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+
+        BlobUpload upload = new BlobUpload();
+        TemplateSyncReport report = service.storeContentAddressedTemplate(templateId, writeTempFile(baos.toByteArray()), null, upload);
+
+        assertEquals(new TemplateSyncReport(TemplateSyncMode.CONTENT_ADDRESSED, 0, 0, 0, 1, report.timings()), report);
+        verify(repositoryConnection).delete(TEMPLATES_ROOT_REPO.append(templateId));
+        // nothing is swept before the upload has committed
+        verify(repositoryConnection, never()).delete(orphanedBlob);
+        assertEquals(Set.of(sha256("orphaned"), sha256("kept")), upload.getOrphanCandidates());
+
+        assertEquals(1, service.sweepOrphanedBlobs(upload.getOrphanCandidates()));
+        verify(repositoryConnection).delete(orphanedBlob);
+        verify(repositoryConnection, never()).delete(keptBlob);
+        verify(repositoryConnection, never()).delete(sharedBlob);
+    }
+
+    @Test
+    @SneakyThrows
+    void testSweepOrphanedBlobsKeepsBlobsPinnedByUncommittedUploads() {
+        ILocation pinnedBlob = ProjectTemplateService.getBlobLocation(sha256("pinned"));
+        ILocation orphanedBlob = ProjectTemplateService.getBlobLocation(sha256("orphaned"));
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(true);
+        when(repositoryConnection.getSubLocations(BLOB_TEMPLATES_ROOT_REPO, false)).thenReturn(List.of());
+
+        BlobPins.getInstance().pin(sha256("pinned"));
+        try {
+            assertEquals(1, service.sweepOrphanedBlobs(List.of(sha256("pinned"), sha256("orphaned"))));
+        } finally {
+            BlobPins.getInstance().unpin(List.of(sha256("pinned")));
+        }
+        verify(repositoryConnection, never()).delete(pinnedBlob);
+        verify(repositoryConnection).delete(orphanedBlob);
+    }
+
+    @Test
+    @SneakyThrows
+    void testSyncZipProjectTemplatesOfContentAddressedTemplateRecreatesFolder() {
+        String templateId = "testTemplate";
+        ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(true);
+        when(repositoryConnection.exists(BLOB_TEMPLATES_ROOT_REPO.append(templateId))).thenReturn(false);
+        when(repositoryConnection.getContent(templateFolder.append(TEMPLATE_MANIFEST_FILE)))
+                .thenReturn(new ByteArrayInputStream((sha256("test content") + "  test.txt\n").getBytes(StandardCharsets.UTF_8)));
+
+        TemplateSyncReport report = service.syncZipProjectTemplates(templateId, writeTempFile(createTestZipData()), null, new BlobUpload());
+
+        assertEquals(TemplateSyncMode.FULL, report.mode());
+        verify(repositoryConnection).delete(templateFolder);
+    }
+
+    @Test
+    @SneakyThrows
+    void testSaveZipProjectTemplatesDeletesContentAddressedTemplate() {
+        String templateId = "testTemplate";
+        ILocation blobTemplateFolder = BLOB_TEMPLATES_ROOT_REPO.append(templateId);
+        ILocation blob = ProjectTemplateService.getBlobLocation(sha256("test content"));
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        when(repositoryConnection.exists(blobTemplateFolder)).thenReturn(true);
+        when(repositoryConnection.exists(blobTemplateFolder.append(TEMPLATE_MANIFEST_FILE))).thenReturn(true);
+        when(repositoryConnection.exists(blob)).thenReturn(true);
+        when(repositoryConnection.getContent(blobTemplateFolder.append(TEMPLATE_MANIFEST_FILE)))
+                .thenReturn(new ByteArrayInputStream((sha256("test content") + "  test.txt\n").getBytes(StandardCharsets.UTF_8)));
+
+        when(repositoryConnection.getSubLocations(BLOB_TEMPLATES_ROOT_REPO, false)).thenReturn(List.of());
+
+        TemplateSyncReport report = service.saveProjectTemplate(templateId, new ByteArrayInputStream(createTestZipData()), null);
+
+        assertEquals(new TemplateSyncReport(TemplateSyncMode.FULL, 1, 0, 1, 0, report.timings()), report);
+        verify(repositoryConnection).delete(blobTemplateFolder);
+        verify(repositoryConnection).delete(blob);
+    }
+
+    @Test
+    @SneakyThrows
+    void testMaterializeTemplateWritesFilesFromBlobs() {
+        String templateId = "testTemplate";
+        ILocation blobTemplateFolder = BLOB_TEMPLATES_ROOT_REPO.append(templateId);
+        ILocation templateFolder = TEMPLATES_ROOT_REPO.append(templateId);
+        List<String> written = new ArrayList<>();
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(false);
+        when(repositoryConnection.exists(blobTemplateFolder.append(TEMPLATE_MANIFEST_FILE))).thenReturn(true);
+        when(repositoryConnection.exists(blobTemplateFolder.append(TEMPLATE_HASH_FILE))).thenReturn(true);
+        when(repositoryConnection.getContent(blobTemplateFolder.append(TEMPLATE_MANIFEST_FILE))).thenReturn(new ByteArrayInputStream(
+                (sha256("a") + "  a.txt\n" + sha256("b") + "  folder/b.txt\n").getBytes(StandardCharsets.UTF_8)));
+        when(repositoryConnection.getContent(blobTemplateFolder.append(TEMPLATE_HASH_FILE)))
+                .thenReturn(new ByteArrayInputStream("zip-hash".getBytes(StandardCharsets.UTF_8)));
+        for (String content : List.of("a", "b")) {
+            when(repositoryConnection.getContent(ProjectTemplateService.getBlobLocation(sha256(content))))
+                    .thenReturn(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        }
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(1);
+            written.add(invocation.getArgument(0, ILocation.class).getRelativeLocation(templateFolder).getLocationPath()
+                    + "=" + new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(repositoryConnection).create(any(ILocation.class), any(InputStream.class));
+
+        service.materializeTemplate(templateId);
+
+        verify(repositoryConnection).makeFolders(templateFolder);
+        verify(projectLifecycleManager).saveProjectTemplate(eq(templateId), any(), isNull());
+        assertEquals(List.of("a.txt=a", "folder/b.txt=b",
+                TEMPLATE_MANIFEST_FILE + "=" + sha256("a") + "  a.txt\n" + sha256("b") + "  folder/b.txt\n",
+                TEMPLATE_HASH_FILE + "=zip-hash"), written);
+        assertFalse(BlobPins.getInstance().isPinned(sha256("a")));
+    }
+
+    @Test
+    @SneakyThrows
+    void testDeleteOrphanedBlobsKeepsReferencedBlobs() {
+        ILocation templateFolder = BLOB_TEMPLATES_ROOT_REPO.append("testTemplate");
+        ILocation referencedBlob = ProjectTemplateService.getBlobLocation(sha256("referenced"));
+        ILocation orphanedBlob = ProjectTemplateService.getBlobLocation(sha256("orphaned"));
+        ILocation missingBlob = ProjectTemplateService.getBlobLocation(sha256("missing"));
+
+        when(repositoryConnection.exists(any(ILocation.class))).thenReturn(true);
+        when(repositoryConnection.exists(missingBlob)).thenReturn(false);
+        when(repositoryConnection.getSubLocations(BLOB_TEMPLATES_ROOT_REPO, false)).thenReturn(List.of(templateFolder));
+        when(repositoryConnection.getContent(templateFolder.append(TEMPLATE_MANIFEST_FILE)))
+                .thenReturn(new ByteArrayInputStream((sha256("referenced") + "  a.txt\n").getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, service.deleteOrphanedBlobs(repositoryConnection, List.of(sha256("referenced"), sha256("orphaned"), sha256("missing"))));
+        verify(repositoryConnection).delete(orphanedBlob);
+        verify(repositoryConnection, never()).delete(referencedBlob);
+        verify(repositoryConnection, never()).delete(missingBlob);
+        assertEquals(0, service.deleteOrphanedBlobs(repositoryConnection, List.of()));
+    }
+
+    @Test
+    void testGetExistingTemplateLocation() {
+        when(repositoryReadOnlyConnection.exists(TEMPLATES_ROOT_REPO.append("testTemplate"))).thenReturn(true);
+        when(repositoryReadOnlyConnection.exists(BLOB_TEMPLATES_ROOT_REPO.append("blobTemplate"))).thenReturn(true);
+
+        assertEquals(TEMPLATES_ROOT_REPO.append("testTemplate"), service.getExistingTemplateLocation("testTemplate"));
+        assertEquals(BLOB_TEMPLATES_ROOT_REPO.append("blobTemplate"), service.getExistingTemplateLocation("blobTemplate"));
+        assertThrows(TemplateProcessingException.class, () -> service.getExistingTemplateLocation("otherTemplate"));
+        assertThrows(IllegalArgumentException.class, () -> service.getExistingTemplateLocation("../testTemplate"));
+    }
+
+    @Test
+    void testLocateFilesValidatesPaths() {
+        ILocation root = TEMPLATES_ROOT_REPO.append("testTemplate");
+        List<String> tooManyPaths = Collections.nCopies(ProjectTemplateService.MAX_FILES_PER_REQUEST + 1, "a.txt");
+
+        assertThrows(IllegalArgumentException.class, () -> service.locateFiles(root, null));
+        assertThrows(IllegalArgumentException.class, () -> service.locateFiles(root, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> service.locateFiles(root, tooManyPaths));
+        assertThrows(IllegalArgumentException.class, () -> service.locateFiles(root, List.of("../other/a.txt")));
+        assertThrows(IllegalArgumentException.class, () -> service.locateFiles(root, List.of("folder/")));
+        assertThrows(TemplateProcessingException.class, () -> service.locateFiles(root, List.of("missing.txt")));
+    }
+
+    @Test
+    void testLocateFilesResolvesBlobsOfContentAddressedTemplate() {
+        ILocation root = TEMPLATES_ROOT_REPO.append("testTemplate");
+        String manifest = "abcdef  blob.txt\n";
+
+        when(repositoryReadOnlyConnection.isFile(root.append("plain.txt"))).thenReturn(true);
+        when(repositoryReadOnlyConnection.exists(root.append(TEMPLATE_BLOBS_MARKER_FILE))).thenReturn(true);
+        when(repositoryReadOnlyConnection.exists(root.append(TEMPLATE_MANIFEST_FILE))).thenReturn(true);
+        when(repositoryReadOnlyConnection.getContent(root.append(TEMPLATE_MANIFEST_FILE)))
+                .thenReturn(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)));
+        when(repositoryReadOnlyConnection.isFile(ProjectTemplateService.getBlobLocation("abcdef"))).thenReturn(true);
+
+        List<ProjectTemplateService.StoredFile> files = service.locateFiles(root, List.of("/blob.txt", "plain.txt", "blob.txt"));
+
+        assertEquals(List.of(
+                new ProjectTemplateService.StoredFile("blob.txt", ProjectTemplateService.getBlobLocation("abcdef")),
+                new ProjectTemplateService.StoredFile("plain.txt", root.append("plain.txt"))), files);
+    }
+
+    @Test
+    @SneakyThrows
+    void testWriteFileAndFilesZip() {
+        ILocation root = TEMPLATES_ROOT_REPO.append("testTemplate");
+        ProjectTemplateService.StoredFile first = new ProjectTemplateService.StoredFile("a.txt", root.append("a.txt"));
+        ProjectTemplateService.StoredFile second = new ProjectTemplateService.StoredFile("folder/b.txt", root.append("folder/b.txt"));
+        when(repositoryReadOnlyConnection.getContent(first.location())).thenAnswer(invocation -> new ByteArrayInputStream("alpha".getBytes(StandardCharsets.UTF_8)));
+        when(repositoryReadOnlyConnection.getContent(second.location())).thenAnswer(invocation -> new ByteArrayInputStream("beta".getBytes(StandardCharsets.UTF_8)));
+        streamUtilsMockedStatic.when(() -> StreamUtils.copy(any(InputStream.class), any()))
+                .thenAnswer(invocation -> ((InputStream) invocation.getArgument(0)).transferTo(invocation.getArgument(1)));
+
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        service.writeFile(first, single);
+        assertEquals("alpha", single.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        service.writeFilesZip(List.of(first, second), archive);
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            for (ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+                entries.add(entry.getName() + "=" + new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(List.of("a.txt=alpha", "folder/b.txt=beta"), entries);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateProjectsFromTemplate() {
+        ParallelTaskRunner parallelTaskRunner = mock(ParallelTaskRunner.class);
+        when(parallelTaskRunner.invokeAll(anyList(), eq(2))).thenAnswer(invocation ->
+                ((List<Supplier<?>>) invocation.getArgument(0)).stream().map(Supplier::get).toList());
+        ProjectTemplateService provisioningService = new ProjectTemplateService(repositoryService, projectLifecycleManager,
+                new ProjectArchiveCache(1024), parallelTaskRunner);
+        when(repositoryReadOnlyConnection.exists(TEMPLATES_ROOT_REPO.append("testTemplate"))).thenReturn(true);
+        doThrow(new IllegalStateException("Project already exists"))
+                .when(projectLifecycleManager).createProject(any(ILocation.class), eq("perf_02"), anyString(), anyMap());
+
+        BulkProjectsResponse response = provisioningService.createProjectsFromTemplate("testTemplate",
+                new BulkProjectsRequest("perf_%02d", 3, null, "group", 2, Map.of("name", "Perf")), GenerationProgress.NONE);
+
+        assertEquals(List.of("perf_01", "perf_02", "perf_03"), response.projects().stream().map(ProjectCreationTiming::projectId).toList());
+        assertEquals(2, response.succeeded());
+        assertEquals(1, response.failed());
+        assertEquals("Project already exists", response.projects().get(1).error());
+        assertTrue(response.projectsPerSecond() > 0);
+        verify(projectLifecycleManager).createProject(Location.getLocationWithRepository(IRepositoryService.DEFAULT, "/group/perf_01"),
+                "perf_01", "testTemplate", Map.of("name", "Perf"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateProjectsFromTemplateReportsProgressAndStopsWhenCancelled() {
+        ParallelTaskRunner parallelTaskRunner = mock(ParallelTaskRunner.class);
+        when(parallelTaskRunner.invokeAll(anyList(), eq(1))).thenAnswer(invocation ->
+                ((List<Supplier<?>>) invocation.getArgument(0)).stream().map(Supplier::get).toList());
+        ProjectTemplateService provisioningService = new ProjectTemplateService(repositoryService, projectLifecycleManager,
+                new ProjectArchiveCache(1024), parallelTaskRunner);
+        when(repositoryReadOnlyConnection.exists(TEMPLATES_ROOT_REPO.append("testTemplate"))).thenReturn(true);
+        GenerationProgress progress = mock(GenerationProgress.class);
+        doNothing().doNothing().doThrow(new GenerationCancelledException("cancelled")).when(progress).checkCancelled();
+
+        BulkProjectsRequest request = new BulkProjectsRequest("perf_%02d", 3, null, null, 1, null);
+        assertThrows(GenerationCancelledException.class, () -> provisioningService.createProjectsFromTemplate("testTemplate", request, progress));
+
+        verify(progress, times(2)).itemsProcessed(1);
+        verify(progress, times(2)).committed();
+        verify(projectLifecycleManager, times(2)).createProject(any(ILocation.class), anyString(), anyString(), any());
+        verify(projectLifecycleManager, never()).createProject(any(ILocation.class), eq("perf_03"), anyString(), any());
+    }
+
+    @Test
+    void testCreateProjectsFromTemplateValidatesRequest() {
+        when(repositoryReadOnlyConnection.exists(TEMPLATES_ROOT_REPO.append("testTemplate"))).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> service.createProjectsFromTemplate("testTemplate",
+                new BulkProjectsRequest("perf", 2, null, null, null, null), GenerationProgress.NONE));
+        assertThrows(IllegalArgumentException.class, () -> service.createProjectsFromTemplate("testTemplate",
+                new BulkProjectsRequest("perf/%d", 1, null, null, null, null), GenerationProgress.NONE));
+        assertThrows(IllegalArgumentException.class, () -> service.createProjectsFromTemplate("testTemplate",
+                new BulkProjectsRequest(null, 0, null, null, null, null), GenerationProgress.NONE));
+        assertThrows(IllegalArgumentException.class, () -> service.createProjectsFromTemplate("testTemplate",
+                new BulkProjectsRequest(null, 1, null, null, 100, null), GenerationProgress.NONE));
+        assertThrows(TemplateProcessingException.class, () -> service.createProjectsFromTemplate("missingTemplate",
+                new BulkProjectsRequest(null, 1, null, null, null, null), GenerationProgress.NONE));
+        verify(projectLifecycleManager, never()).createProject(any(), anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateProjectsFromContentAddressedTemplateMaterializesIt() {
+        ParallelTaskRunner parallelTaskRunner = mock(ParallelTaskRunner.class);
+        when(parallelTaskRunner.invokeAll(anyList(), anyInt())).thenAnswer(invocation ->
+                ((List<Supplier<?>>) invocation.getArgument(0)).stream().map(Supplier::get).toList());
+        ProjectTemplateService provisioningService = new ProjectTemplateService(repositoryService, projectLifecycleManager,
+                new ProjectArchiveCache(1024), parallelTaskRunner);
+        ILocation blobTemplateFolder = BLOB_TEMPLATES_ROOT_REPO.append("blobTemplate");
+        when(repositoryReadOnlyConnection.exists(blobTemplateFolder)).thenReturn(true);
+        when(repositoryReadOnlyConnection.exists(blobTemplateFolder.append(TEMPLATE_BLOBS_MARKER_FILE))).thenReturn(true);
+        when(repositoryConnection.exists(blobTemplateFolder.append(TEMPLATE_MANIFEST_FILE))).thenReturn(true);
+        when(repositoryConnection.getContent(blobTemplateFolder.append(TEMPLATE_MANIFEST_FILE))).thenReturn(new ByteArrayInputStream(new byte[0]));
+
+        BulkProjectsResponse response = provisioningService.createProjectsFromTemplate("blobTemplate",
+                new BulkProjectsRequest(null, 1, null, null, null, null), GenerationProgress.NONE);
+
+        assertEquals(1, response.succeeded());
+        verify(projectLifecycleManager).saveProjectTemplate(eq("blobTemplate"), any(), isNull());
+        verify(projectLifecycleManager).createProject(any(ILocation.class), anyString(), eq("blobTemplate"), any());
+    }
+
+    @Test
+    void testValidateBulkProjectsRequestWithoutRepository() {
+        assertThrows(IllegalArgumentException.class, () -> ProjectTemplateService.validateBulkProjectsRequest(null));
+        assertThrows(IllegalArgumentException.class, () -> ProjectTemplateService.validateBulkProjectsRequest(
+                new BulkProjectsRequest("perf_%02d", 1, null, null, 0, null)));
+        ProjectTemplateService.validateBulkProjectsRequest(new BulkProjectsRequest("perf_%02d", 2, null, null, null, null));
+        verifyNoInteractions(repositoryService);
+    }
+
+    private static String sha256(String content) throws Exception {
+        return sha256(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private Path writeTempFile(byte[] content) throws IOException {
+        Path file = tempDir.resolve("upload-" + System.nanoTime() + ".zip");
+        Files.write(file, content);
+        return file;
     }
 
     private byte[] createTestZipData() throws Exception {
@@ -0,0 +1,72 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpooledArchiveTest {
+
+    @Test
+    @SneakyThrows
+    void readerStreamsTheArchiveWhileItIsBuilt() {
+        SpooledArchive archive = new SpooledArchive();
+        assertTrue(archive.attach());
+        ByteArrayOutputStream builderOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream readerOut = new ByteArrayOutputStream();
+        CompletableFuture<Boolean> reader = CompletableFuture.supplyAsync(() -> copy(archive, readerOut));
+
+        byte[] content = new byte[200_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        try (OutputStream writer = archive.openWriter(builderOut)) {
+            writer.write(content, 0, 100_000);
+            writer.flush();
+            writer.write(content, 100_000, 100_000);
+        }
+        archive.complete();
+
+        assertTrue(reader.get(10, TimeUnit.SECONDS));
+        assertArrayEquals(content, builderOut.toByteArray());
+        assertArrayEquals(content, readerOut.toByteArray());
+        archive.release();
+        archive.release();
+        assertFalse(archive.attach());
+    }
+
+    @Test
+    @SneakyThrows
+    void failedBuildIsReported() {
+        SpooledArchive emptyArchive = new SpooledArchive();
+        emptyArchive.fail();
+        assertFalse(emptyArchive.copyTo(new ByteArrayOutputStream()));
+
+        SpooledArchive partialArchive = new SpooledArchive();
+        try (OutputStream writer = partialArchive.openWriter(new ByteArrayOutputStream())) {
+            writer.write(new byte[10]);
+        }
+        CompletableFuture<Boolean> reader = CompletableFuture.supplyAsync(() -> copy(partialArchive, new ByteArrayOutputStream()));
+        Thread.sleep(50);
+        partialArchive.fail();
+        assertThrows(Exception.class, () -> reader.get(10, TimeUnit.SECONDS));
+        partialArchive.release();
+    }
+
+    private static boolean copy(SpooledArchive archive, OutputStream out) {
+        try {
+            return archive.copyTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import ch.sbb.polarion.extension.test_data.rest.model.TemplateImportTimings;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemplateExtractionPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @SneakyThrows
+    void passesEntriesInArchiveOrderWithContentAndHash() {
+        Path zipFile = writeZip("folder/", null, "folder/a.txt", "alpha", "skip.txt", "skipped", "b.txt", "beta");
+        List<String> written = new ArrayList<>();
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            TemplateImportTimings timings = new TemplateExtractionPipeline(2, 1024).run(zip,
+                    entry -> entry.getName().startsWith("skip") ? null : entry.getName(),
+                    entry -> {
+                        if (entry.isDirectory()) {
+                            written.add(entry.name());
+                        } else {
+                            try (InputStream is = entry.openStream(zip)) {
+                                assertEquals(ProjectTemplateService.sha256(entry.openStream(zip)), entry.sha256());
+                                written.add(entry.name() + "=" + new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                            }
+                        }
+                    });
+
+            assertTrue(timings.totalMillis() >= 0 && timings.decompressMillis() >= 0 && timings.writeMillis() >= 0);
+        }
+        assertEquals(List.of("folder/", "folder/a.txt=alpha", "b.txt=beta"), written);
+    }
+
+    @Test
+    @SneakyThrows
+    void streamsEntriesAboveBufferLimitFromZipFile() {
+        Path zipFile = writeZip("small.txt", "1234", "large.txt", "0123456789");
+        List<String> written = new ArrayList<>();
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            new TemplateExtractionPipeline(1, 5).run(zip, ZipEntry::getName, entry -> {
+                if (entry.name().equals("large.txt")) {
+                    assertFalse(entry.isBuffered());
+                    assertNull(entry.sha256());
+                } else {
+                    assertTrue(entry.isBuffered());
+                }
+                try (InputStream is = entry.openStream(zip)) {
+                    written.add(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            });
+        }
+        assertEquals(List.of("1234", "0123456789"), written);
+    }
+
+    @Test
+    @SneakyThrows
+    void writerFailureStopsDecompression() {
+        String[] entries = new String[200];
+        for (int i = 0; i < 100; i++) {
+            entries[2 * i] = "file" + i + ".txt";
+            entries[2 * i + 1] = "content" + i;
+        }
+        Path zipFile = writeZip(entries);
+        AtomicInteger named = new AtomicInteger();
+        IOException failure = new IOException("repository down");
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            TemplateExtractionPipeline pipeline = new TemplateExtractionPipeline(2, 1024);
+            IOException thrown = assertThrows(IOException.class, () -> pipeline.run(zip, entry -> {
+                named.incrementAndGet();
+                return entry.getName();
+            }, entry -> {
+                // lets the decompressor fill the queue and block on it
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                throw failure;
+            }));
+            assertSame(failure, thrown);
+        }
+        assertTrue(named.get() < 100);
+        assertExtractionThreadEnds();
+    }
+
+    @Test
+    @SneakyThrows
+    void decompressionFailureIsPropagated() {
+        Path zipFile = writeZip("a.txt", "a", "b.txt", "b");
+        List<String> written = new ArrayList<>();
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            TemplateExtractionPipeline pipeline = new TemplateExtractionPipeline(4, 1024);
+            IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> pipeline.run(zip, entry -> {
+                if (entry.getName().equals("b.txt")) {
+                    throw new IllegalStateException("broken entry");
+                }
+                return entry.getName();
+            }, entry -> written.add(entry.name())));
+            assertEquals("broken entry", thrown.getMessage());
+        }
+        assertEquals(List.of("a.txt"), written);
+    }
+
+    @Test
+    @SneakyThrows
+    void decompressionFailureOnFullQueueIsPropagated() {
+        Path zipFile = writeZip("a.txt", "a", "b.txt", "b", "c.txt", "c");
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            TemplateExtractionPipeline pipeline = new TemplateExtractionPipeline(1, 1024);
+            IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> pipeline.run(zip, entry -> {
+                if (entry.getName().equals("c.txt")) {
+                    throw new IllegalStateException("broken entry");
+                }
+                return entry.getName();
+            }, entry -> LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20))));
+            assertEquals("broken entry", thrown.getMessage());
+        }
+        assertExtractionThreadEnds();
+    }
+
+    @Test
+    void rejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new TemplateExtractionPipeline(0, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new TemplateExtractionPipeline(1, -1));
+    }
+
+    @SneakyThrows
+    private static void assertExtractionThreadEnds() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().equals("template-extraction"))) {
+            assertTrue(System.nanoTime() < deadline, "template-extraction thread did not end");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * @param namesAndContents pairs of entry name and content, null content for directories
+     */
+    private Path writeZip(String... namesAndContents) throws IOException {
+        Path zipFile = Files.createTempFile(tempDir, "template-", ".zip");
+        try (OutputStream out = Files.newOutputStream(zipFile); ZipOutputStream zos = new ZipOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zos.putNextEntry(new ZipEntry(namesAndContents[i]));
+                if (namesAndContents[i + 1] != null) {
+                    zos.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                }
+                zos.closeEntry();
+            }
+        }
+        return zipFile;
+    }
+}
@@ -0,0 +1,70 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import ch.sbb.polarion.extension.test_data.util.WorkItemProjections;
+import com.polarion.alm.tracker.model.IWorkItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class WorkItemProjectionCacheTest {
+
+    @Test
+    void returnsProjectionsOfSameRevisionOnly() {
+        WorkItemProjectionCache cache = new WorkItemProjectionCache(1000);
+        WorkItemProjections workItems = projections(3);
+        cache.put("p/space/doc", "10", workItems);
+
+        assertSame(workItems, cache.get("p/space/doc", "10"));
+        assertNull(cache.get("p/space/doc", "11"));
+        assertNull(cache.get("p/space/other", "10"));
+    }
+
+    @Test
+    void newRevisionReplacesOldProjections() {
+        WorkItemProjectionCache cache = new WorkItemProjectionCache(1000);
+        cache.put("p/space/doc", "10", projections(100));
+        cache.put("p/space/doc", "11", projections(50));
+
+        assertNull(cache.get("p/space/doc", "10"));
+        assertNotNull(cache.get("p/space/doc", "11"));
+        assertEquals(50, cache.getTotalWorkItems());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedDocuments() {
+        WorkItemProjectionCache cache = new WorkItemProjectionCache(1000);
+        cache.put("a", "1", projections(250));
+        cache.put("b", "1", projections(250));
+        cache.put("c", "1", projections(250));
+        cache.get("a", "1");
+
+        cache.put("d", "1", projections(250));
+        cache.put("e", "1", projections(250));
+
+        assertNotNull(cache.get("a", "1"));
+        assertNull(cache.get("b", "1"));
+        assertNotNull(cache.get("e", "1"));
+        assertEquals(1000, cache.getTotalWorkItems());
+    }
+
+    @Test
+    void skipsDocumentsAboveQuarterOfBudget() {
+        WorkItemProjectionCache cache = new WorkItemProjectionCache(1000);
+        cache.put("p/space/doc", "1", projections(251));
+
+        assertNull(cache.get("p/space/doc", "1"));
+        assertEquals(0, cache.getTotalWorkItems());
+        assertThrows(IllegalArgumentException.class, () -> new WorkItemProjectionCache(-1));
+    }
+
+    private static WorkItemProjections projections(int count) {
+        return WorkItemProjections.of(Collections.nCopies(count, mock(IWorkItem.class)));
+    }
+}
@@ -0,0 +1,96 @@
+package ch.sbb.polarion.extension.test_data.service;
+
+import ch.sbb.polarion.extension.generic.service.PolarionService;
+import ch.sbb.polarion.extension.test_data.util.WorkItemProjections;
+import com.polarion.alm.tracker.ITrackerService;
+import com.polarion.alm.tracker.model.IModule;
+import com.polarion.alm.tracker.model.ITrackerProject;
+import com.polarion.alm.tracker.model.IWorkItem;
+import com.polarion.platform.service.repository.IRepositoryReadOnlyConnection;
+import com.polarion.platform.service.repository.IRepositoryService;
+import com.polarion.subterra.base.location.ILocation;
+import com.polarion.subterra.base.location.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WorkItemProjectionServiceTest {
+
+    @Test
+    void readsWorkItemsOncePerDocumentRevision() {
+        PolarionService polarionService = mock(PolarionService.class);
+        IRepositoryReadOnlyConnection connection = mock(IRepositoryReadOnlyConnection.class);
+        ILocation documentLocation = Location.getLocationWithRepository(IRepositoryService.DEFAULT, "/group/p/modules/space/doc");
+        when(connection.exists(documentLocation)).thenReturn(true);
+        when(connection.getLastRevision(documentLocation)).thenReturn("10", "10", "11");
+        when(polarionService.getReadOnlyConnection(any())).thenReturn(connection);
+        IModule module = mockModule(polarionService);
+        WorkItemProjectionService service = new WorkItemProjectionService(polarionService, new WorkItemProjectionCache(1000));
+
+        WorkItemProjections first = service.getWorkItems("p", "space", "doc");
+        assertSame(first, service.getWorkItems("p", "space", "doc"));
+        verify(module, times(1)).getAllWorkItems();
+
+        service.getWorkItems("p", "space", "doc");
+        verify(module, times(2)).getAllWorkItems();
+    }
+
+    @Test
+    void doesNotCacheDocumentsMissingInRepository() {
+        PolarionService polarionService = mock(PolarionService.class);
+        when(polarionService.getReadOnlyConnection(any())).thenReturn(mock(IRepositoryReadOnlyConnection.class));
+        IModule module = mockModule(polarionService);
+        WorkItemProjectionCache cache = new WorkItemProjectionCache(1000);
+        WorkItemProjectionService service = new WorkItemProjectionService(polarionService, cache);
+
+        service.getWorkItems("p", "space", "doc");
+        service.getWorkItems("p", "space", "doc");
+
+        verify(module, times(2)).getAllWorkItems();
+        assertEquals(0, cache.getTotalWorkItems());
+    }
+
+    @Test
+    void loadsWorkItemById() {
+        PolarionService polarionService = mock(PolarionService.class);
+        when(polarionService.getReadOnlyConnection(any())).thenReturn(mock(IRepositoryReadOnlyConnection.class));
+        IWorkItem workItem = mockModule(polarionService).getAllWorkItems().get(1);
+        ITrackerService trackerService = mock(ITrackerService.class);
+        when(trackerService.getWorkItem("p", "WI-2")).thenReturn(workItem);
+        when(polarionService.getTrackerService()).thenReturn(trackerService);
+        WorkItemProjectionService service = new WorkItemProjectionService(polarionService, new WorkItemProjectionCache(1000));
+
+        WorkItemProjections workItems = service.getWorkItems("p", "space", "doc");
+
+        assertEquals(List.of("WI-1", "WI-2"), List.of(workItems.id(0), workItems.id(1)));
+        assertEquals("Title 2", workItems.title(1));
+        assertSame(workItem, service.getWorkItem(workItems, 1));
+    }
+
+    private static IModule mockModule(PolarionService polarionService) {
+        List<IWorkItem> workItems = List.of(mockWorkItem(1), mockWorkItem(2));
+        IModule module = mock(IModule.class);
+        when(module.getAllWorkItems()).thenReturn(workItems);
+        when(polarionService.getModule("p", "space", "doc")).thenReturn(module);
+        ITrackerProject trackerProject = mock(ITrackerProject.class);
+        when(trackerProject.getLocation()).thenReturn(Location.getLocationWithRepository(IRepositoryService.DEFAULT, "/group/p"));
+        when(polarionService.getTrackerProject("p")).thenReturn(trackerProject);
+        return module;
+    }
+
+    private static IWorkItem mockWorkItem(int number) {
+        IWorkItem workItem = mock(IWorkItem.class);
+        when(workItem.getId()).thenReturn("WI-" + number);
+        when(workItem.getTitle()).thenReturn("Title " + number);
+        when(workItem.getProjectId()).thenReturn("p");
+        return workItem;
+    }
+}
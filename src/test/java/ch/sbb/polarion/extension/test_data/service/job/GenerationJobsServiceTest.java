@@ -0,0 +1,134 @@
+package ch.sbb.polarion.extension.test_data.service.job;
+
+import ch.sbb.polarion.extension.test_data.rest.model.GenerationJobState;
+import ch.sbb.polarion.extension.test_data.rest.model.GenerationJobStatus;
+import com.polarion.platform.security.ISecurityService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.PrivilegedAction;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GenerationJobsServiceTest {
+
+    private ISecurityService securityService;
+    private ExecutorService executor;
+    private GenerationJobsService service;
+
+    @BeforeEach
+    void setUp() {
+        securityService = mock(ISecurityService.class);
+        when(securityService.getCurrentUser()).thenReturn("alice");
+        when(securityService.doAsUser(any(), any())).thenAnswer(invocation -> ((PrivilegedAction<?>) invocation.getArgument(1)).run());
+        executor = Executors.newSingleThreadExecutor();
+        service = new GenerationJobsService(securityService, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void submittedJobReportsProgressAndResult() throws InterruptedException {
+        GenerationJob job = service.submit("test", progress -> {
+            progress.itemsProcessed(3);
+            progress.committed();
+            return 42;
+        });
+        awaitIdle();
+
+        GenerationJobStatus status = service.getJob(job.getId()).toStatus();
+        assertEquals(GenerationJobState.SUCCEEDED, status.state());
+        assertEquals(3, status.itemsDone());
+        assertEquals(1, status.commits());
+        assertEquals(42, status.result());
+        assertNotNull(status.startedAt());
+        assertNotNull(status.finishedAt());
+    }
+
+    @Test
+    void failedJobReportsError() throws InterruptedException {
+        GenerationJob job = service.submit("test", progress -> {
+            throw new IllegalArgumentException("quantity must be a natural number");
+        });
+        awaitIdle();
+
+        GenerationJobStatus status = job.toStatus();
+        assertEquals(GenerationJobState.FAILED, status.state());
+        assertEquals("quantity must be a natural number", status.error());
+    }
+
+    @Test
+    void cancelledJobStopsAtNextCheck() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        GenerationJob job = service.submit("test", progress -> {
+            progress.itemsProcessed(1);
+            started.countDown();
+            await(cancelled);
+            progress.checkCancelled();
+            progress.itemsProcessed(1);
+            return null;
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(service.getJob(job.getId()).requestCancel());
+        cancelled.countDown();
+        awaitIdle();
+
+        assertEquals(GenerationJobState.CANCELLED, job.getState());
+        assertEquals(1, job.toStatus().itemsDone());
+    }
+
+    @Test
+    void finishedJobCannotBeCancelled() throws InterruptedException {
+        GenerationJob job = service.submit("test", progress -> null);
+        awaitIdle();
+
+        assertFalse(job.requestCancel());
+        assertEquals(GenerationJobState.SUCCEEDED, job.getState());
+    }
+
+    @Test
+    void unknownJob() {
+        assertNull(service.getJob("unknown"));
+    }
+
+    @Test
+    void jobIsVisibleOnlyToItsOwner() {
+        GenerationJob job = service.submit("test", progress -> null);
+        assertEquals("alice", job.getOwner());
+        assertNotNull(service.getJob(job.getId()));
+
+        when(securityService.getCurrentUser()).thenReturn("bob");
+        assertNull(service.getJob(job.getId()));
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        CountDownLatch idle = new CountDownLatch(1);
+        executor.execute(idle::countDown);
+        assertTrue(idle.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
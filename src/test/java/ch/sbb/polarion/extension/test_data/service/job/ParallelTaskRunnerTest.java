@@ -0,0 +1,110 @@
+package ch.sbb.polarion.extension.test_data.service.job;
+
+import com.polarion.platform.security.ISecurityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.PrivilegedAction;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParallelTaskRunnerTest {
+
+    private ISecurityService securityService;
+    private ParallelTaskRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        securityService = mock(ISecurityService.class);
+        when(securityService.doAsUser(any(), any())).thenAnswer(invocation -> ((PrivilegedAction<?>) invocation.getArgument(1)).run());
+        runner = new ParallelTaskRunner(securityService);
+    }
+
+    @Test
+    void returnsResultsInTaskOrder() {
+        List<Supplier<Integer>> tasks = List.of(() -> 1, () -> 2, () -> 3, () -> 4);
+        assertEquals(List.of(1, 2, 3, 4), runner.invokeAll(tasks, 2));
+        verify(securityService, atLeast(4)).doAsUser(any(), any());
+    }
+
+    @Test
+    void runsTasksConcurrently() {
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Supplier<Integer> task = () -> {
+            threads.add(Thread.currentThread().getName());
+            try {
+                barrier.await();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return 0;
+        };
+
+        runner.invokeAll(List.of(task, task, task), 3);
+        assertEquals(3, threads.size());
+    }
+
+    @Test
+    void propagatesTaskFailure() {
+        List<Supplier<Integer>> tasks = List.of(() -> 1, () -> {
+            throw new IllegalArgumentException("failed");
+        });
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> runner.invokeAll(tasks, 2));
+        assertEquals("failed", exception.getMessage());
+    }
+
+    @Test
+    void finishesRunningTasksAndSkipsPendingOnesAfterFailure() {
+        AtomicBoolean slowTaskInterrupted = new AtomicBoolean();
+        AtomicBoolean slowTaskFinished = new AtomicBoolean();
+        AtomicBoolean pendingTaskRun = new AtomicBoolean();
+        CountDownLatch slowTaskStarted = new CountDownLatch(1);
+        List<Supplier<Integer>> tasks = List.of(() -> {
+            try {
+                slowTaskStarted.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalArgumentException("failed");
+        }, () -> {
+            slowTaskStarted.countDown();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+            slowTaskInterrupted.set(Thread.currentThread().isInterrupted());
+            slowTaskFinished.set(true);
+            return 2;
+        }, () -> {
+            pendingTaskRun.set(true);
+            return 3;
+        });
+
+        assertThrows(IllegalArgumentException.class, () -> runner.invokeAll(tasks, 2));
+        assertTrue(slowTaskFinished.get());
+        assertFalse(slowTaskInterrupted.get());
+        assertFalse(pendingTaskRun.get());
+    }
+
+    @Test
+    void rejectsInvalidParallelism() {
+        List<Supplier<Integer>> tasks = List.of(() -> 1);
+        assertThrows(IllegalArgumentException.class, () -> runner.invokeAll(tasks, 0));
+        assertTrue(runner.invokeAll(List.<Supplier<Integer>>of(), 1).isEmpty());
+    }
+}
@@ -0,0 +1,50 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.SplittableRandom;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContentPoolTest {
+
+    @Test
+    void disabledPool() {
+        assertNull(ContentPool.create(0, null));
+        assertThrows(IllegalArgumentException.class, () -> ContentPool.create(-1, null));
+        assertThrows(IllegalArgumentException.class, () -> ContentPool.create(ContentPool.MAX_SIZE + 1, null));
+    }
+
+    @Test
+    void picksFragmentsFromPool() {
+        ContentPool contentPool = ContentPool.create(3, null);
+        assertNotNull(contentPool);
+        assertEquals(3, contentPool.size());
+
+        SplittableRandom random = new SplittableRandom(1);
+        Set<String> htmlTexts = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            htmlTexts.add(contentPool.htmlText(random));
+            assertThat(contentPool.htmlImages(random)).doesNotContain("<svg");
+        }
+        assertThat(htmlTexts).hasSizeBetween(1, 3);
+    }
+
+    @Test
+    void seededPoolIsReproducible() {
+        ContentPool first = ContentPool.create(5, 42L);
+        ContentPool second = ContentPool.create(5, 42L);
+        assertNotNull(first);
+        assertNotNull(second);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(first.htmlText(new SplittableRandom(i)), second.htmlText(new SplittableRandom(i)));
+            assertEquals(first.htmlImages(new SplittableRandom(i)), second.htmlImages(new SplittableRandom(i)));
+        }
+    }
+}
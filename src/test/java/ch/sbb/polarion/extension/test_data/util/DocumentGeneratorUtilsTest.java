@@ -5,12 +5,14 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class DocumentGeneratorUtilsTest {
 
@@ -80,4 +82,24 @@ class DocumentGeneratorUtilsTest {
             assertThat(link).contains("href=\"/polarion/#/project/");
         }
     }
+
+    @Test
+    void sameSeedProducesSameContent() {
+        List<IWorkItem> workItems = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            IWorkItem workItem = mock(IWorkItem.class);
+            when(workItem.getId()).thenReturn("WI-" + i);
+            workItems.add(workItem);
+        }
+
+        assertEquals(generateContent(new SplittableRandom(42), workItems), generateContent(new SplittableRandom(42), workItems));
+        assertNotEquals(generateContent(new SplittableRandom(42), workItems), generateContent(new SplittableRandom(43), workItems));
+    }
+
+    private static String generateContent(SplittableRandom random, List<IWorkItem> workItems) {
+        return DocumentGeneratorUtils.generateWorkItemType(random)
+                + DocumentGeneratorUtils.generateRandomHtmlText(random)
+                + DocumentGeneratorUtils.generateRandomHtmlImages(random)
+                + DocumentGeneratorUtils.generateRandomWorkItemLinks(workItems, random);
+    }
 }
@@ -0,0 +1,85 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GlobFilterTest {
+
+    @Test
+    void emptyPatternsAcceptEverything() {
+        assertSame(GlobFilter.ALL, GlobFilter.of(null, List.of(" ")));
+        assertTrue(GlobFilter.ALL.isAll());
+        assertTrue(GlobFilter.ALL.accepts("any/path.xml", false));
+        assertEquals("", GlobFilter.ALL.fingerprint());
+    }
+
+    @Test
+    void matchesGlobSyntax() {
+        GlobFilter filter = GlobFilter.of(List.of("**/*.xml", "/config/?.properties"), null);
+
+        assertTrue(filter.accepts("a.xml", false));
+        assertTrue(filter.accepts("tracker/workitems/WI-1/workitem.xml", false));
+        assertFalse(filter.accepts("tracker/image.png", false));
+        assertTrue(filter.accepts("config/a.properties", false));
+        assertFalse(filter.accepts("config/ab.properties", false));
+        assertFalse(filter.accepts("config/sub/a.properties", false));
+    }
+
+    @Test
+    void excludedFolderPatternMatchesFolderItself() {
+        GlobFilter filter = GlobFilter.of(null, List.of("attachments/**", "**/*.png"));
+
+        assertFalse(filter.accepts("attachments", true));
+        assertFalse(filter.accepts("attachments/file.txt", false));
+        assertFalse(filter.accepts("tracker/image.png", false));
+        assertTrue(filter.accepts("attachments2", true));
+        assertTrue(filter.accepts("tracker", true));
+    }
+
+    @Test
+    void prunesFoldersThatCannotContainIncludedPaths() {
+        GlobFilter filter = GlobFilter.of(List.of(".polarion/tracker/**"), null);
+
+        assertTrue(filter.accepts(".polarion", true));
+        assertTrue(filter.accepts(".polarion/tracker", true));
+        assertTrue(filter.accepts(".polarion/tracker/workitems", true));
+        assertFalse(filter.accepts(".polarion/pages", true));
+        assertFalse(filter.accepts("modules", true));
+    }
+
+    @Test
+    void prunesFoldersSegmentBySegment() {
+        GlobFilter topLevelXml = GlobFilter.of(List.of("*.xml"), null);
+        assertTrue(topLevelXml.accepts("a.xml", false));
+        assertFalse(topLevelXml.accepts("tracker", true));
+
+        GlobFilter wildcardFolder = GlobFilter.of(List.of("modules/*/module.xml", "config/**"), null);
+        assertTrue(wildcardFolder.accepts("modules", true));
+        assertTrue(wildcardFolder.accepts("modules/Specification", true));
+        assertFalse(wildcardFolder.accepts("modules/Specification/attachments", true));
+        assertTrue(wildcardFolder.accepts("config/a/b", true));
+        assertFalse(wildcardFolder.accepts("tracker", true));
+
+        GlobFilter anyDepth = GlobFilter.of(List.of("**/*.xml"), List.of("**/attachments/**"));
+        assertTrue(anyDepth.accepts("tracker/workitems/WI-1", true));
+        assertFalse(anyDepth.accepts("attachments", true));
+        assertFalse(anyDepth.accepts("tracker/workitems/WI-1/attachments", true));
+    }
+
+    @Test
+    void fingerprintIdentifiesPatterns() {
+        GlobFilter filter = GlobFilter.of(List.of("*.xml"), null);
+
+        assertEquals(filter.fingerprint(), GlobFilter.of(List.of("/*.xml"), List.of()).fingerprint());
+        assertNotEquals(filter.fingerprint(), GlobFilter.of(null, List.of("*.xml")).fingerprint());
+        assertThrows(IllegalArgumentException.class, () -> GlobFilter.of(List.of("../secret"), null));
+    }
+}
@@ -0,0 +1,84 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import com.polarion.alm.tracker.model.IWorkItem;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HtmlDescriptionBuilderTest {
+
+    @Test
+    void imagesAreBase64EncodedSvg() {
+        HtmlDescriptionBuilder builder = new HtmlDescriptionBuilder();
+        Pattern imagePattern = Pattern.compile("<img src=\"data:image/svg\\+xml;base64,([^\"]+)\" alt=\"Random SVG Image\">");
+        int images = 0;
+        for (int seed = 0; seed < 20; seed++) {
+            Matcher matcher = imagePattern.matcher(builder.reset().appendRandomHtmlImages(new SplittableRandom(seed)).toString());
+            while (matcher.find()) {
+                String svg = new String(Base64.getDecoder().decode(matcher.group(1)), StandardCharsets.US_ASCII);
+                assertThat(svg).startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\"").endsWith("</svg>");
+                assertThat(svg).containsPattern("fill=\"#[0-9A-F]{6}\"");
+                images++;
+            }
+        }
+        assertTrue(images > 0);
+    }
+
+    @Test
+    void resetReusesBuffer() {
+        HtmlDescriptionBuilder builder = new HtmlDescriptionBuilder(16);
+        String first = builder.append("prefix: ").appendRandomHtmlText(new SplittableRandom(1)).toString();
+        String second = builder.reset().append("prefix: ").appendRandomHtmlText(new SplittableRandom(1)).toString();
+
+        assertEquals(first, second);
+        assertEquals(first.length(), builder.length());
+        assertEquals(first, "prefix: " + DocumentGeneratorUtils.generateRandomHtmlText(new SplittableRandom(1)));
+    }
+
+    @Test
+    void linksQueryEachWorkItemOncePerLink() {
+        IWorkItem workItem = mock(IWorkItem.class);
+        when(workItem.getId()).thenReturn("WI-1");
+        when(workItem.getTitle()).thenReturn("Title");
+        when(workItem.getProjectId()).thenReturn("project");
+
+        String links = new HtmlDescriptionBuilder().appendRandomWorkItemLinks(List.of(workItem), new SplittableRandom(3)).toString();
+        int numberOfLinks = links.split("<span class=\"polarion-rte-link\"", -1).length - 1;
+
+        assertThat(links).contains("title=\"WI-1 - Title\"", "href=\"/polarion/#/project/project/workitem?id=WI-1\"");
+        verify(workItem, times(numberOfLinks)).getId();
+        verify(workItem, times(numberOfLinks)).getTitle();
+    }
+
+    @Test
+    void projectionLinksMatchWorkItemLinks() {
+        List<IWorkItem> workItems = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            IWorkItem workItem = mock(IWorkItem.class);
+            when(workItem.getId()).thenReturn("WI-" + i);
+            when(workItem.getTitle()).thenReturn("Title " + i);
+            when(workItem.getProjectId()).thenReturn("project");
+            workItems.add(workItem);
+        }
+        WorkItemProjections projections = WorkItemProjections.of(workItems);
+
+        for (int seed = 0; seed < 10; seed++) {
+            assertEquals(new HtmlDescriptionBuilder().appendRandomWorkItemLinks(workItems, new SplittableRandom(seed)).toString(),
+                    new HtmlDescriptionBuilder().appendRandomWorkItemLinks(projections, new SplittableRandom(seed)).toString());
+        }
+    }
+}
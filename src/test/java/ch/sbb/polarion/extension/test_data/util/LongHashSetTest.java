@@ -0,0 +1,66 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashSetTest {
+
+    @Test
+    void addsEveryValueOnce() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(0));
+        assertTrue(set.add(-1));
+        assertTrue(set.add(Long.MAX_VALUE));
+        assertFalse(set.add(0));
+        assertFalse(set.add(Long.MAX_VALUE));
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(-1));
+        assertFalse(set.contains(1));
+        assertFalse(set.contains(Long.MIN_VALUE));
+    }
+
+    @Test
+    void growsAndMatchesHashSet() {
+        LongHashSet set = new LongHashSet(2);
+        Set<Long> expected = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 50_000; i++) {
+            // a narrow range produces plenty of duplicates
+            long value = random.nextLong(-20_000, 20_000) << 32 | random.nextInt(4);
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        expected.forEach(value -> assertTrue(set.contains(value)));
+    }
+
+    @Test
+    void clearKeepsSetUsable() {
+        LongHashSet set = new LongHashSet(4);
+        for (long value = 1; value <= 100; value++) {
+            set.add(value);
+        }
+        set.clear();
+
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(50));
+        assertTrue(set.add(50));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void rejectsFreeSlotMarkerAndInvalidSize() {
+        LongHashSet set = new LongHashSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(Long.MIN_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> new LongHashSet(-1));
+    }
+}
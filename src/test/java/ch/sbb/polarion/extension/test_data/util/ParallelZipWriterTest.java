@@ -0,0 +1,219 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelZipWriterTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void writesEntriesInOrderReadableByZipInputStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelZipWriter writer = new ParallelZipWriter(out, pool, 2)) {
+            writer.putEntry(new ZipEntry("folder/"), null);
+            for (int i = 0; i < 20; i++) {
+                writer.putEntry(new ZipEntry("folder/file" + i + ".xml"), stream(content(i)));
+            }
+            writer.putEntry(new ZipEntry("empty.txt"), stream(new byte[0]));
+            writer.putEntry(new ZipEntry("\u00fcmlaut.txt"), stream("\u00e4".getBytes(StandardCharsets.UTF_8)));
+        }
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8)) {
+            ZipEntry folder = zis.getNextEntry();
+            assertEquals("folder/", folder.getName());
+            assertTrue(folder.isDirectory());
+            for (int i = 0; i < 20; i++) {
+                ZipEntry entry = zis.getNextEntry();
+                assertEquals("folder/file" + i + ".xml", entry.getName());
+                assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+                assertArrayEquals(content(i), zis.readAllBytes());
+            }
+            assertEquals("empty.txt", zis.getNextEntry().getName());
+            assertEquals(0, zis.readAllBytes().length);
+            assertEquals("\u00fcmlaut.txt", zis.getNextEntry().getName());
+            assertEquals("\u00e4", new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    void centralDirectoryIsReadableByZipFile() throws IOException {
+        Path zipPath = tempDir.resolve("archive.zip");
+        try (ParallelZipWriter writer = new ParallelZipWriter(Files.newOutputStream(zipPath), pool, 8)) {
+            for (int i = 0; i < 50; i++) {
+                writer.putEntry(new ZipEntry("file" + i + ".xml"), stream(content(i)));
+            }
+        }
+
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            assertEquals(50, zipFile.size());
+            ZipEntry entry = zipFile.getEntry("file7.xml");
+            assertEquals(content(7).length, entry.getSize());
+            try (InputStream is = zipFile.getInputStream(entry)) {
+                assertArrayEquals(content(7), is.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void writesZip64EndRecordForManyEntries() throws IOException {
+        int entryCount = 0x10000 + 10;
+        Path zipPath = tempDir.resolve("many.zip");
+        try (ParallelZipWriter writer = new ParallelZipWriter(Files.newOutputStream(zipPath), pool, 64)) {
+            for (int i = 0; i < entryCount; i++) {
+                writer.putEntry(new ZipEntry("f" + i), stream(new byte[]{(byte) i}));
+            }
+        }
+
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            assertEquals(entryCount, zipFile.size());
+            List<String> names = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements() && names.size() < 2) {
+                names.add(entries.nextElement().getName());
+            }
+            assertEquals(List.of("f0", "f1"), names);
+        }
+    }
+
+    @Test
+    void streamsEntriesTooLargeToBuffer() throws IOException {
+        byte[] large = "lorem ipsum dolor sit amet ".repeat(20_000).getBytes(StandardCharsets.UTF_8);
+        Path zipPath = tempDir.resolve("large.zip");
+        // entries above 4 KB are streamed, the small ones around them keep their order
+        try (ParallelZipWriter writer = new ParallelZipWriter(Files.newOutputStream(zipPath), pool, 8, 16 * 1024)) {
+            writer.putEntry(new ZipEntry("small0.xml"), stream(content(0)));
+            writer.putEntry(new ZipEntry("large.bin"), stream(large));
+            writer.putEntry(new ZipEntry("small1.xml"), stream(content(1)));
+            writer.putEntry(new ZipEntry("exact.bin"), stream(Arrays.copyOf(large, 4096)));
+            writer.putEntry(new ZipEntry("above.bin"), stream(Arrays.copyOf(large, 4097)));
+        }
+
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipPath), StandardCharsets.UTF_8)) {
+            assertEquals("small0.xml", zis.getNextEntry().getName());
+            assertArrayEquals(content(0), zis.readAllBytes());
+            assertEquals("large.bin", zis.getNextEntry().getName());
+            assertArrayEquals(large, zis.readAllBytes());
+            assertEquals("small1.xml", zis.getNextEntry().getName());
+            assertArrayEquals(content(1), zis.readAllBytes());
+            assertEquals("exact.bin", zis.getNextEntry().getName());
+            assertArrayEquals(Arrays.copyOf(large, 4096), zis.readAllBytes());
+            assertEquals("above.bin", zis.getNextEntry().getName());
+            assertArrayEquals(Arrays.copyOf(large, 4097), zis.readAllBytes());
+            assertNull(zis.getNextEntry());
+        }
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            ZipEntry entry = zipFile.getEntry("large.bin");
+            assertEquals(large.length, entry.getSize());
+            assertTrue(entry.getCompressedSize() < large.length);
+            try (InputStream is = zipFile.getInputStream(entry)) {
+                assertArrayEquals(large, is.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void streamsEntriesLargerThan4GbAsZip64() throws IOException {
+        // deflating 4 GB takes tens of seconds, but the Zip64 fields only appear beyond that size
+        long size = 0x1_0000_0000L + 1000;
+        Path zipPath = tempDir.resolve("huge.zip");
+        try (ParallelZipWriter writer = new ParallelZipWriter(Files.newOutputStream(zipPath), pool, 8, 16 * 1024)) {
+            writer.putEntry(new ZipEntry("huge.bin"), new ZeroInputStream(size));
+            writer.putEntry(new ZipEntry("small.xml"), stream(content(0)));
+        }
+
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            ZipEntry huge = zipFile.getEntry("huge.bin");
+            assertEquals(size, huge.getSize());
+            try (InputStream is = zipFile.getInputStream(zipFile.getEntry("small.xml"))) {
+                assertArrayEquals(content(0), is.readAllBytes());
+            }
+        }
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipPath), StandardCharsets.UTF_8)) {
+            assertEquals("huge.bin", zis.getNextEntry().getName());
+            assertEquals(size, zis.transferTo(OutputStream.nullOutputStream()));
+            assertEquals("small.xml", zis.getNextEntry().getName());
+            assertArrayEquals(content(0), zis.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsEntriesAfterFinish() throws IOException {
+        ParallelZipWriter writer = new ParallelZipWriter(new ByteArrayOutputStream(), pool, 1);
+        writer.finish();
+
+        assertThrows(IOException.class, () -> writer.putEntry(new ZipEntry("late.txt"), stream(new byte[1])));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelZipWriter(new ByteArrayOutputStream(), pool, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelZipWriter(new ByteArrayOutputStream(), pool, 1, 0));
+    }
+
+    private static byte[] content(int index) {
+        return ("<workitem id=\"" + index + "\">" + "lorem ipsum ".repeat(100 + index) + "</workitem>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream stream(byte[] content) {
+        return new ByteArrayInputStream(content);
+    }
+
+    private static final class ZeroInputStream extends InputStream {
+
+        private long remaining;
+
+        ZeroInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int read = (int) Math.min(length, remaining);
+            Arrays.fill(buffer, offset, offset + read, (byte) 0);
+            remaining -= read;
+            return read;
+        }
+    }
+}
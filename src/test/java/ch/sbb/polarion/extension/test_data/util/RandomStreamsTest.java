@@ -0,0 +1,41 @@
+package ch.sbb.polarion.extension.test_data.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RandomStreamsTest {
+
+    @Test
+    void unseededUsesThreadLocalRandom() {
+        assertSame(ThreadLocalRandom.current(), RandomStreams.forKey(null, "create", "project", "space", "document"));
+    }
+
+    @Test
+    void seededStreamsAreReproduciblePerKey() {
+        RandomGenerator first = RandomStreams.forKey(42L, "create", "project", "space", "document");
+        RandomGenerator second = RandomStreams.forKey(42L, "create", "project", "space", "document");
+        for (int i = 0; i < 10; i++) {
+            assertEquals(first.nextLong(), second.nextLong());
+        }
+
+        assertNotEquals(RandomStreams.forKey(42L, "create", "project", "space", "document").nextLong(),
+                RandomStreams.forKey(42L, "create", "project", "space", "document2").nextLong());
+        assertNotEquals(RandomStreams.forKey(42L, "create", "project", "space", "document").nextLong(),
+                RandomStreams.forKey(43L, "create", "project", "space", "document").nextLong());
+        assertNotEquals(RandomStreams.forKey(42L, "ab", "c").nextLong(), RandomStreams.forKey(42L, "a", "bc").nextLong());
+    }
+
+    @Test
+    void stamp() {
+        assertEquals(RandomStreams.stamp(7L, RandomStreams.forKey(7L, "key")), RandomStreams.stamp(7L, RandomStreams.forKey(7L, "key")));
+        assertThat(RandomStreams.stamp(7L, RandomStreams.forKey(7L, "key"))).hasSize(13);
+        assertThat(RandomStreams.stamp(null, ThreadLocalRandom.current())).matches("\\d+");
+    }
+}